@@ -0,0 +1,152 @@
+package common.core.utils;
+
+import java.text.ParsePosition;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 日期格式缓存：每种格式只编译一次为不可变、线程安全的DateTimeFormatter，任意线程可直接复用
+ *
+ * <p>格式字母与SimpleDateFormat常用写法一致(yyyy、MM、dd、HH、mm、ss、SSS等)。SSS按毫秒数值处理，
+ * 以便"yyyyMMddHHmmssSSS"这类无分隔符的格式在JDK8下也能解析(JDK8中小数秒不参与相邻数值解析)。
+ *
+ * <p>解析结果与SimpleDateFormat(默认宽松模式)一致：超出范围的字段顺延(2021-02-30解析为2021-03-02，2021-13-01解析为2022-01-01)，
+ * 两位年份yy按编译格式时的前80年到后20年取值(而不是DateTimeFormatter默认的2000-2099)。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public final class DateFormatter {
+
+    /** 已编译的格式：格式 -> DateTimeFormatter */
+    private static final ConcurrentMap<String, DateTimeFormatter> FORMATTERS =
+            new ConcurrentHashMap<>();
+
+    /** 解析结果没有日期部分时使用的日期(与SimpleDateFormat一致) */
+    private static final LocalDate EPOCH_DATE = LocalDate.of(1970, 1, 1);
+
+    private DateFormatter() {}
+
+    /**
+     * 获取格式对应的DateTimeFormatter(首次使用时编译并缓存)
+     *
+     * @param pattern 日期格式
+     * @return DateTimeFormatter
+     */
+    public static DateTimeFormatter of(String pattern) {
+        // 先无锁读取，已缓存的格式不进入computeIfAbsent
+        DateTimeFormatter formatter = FORMATTERS.get(pattern);
+        if (null == formatter) {
+            formatter = FORMATTERS.computeIfAbsent(pattern, DateFormatter::compile);
+        }
+        return formatter;
+    }
+
+    /**
+     * 编译格式：S连写不超过3个时按毫秒数值处理，yy按SimpleDateFormat的世纪规则处理，其余部分按DateTimeFormatter格式
+     *
+     * @param pattern 日期格式
+     * @return DateTimeFormatter
+     */
+    private static DateTimeFormatter compile(String pattern) {
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+        StringBuilder segment = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if ('\'' == c) {
+                quoted = !quoted;
+            }
+            if (quoted || ('S' != c && 'y' != c)) {
+                segment.append(c);
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < pattern.length() && c == pattern.charAt(end)) {
+                end++;
+            }
+            int width = end - i;
+            if ('S' == c ? 3 < width : 2 != width) {
+                // 超过毫秒精度的小数秒、非两位的年份保持DateTimeFormatter的含义
+                segment.append(pattern, i, end);
+            } else {
+                if (0 < segment.length()) {
+                    builder.appendPattern(segment.toString());
+                    segment.setLength(0);
+                }
+                if ('y' == c) {
+                    builder.appendValueReduced(
+                            ChronoField.YEAR_OF_ERA, 2, 2, LocalDate.now().minusYears(80));
+                } else if (3 == width) {
+                    builder.appendValue(ChronoField.MILLI_OF_SECOND, 3);
+                } else {
+                    builder.appendValue(
+                            ChronoField.MILLI_OF_SECOND, width, 3, SignStyle.NOT_NEGATIVE);
+                }
+            }
+            i = end;
+        }
+        if (0 < segment.length()) {
+            builder.appendPattern(segment.toString());
+        }
+        return builder.toFormatter().withResolverStyle(ResolverStyle.LENIENT);
+    }
+
+    /**
+     * 按格式解析字符串(与SimpleDateFormat一致，只要求开头部分符合格式，忽略其后多余的字符)
+     *
+     * @param text 日期字符串
+     * @param pattern 日期格式
+     * @return TemporalAccessor
+     * @throws DateTimeParseException 不符合格式时
+     */
+    public static TemporalAccessor parse(String text, String pattern) {
+        return of(pattern).parse(text, new ParsePosition(0));
+    }
+
+    /**
+     * 解析结果转换为LocalDateTime：缺少的年、月、日分别取1970、1月、1日，缺少时间时取00:00，
+     * 超出范围的月、日和时间按SimpleDateFormat宽松模式顺延(如"13-40"按"MM-dd"解析为1971-02-09)
+     *
+     * @param parsed 解析结果
+     * @param zone 解析结果带有时区或偏移时转换到的时区
+     * @return LocalDateTime
+     */
+    public static LocalDateTime toLocalDateTime(TemporalAccessor parsed, ZoneId zone) {
+        if (parsed.isSupported(ChronoField.INSTANT_SECONDS)) {
+            return LocalDateTime.ofInstant(Instant.from(parsed), zone);
+        }
+        LocalDate date = parsed.query(TemporalQueries.localDate());
+        if (null == date) {
+            date =
+                    EPOCH_DATE
+                            .withYear((int) field(parsed, ChronoField.YEAR, EPOCH_DATE.getYear()))
+                            .plusMonths(field(parsed, ChronoField.MONTH_OF_YEAR, 1) - 1)
+                            .plusDays(field(parsed, ChronoField.DAY_OF_MONTH, 1) - 1)
+                            // 只有年月日齐全时解析器才会把时间溢出的天数并入日期
+                            .plus(parsed.query(DateTimeFormatter.parsedExcessDays()));
+        }
+        LocalTime time = parsed.query(TemporalQueries.localTime());
+        return date.atTime(null == time ? LocalTime.MIDNIGHT : time);
+    }
+
+    private static long field(TemporalAccessor parsed, ChronoField field, long defaultValue) {
+        return parsed.isSupported(field) ? parsed.getLong(field) : defaultValue;
+    }
+}
@@ -3,15 +3,22 @@ package common.core.utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.Calendar;
 import java.util.Date;
 
 /**
  * Java1.7 以前的日期处理类
  *
+ * <p>格式化和解析统一使用DateFormatter缓存的DateTimeFormatter，不再每次创建SimpleDateFormat，所有方法可在任意线程调用；
+ * 另提供LocalDate、LocalDateTime和毫秒时间戳的对应方法，时区均为系统默认时区。
+ *
  * @author chaoxy
  * @date 2019/05/13
  * @version 1.0
@@ -44,8 +51,7 @@ public class DateUtil {
         if (null == format || "".equals(format)) {
             format = DATE_TIME_FORMAT;
         }
-        SimpleDateFormat formatter = new SimpleDateFormat(format);
-        return formatter.format(getNowDate());
+        return DateFormatter.of(format).format(ZonedDateTime.now());
     }
 
     /**
@@ -252,8 +258,7 @@ public class DateUtil {
         if (null == date) {
             date = getNowDate();
         }
-        DateFormat dateformat = new SimpleDateFormat(format);
-        return dateformat.format(date);
+        return DateFormatter.of(format).format(toZonedDateTime(date.getTime()));
     }
 
     /**
@@ -267,14 +272,127 @@ public class DateUtil {
         if (null == formatStr || "".equals(formatStr)) {
             formatStr = DATE_FORMAT;
         }
-        DateFormat dateformat = new SimpleDateFormat(formatStr);
-        Date date = null;
+        LocalDateTime dateTime = parse(dateStr, formatStr);
+        return null == dateTime ? null : new Date(toEpochMillis(dateTime));
+    }
+
+    /**
+     * 按格式解析字符串，失败时记录日志并返回空
+     *
+     * @param dateStr 字符串日期
+     * @param formatStr 日期格式
+     * @return LocalDateTime
+     */
+    private static LocalDateTime parse(String dateStr, String formatStr) {
+        if (null == dateStr) {
+            return null;
+        }
         try {
-            date = dateformat.parse(dateStr);
-        } catch (ParseException e) {
+            return DateFormatter.toLocalDateTime(
+                    DateFormatter.parse(dateStr, formatStr), ZoneId.systemDefault());
+        } catch (DateTimeException e) {
+            // 格式不符(DateTimeParseException)或字段超出范围
             log.error("解析字符串[{}]格式[{}]成日期时异常", dateStr, formatStr, e);
+            return null;
+        }
+    }
+
+    /**
+     * LocalDate 转 字符串
+     *
+     * @param date 日期，为空时取当天
+     * @param format 日期格式，为空时为yyyy-MM-dd
+     * @return String
+     */
+    public static String localDate2Str(LocalDate date, String format) {
+        if (null == format || "".equals(format)) {
+            format = DATE_FORMAT;
+        }
+        return DateFormatter.of(format).format(null == date ? LocalDate.now() : date);
+    }
+
+    /**
+     * LocalDateTime 转 字符串
+     *
+     * @param dateTime 时间，为空时取当前时间
+     * @param format 日期格式，为空时为yyyy-MM-dd HH:mm:ss
+     * @return String
+     */
+    public static String localDateTime2Str(LocalDateTime dateTime, String format) {
+        if (null == format || "".equals(format)) {
+            format = DATE_TIME_FORMAT;
+        }
+        if (null == dateTime) {
+            dateTime = LocalDateTime.now();
         }
-        return date;
+        // 带时区以便格式中可以包含时区字母
+        return DateFormatter.of(format).format(dateTime.atZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * 字符串 转 LocalDate
+     *
+     * @param dateStr 字符串日期
+     * @param format 日期格式，为空时为yyyy-MM-dd
+     * @return LocalDate 解析失败时为空
+     */
+    public static LocalDate str2LocalDate(String dateStr, String format) {
+        if (null == format || "".equals(format)) {
+            format = DATE_FORMAT;
+        }
+        LocalDateTime dateTime = parse(dateStr, format);
+        return null == dateTime ? null : dateTime.toLocalDate();
+    }
+
+    /**
+     * 字符串 转 LocalDateTime
+     *
+     * @param dateStr 字符串日期
+     * @param format 日期格式，为空时为yyyy-MM-dd HH:mm:ss
+     * @return LocalDateTime 解析失败时为空
+     */
+    public static LocalDateTime str2LocalDateTime(String dateStr, String format) {
+        if (null == format || "".equals(format)) {
+            format = DATE_TIME_FORMAT;
+        }
+        return parse(dateStr, format);
+    }
+
+    /**
+     * 毫秒时间戳 转 字符串
+     *
+     * @param epochMillis 毫秒时间戳
+     * @param format 日期格式，为空时为yyyy-MM-dd HH:mm:ss
+     * @return String
+     */
+    public static String epochMillis2Str(long epochMillis, String format) {
+        if (null == format || "".equals(format)) {
+            format = DATE_TIME_FORMAT;
+        }
+        return DateFormatter.of(format).format(toZonedDateTime(epochMillis));
+    }
+
+    /**
+     * 字符串 转 毫秒时间戳
+     *
+     * @param dateStr 字符串日期
+     * @param format 日期格式，为空时为yyyy-MM-dd HH:mm:ss
+     * @return Long 解析失败时为空
+     */
+    public static Long str2EpochMillis(String dateStr, String format) {
+        if (null == format || "".equals(format)) {
+            format = DATE_TIME_FORMAT;
+        }
+        LocalDateTime dateTime = parse(dateStr, format);
+        return null == dateTime ? null : toEpochMillis(dateTime);
+    }
+
+    private static ZonedDateTime toZonedDateTime(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 
     /**
@@ -336,16 +454,12 @@ public class DateUtil {
         if (null == dateFormat || "".equals(dateFormat)) {
             dateFormat = DATE_FORMAT;
         }
-        Date dateStart = str2Date(startDate, dateFormat);
-        Date dateEnd = str2Date(endDate, dateFormat);
-        SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
-        dateStart = sdf.parse(sdf.format(dateStart));
-        dateEnd = sdf.parse(sdf.format(dateEnd));
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(dateStart);
-        long time1 = cal.getTimeInMillis();
-        cal.setTime(dateEnd);
-        long time2 = cal.getTimeInMillis();
-        return (time2 - time1) / (1000);
+        LocalDateTime dateStart = parse(startDate, dateFormat);
+        LocalDateTime dateEnd = parse(endDate, dateFormat);
+        if (null == dateStart || null == dateEnd) {
+            throw new ParseException(
+                    "解析字符串[" + startDate + "," + endDate + "]格式[" + dateFormat + "]成日期时异常", 0);
+        }
+        return (toEpochMillis(dateEnd) - toEpochMillis(dateStart)) / (1000);
     }
 }
@@ -0,0 +1,517 @@
+package common.core.utils;
+
+import com.jcraft.jsch.ChannelSftp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sftp异步客户端：上传、下载、列目录、删除在有界传输线程池中执行，每个任务从连接池借出通道，调用方线程不被阻塞
+ *
+ * <p>返回的CompletableFuture被cancel、超时或以其他方式提前完成时，正在进行的传输通过进度监控的count()返回false中止，
+ * 中止的通道不再放回连接池，已写入的目标文件被删除；尚未开始的任务不再执行。线程池队列已满时返回以RejectedExecutionException完成的future。
+ * 上传、下载与SftpUtil一样经过SftpBandwidthLimiter限速，设置加密后边传输边加解密。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpAsyncClient implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SftpAsyncClient.class);
+
+    /** 默认队列容量 */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /** 全部客户端共用的超时定时线程 */
+    private static final ScheduledExecutorService TIMER =
+            Executors.newSingleThreadScheduledExecutor(new SftpThreadFactory("sftp-async-timer"));
+
+    /** 连接池 */
+    private final SftpSessionPool pool;
+    /** 连接信息 */
+    private final SftpPoolKey key;
+    /** 传输线程池 */
+    private final ThreadPoolExecutor executor;
+    /** 已确认存在的远程目录 */
+    private final SftpRemoteDirCache dirCache = new SftpRemoteDirCache();
+    /** 传输优先级(用于带宽限制) */
+    private SftpBandwidthLimiter.Priority priority = SftpBandwidthLimiter.Priority.NORMAL;
+    /** 传输加解密(为空时不加密) */
+    private SftpCipher cipher;
+    /** 传输进度监听(为空时不统计进度) */
+    private SftpTransferListener listener = SftpTransferListener.LOGGING;
+    /** 进度统计间隔(毫秒) */
+    private long progressIntervalMillis = SftpTransferMonitor.DEFAULT_INTERVAL_MILLIS;
+
+    public SftpAsyncClient(SftpSessionPool pool, SftpPoolKey key, int threads) {
+        this(pool, key, threads, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * 构造异步客户端
+     *
+     * @param pool 连接池
+     * @param key 连接信息
+     * @param threads 并发数(不超过连接池每主机会话上限)
+     * @param queueCapacity 等待队列容量
+     */
+    public SftpAsyncClient(SftpSessionPool pool, SftpPoolKey key, int threads, int queueCapacity) {
+        this.pool = pool;
+        this.key = key;
+        int workers = SftpParallelRunner.boundedThreads(pool, threads);
+        this.executor =
+                new ThreadPoolExecutor(
+                        workers,
+                        workers,
+                        60L,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(queueCapacity),
+                        new SftpThreadFactory("sftp-async"));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 设置传输优先级，全局或主机限速生效时高优先级传输优先获得带宽
+     *
+     * @param priority 传输优先级
+     */
+    public void setTransferPriority(SftpBandwidthLimiter.Priority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * 设置传输加解密(与SftpUtil.setCipher相同的密文格式)，只作用于uploadAsync和downloadAsync
+     *
+     * @param cipher 加解密对象，为空时不加密
+     */
+    public void setCipher(SftpCipher cipher) {
+        this.cipher = cipher;
+    }
+
+    /**
+     * 设置传输进度监听，默认每5秒输出一次日志
+     *
+     * @param listener 进度监听，为空时不统计进度(取消传输不受影响)
+     * @param intervalMillis 统计间隔(毫秒)
+     */
+    public void setTransferListener(SftpTransferListener listener, long intervalMillis) {
+        this.listener = listener;
+        this.progressIntervalMillis = Math.max(1L, intervalMillis);
+    }
+
+    /** 在借出的通道上执行的操作 */
+    @FunctionalInterface
+    public interface ChannelCall<T> {
+
+        /**
+         * 执行操作
+         *
+         * @param sftp sftp通道
+         * @param monitor 传输进度监控(非传输操作可忽略)
+         * @return T
+         * @throws Exception
+         */
+        T call(ChannelSftp sftp, SftpTransferMonitor monitor) throws Exception;
+    }
+
+    /**
+     * 异步上传文件
+     *
+     * @param localFile 本地文件
+     * @param remotePath 远程目录(绝对路径，不存在时创建)
+     * @param remoteFileName 保存文件名
+     * @return CompletableFuture<SftpTransferResult>
+     */
+    public CompletableFuture<SftpTransferResult> uploadAsync(
+            File localFile, String remotePath, String remoteFileName) {
+        String remoteDir = SftpRemoteDirCache.normalize(remotePath);
+        String target = remoteDir + remoteFileName;
+        return submit(
+                new TransferFuture(localFile.getPath(), target),
+                "upload",
+                null == cipher ? localFile.length() : cipher.encryptedSize(localFile.length()),
+                (sftp, monitor) -> {
+                    long start = System.nanoTime();
+                    dirCache.ensureDir(sftp, remoteDir);
+                    try (InputStream in = throttle(encrypting(new FileInputStream(localFile)))) {
+                        sftp.put(in, target, monitor, ChannelSftp.OVERWRITE);
+                    } finally {
+                        if (monitor.isCancelled()) {
+                            removeQuietly(sftp, target);
+                        }
+                    }
+                    checkCancelled(monitor, target);
+                    return finish("upload", localFile.getPath(), target, monitor, start);
+                });
+    }
+
+    /**
+     * 异步下载文件
+     *
+     * @param remotePath 远程目录
+     * @param remoteFileName 文件名称
+     * @param localPath 本地目录(不存在时创建)
+     * @param localFileName 保存文件名
+     * @return CompletableFuture<SftpTransferResult>
+     */
+    public CompletableFuture<SftpTransferResult> downloadAsync(
+            String remotePath, String remoteFileName, String localPath, String localFileName) {
+        String source = SftpUtil.getAbsolutePath(remotePath) + remoteFileName;
+        File target = new File(localPath, localFileName);
+        return submit(
+                new TransferFuture(source, target.getPath()),
+                "download",
+                0L,
+                (sftp, monitor) -> {
+                    long start = System.nanoTime();
+                    File dir = target.getParentFile();
+                    if (null != dir && !dir.exists() && !dir.mkdirs() && !dir.isDirectory()) {
+                        throw new Exception("创建本地目录[" + dir + "]失败！");
+                    }
+                    try {
+                        download(sftp, source, target, monitor);
+                    } finally {
+                        if (monitor.isCancelled() && target.exists() && !target.delete()) {
+                            log.warn("Sftp异步下载 删除未完成的本地文件[{}]失败", target);
+                        }
+                    }
+                    checkCancelled(monitor, target.getPath());
+                    return finish("download", source, target.getPath(), monitor, start);
+                });
+    }
+
+    /**
+     * 异步列出目录下的文件和文件夹
+     *
+     * @param remotePath 远程目录
+     * @param nameRegex 文件名过滤规则(正则，为空不过滤)
+     * @return CompletableFuture<List<SftpLsEntry>>
+     */
+    public CompletableFuture<List<SftpLsEntry>> listAsync(String remotePath, String nameRegex) {
+        return submit(
+                "ls",
+                0L,
+                (sftp, monitor) -> {
+                    List<SftpLsEntry> entries = new LinkedList<>();
+                    SftpUtil.listEntries(
+                            sftp,
+                            remotePath,
+                            nameRegex,
+                            false,
+                            entry -> entries.add(entry) && !monitor.isCancelled());
+                    return entries;
+                });
+    }
+
+    /**
+     * 异步删除远程文件
+     *
+     * @param remoteFile 远程文件(绝对路径)
+     * @return CompletableFuture<Void>
+     */
+    public CompletableFuture<Void> deleteAsync(String remoteFile) {
+        return submit(
+                "rm",
+                0L,
+                (sftp, monitor) -> {
+                    SftpMetrics.getInstance()
+                            .timeRequest(
+                                    key.getHost(),
+                                    "rm",
+                                    () -> {
+                                        sftp.rm(remoteFile);
+                                        return null;
+                                    });
+                    return null;
+                });
+    }
+
+    /**
+     * 在借出的通道上异步执行自定义操作
+     *
+     * @param operation 操作名称
+     * @param fileSize 文件大小(用于进度统计，未知传0)
+     * @param call 操作
+     * @return CompletableFuture<T>
+     */
+    public <T> CompletableFuture<T> submit(String operation, long fileSize, ChannelCall<T> call) {
+        return submit(new CompletableFuture<>(), operation, fileSize, call);
+    }
+
+    private <T> CompletableFuture<T> submit(
+            CompletableFuture<T> future, String operation, long fileSize, ChannelCall<T> call) {
+        SftpTransferMonitor monitor =
+                new SftpTransferMonitor(fileSize, listener, progressIntervalMillis);
+        // 被cancel、超时或外部complete时中止传输
+        future.whenComplete((result, error) -> monitor.cancel());
+        try {
+            executor.execute(() -> execute(operation, call, monitor, future));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 为future设置超时，超时后以TimeoutException完成(并中止对应的传输)
+     *
+     * @param future 异步结果
+     * @param timeout 超时时间
+     * @param unit 时间单位
+     * @return CompletableFuture<T> 传入的future
+     */
+    public static <T> CompletableFuture<T> withTimeout(
+            CompletableFuture<T> future, long timeout, TimeUnit unit) {
+        if (future.isDone()) {
+            return future;
+        }
+        String message = "Sftp异步任务 超时[" + unit.toMillis(timeout) + "]毫秒！";
+        ScheduledFuture<?> timer =
+                TIMER.schedule(
+                        () -> future.completeExceptionally(new TimeoutException(message)),
+                        timeout,
+                        unit);
+        future.whenComplete((result, error) -> timer.cancel(false));
+        return future;
+    }
+
+    /**
+     * 等待全部任务完成，按顺序汇总结果；任一任务失败时以该异常完成
+     *
+     * @param futures 异步结果
+     * @return CompletableFuture<List<T>>
+     */
+    public static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(
+                        ignored -> {
+                            List<T> results = new ArrayList<>(futures.size());
+                            for (CompletableFuture<T> future : futures) {
+                                results.add(future.join());
+                            }
+                            return results;
+                        });
+    }
+
+    /**
+     * 等待全部传输完成(失败不中断其他传输)，汇总为批量报告
+     *
+     * @param futures 传输结果
+     * @return CompletableFuture<SftpBatchReport>
+     */
+    public static CompletableFuture<SftpBatchReport> toReport(
+            List<CompletableFuture<SftpTransferResult>> futures) {
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<SftpTransferResult>> settled = new ArrayList<>(futures.size());
+        for (CompletableFuture<SftpTransferResult> future : futures) {
+            settled.add(
+                    future.handle(
+                            (result, error) -> {
+                                if (null != result) {
+                                    return result;
+                                }
+                                SftpTransferResult failed = failedResult(future);
+                                failed.setCause(unwrap(error));
+                                return failed;
+                            }));
+        }
+        return allOf(settled)
+                .thenApply(
+                        results ->
+                                new SftpBatchReport(results, System.currentTimeMillis() - start));
+    }
+
+    /** 关闭传输线程池，不再接受新任务，已提交的任务继续执行；连接池由调用方管理 */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * 在工作线程中借出通道并执行操作
+     *
+     * @param operation 操作名称
+     * @param call 操作
+     * @param monitor 传输进度监控
+     * @param future 异步结果
+     */
+    private <T> void execute(
+            String operation,
+            ChannelCall<T> call,
+            SftpTransferMonitor monitor,
+            CompletableFuture<T> future) {
+        if (future.isDone()) {
+            // 排队期间已被取消或超时
+            return;
+        }
+        try (SftpChannelLease lease = pool.borrow(key)) {
+            try {
+                T result = call.call(lease.getChannel(), monitor);
+                if (monitor.isCancelled()) {
+                    // JSch中止传输时正常返回，通道上可能还有未读完的应答
+                    lease.invalidate();
+                }
+                future.complete(result);
+            } catch (Exception e) {
+                // 传输被中止或连接断开时通道状态不可确定，不再放回连接池
+                if (monitor.isCancelled() || !lease.getChannel().isConnected()) {
+                    lease.invalidate();
+                }
+                throw e;
+            }
+        } catch (Exception e) {
+            if (!future.isDone()) {
+                log.error("Sftp异步任务[{}] 异常：", operation, e);
+                SftpMetrics.getInstance().recordFailure(key.getHost(), operation);
+            }
+            future.completeExceptionally(e);
+        } finally {
+            // 传输失败或中止时JSch不调用end()，这里补上，停止定时统计并通知监听器
+            monitor.end();
+        }
+    }
+
+    /**
+     * 生成传输结果并记录指标
+     *
+     * @param operation 操作名称
+     * @param source 源文件
+     * @param target 目标文件
+     * @param monitor 传输进度监控
+     * @param startNanos 开始时间(纳秒)
+     * @return SftpTransferResult
+     */
+    private SftpTransferResult finish(
+            String operation,
+            String source,
+            String target,
+            SftpTransferMonitor monitor,
+            long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        SftpTransferResult result =
+                new SftpTransferResult(source, target, monitor.getTransferred());
+        result.setCostMillis(nanos / 1000000L);
+        SftpMetrics.getInstance()
+                .recordTransfer(key.getHost(), operation, result.getBytes(), nanos);
+        return result;
+    }
+
+    /**
+     * 限速下载到本地文件，设置加密时边下载边解密
+     *
+     * @param sftp sftp通道
+     * @param source 远程文件
+     * @param target 本地文件
+     * @param monitor 传输进度监控
+     * @throws Exception
+     */
+    private void download(
+            ChannelSftp sftp, String source, File target, SftpTransferMonitor monitor)
+            throws Exception {
+        if (null == cipher) {
+            try (OutputStream out = throttle(new FileOutputStream(target))) {
+                sftp.get(source, out, monitor);
+            }
+            return;
+        }
+        try (InputStream in = cipher.decrypt(throttle(sftp.get(source, monitor, 0L)));
+                OutputStream out = new FileOutputStream(target)) {
+            byte[] buffer = new byte[SftpCipher.DEFAULT_CHUNK_SIZE];
+            int len;
+            while (-1 != (len = in.read(buffer))) {
+                out.write(buffer, 0, len);
+            }
+        } catch (IOException e) {
+            // 解密失败(文件损坏、被截断或密钥不正确)时不保留部分明文
+            Files.deleteIfExists(target.toPath());
+            throw e;
+        }
+    }
+
+    private InputStream encrypting(InputStream in) {
+        return null == cipher ? in : cipher.encrypt(in);
+    }
+
+    private InputStream throttle(InputStream in) {
+        return new SftpThrottledInputStream(
+                in, SftpBandwidthLimiter.getInstance(), key.getHost(), priority);
+    }
+
+    private OutputStream throttle(OutputStream out) {
+        return new SftpThrottledOutputStream(
+                out, SftpBandwidthLimiter.getInstance(), key.getHost(), priority);
+    }
+
+    /**
+     * 传输已被取消时抛出CancellationException(JSch中止传输时不抛异常)
+     *
+     * @param monitor 传输进度监控
+     * @param target 目标文件
+     */
+    private static void checkCancelled(SftpTransferMonitor monitor, String target) {
+        if (monitor.isCancelled()) {
+            throw new CancellationException("Sftp异步任务 已取消，目标文件[" + target + "]");
+        }
+    }
+
+    private static void removeQuietly(ChannelSftp sftp, String remoteFile) {
+        try {
+            sftp.rm(remoteFile);
+        } catch (Exception e) {
+            log.warn("Sftp异步上传 删除未完成的远程文件[{}] 异常：{}", remoteFile, e.getMessage());
+        }
+    }
+
+    private static SftpTransferResult failedResult(
+            CompletableFuture<SftpTransferResult> future) {
+        if (future instanceof TransferFuture) {
+            TransferFuture transfer = (TransferFuture) future;
+            return new SftpTransferResult(transfer.source, transfer.target, 0L);
+        }
+        return new SftpTransferResult(null, null, 0L);
+    }
+
+    private static Exception unwrap(Throwable error) {
+        Throwable cause =
+                error instanceof CompletionException && null != error.getCause()
+                        ? error.getCause()
+                        : error;
+        return cause instanceof Exception ? (Exception) cause : new Exception(cause);
+    }
+
+    /** 上传、下载返回的future，失败时toReport据此保留源文件和目标文件 */
+    private static final class TransferFuture extends CompletableFuture<SftpTransferResult> {
+
+        private final String source;
+
+        private final String target;
+
+        TransferFuture(String source, String target) {
+            this.source = source;
+            this.target = target;
+        }
+    }
+}
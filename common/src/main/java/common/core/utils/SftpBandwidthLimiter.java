@@ -0,0 +1,230 @@
+package common.core.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sftp传输带宽限制(令牌桶)，支持全局限速、按主机限速和优先级
+ *
+ * <p>每传输一块数据前(或后)申请与字节数相同的令牌；令牌不足时等待补充。令牌允许透支，大块数据不会因超过桶容量而永远等不到令牌，
+ * 透支部分由后续申请者等待偿还。有更高优先级的传输在等待同一令牌桶(同一主机的限速或已启用的全局限速)时，低优先级的传输让出令牌，
+ * 因此紧急文件可以抢占批量传输的带宽，但不影响其他主机上不共用令牌桶的传输；高优先级传输未占满带宽时，剩余带宽仍由低优先级传输使用。限速值可在运行期间随时调整，0表示不限速。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpBandwidthLimiter {
+
+    /** 全局共用的限速器 */
+    private static final SftpBandwidthLimiter INSTANCE = new SftpBandwidthLimiter();
+
+    /** 传输优先级 */
+    public enum Priority {
+        /** 紧急 */
+        URGENT,
+        /** 普通 */
+        NORMAL,
+        /** 批量 */
+        BULK
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** 令牌补充或限速变化时通知等待者 */
+    private final Condition changed = lock.newCondition();
+
+    /** 全局令牌桶 */
+    private final Bucket global = new Bucket();
+
+    /** 主机 -> 令牌桶 */
+    private final Map<String, Bucket> hosts = new ConcurrentHashMap<>();
+
+    /** 各优先级正在等待令牌的线程数(加锁访问) */
+    private final int[] globalWaiting = new int[Priority.values().length];
+
+    /** 主机 -> 各优先级正在等待该主机令牌的线程数(加锁访问，无等待者时移除) */
+    private final Map<String, int[]> hostWaiting = new HashMap<>();
+
+    /** 是否设置了任何限速(未设置时acquire直接返回，不加锁) */
+    private volatile boolean enabled = false;
+
+    public static SftpBandwidthLimiter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 设置全局限速
+     *
+     * @param bytesPerSecond 每秒字节数，0表示不限速
+     */
+    public void setGlobalRate(long bytesPerSecond) {
+        lock.lock();
+        try {
+            global.setRate(bytesPerSecond);
+            refreshEnabled();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 设置单个主机的限速
+     *
+     * @param host 主机
+     * @param bytesPerSecond 每秒字节数，0表示不限速
+     */
+    public void setHostRate(String host, long bytesPerSecond) {
+        lock.lock();
+        try {
+            if (0 >= bytesPerSecond) {
+                hosts.remove(host);
+            } else {
+                hosts.computeIfAbsent(host, k -> new Bucket()).setRate(bytesPerSecond);
+            }
+            refreshEnabled();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getGlobalRate() {
+        return global.rate;
+    }
+
+    public long getHostRate(String host) {
+        Bucket bucket = hosts.get(host);
+        return null == bucket ? 0L : bucket.rate;
+    }
+
+    /**
+     * 申请传输指定字节数的令牌，令牌不足时阻塞等待
+     *
+     * @param host 主机
+     * @param priority 优先级
+     * @param bytes 字节数
+     * @throws InterruptedException
+     */
+    public void acquire(String host, Priority priority, long bytes) throws InterruptedException {
+        if (!enabled || 0 >= bytes) {
+            return;
+        }
+        int level = priority.ordinal();
+        lock.lock();
+        try {
+            int[] hostCount =
+                    hostWaiting.computeIfAbsent(host, k -> new int[Priority.values().length]);
+            globalWaiting[level]++;
+            hostCount[level]++;
+            try {
+                while (true) {
+                    Bucket hostBucket = hosts.get(host);
+                    long now = System.nanoTime();
+                    global.refill(now);
+                    if (null != hostBucket) {
+                        hostBucket.refill(now);
+                    }
+                    long waitNanos = Math.max(global.waitNanos(), waitNanos(hostBucket));
+                    if (!yields(hostBucket, hostCount, level) && 0 == waitNanos) {
+                        global.take(bytes);
+                        if (null != hostBucket) {
+                            hostBucket.take(bytes);
+                        }
+                        return;
+                    }
+                    // 让位于高优先级时定期重新检查
+                    changed.awaitNanos(
+                            0 < waitNanos ? waitNanos : TimeUnit.MILLISECONDS.toNanos(10));
+                }
+            } finally {
+                globalWaiting[level]--;
+                hostCount[level]--;
+                if (!higherWaiting(hostCount, hostCount.length)) {
+                    hostWaiting.remove(host);
+                }
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 是否需要让位：只有共用的令牌桶(本主机的限速、已启用的全局限速)上有更高优先级的等待者时才让出令牌
+     *
+     * @param hostBucket 主机令牌桶(未限速时为空)
+     * @param hostCount 本主机各优先级的等待数
+     * @param level 优先级
+     * @return boolean
+     */
+    private boolean yields(Bucket hostBucket, int[] hostCount, int level) {
+        return (0 < global.rate && higherWaiting(globalWaiting, level))
+                || (null != hostBucket && higherWaiting(hostCount, level));
+    }
+
+    /**
+     * 是否有优先级高于level的等待者(level取数组长度时表示是否有任何等待者)
+     *
+     * @param waiting 各优先级的等待数
+     * @param level 优先级
+     * @return boolean
+     */
+    private static boolean higherWaiting(int[] waiting, int level) {
+        for (int i = 0; i < level; i++) {
+            if (0 < waiting[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long waitNanos(Bucket bucket) {
+        return null == bucket ? 0L : bucket.waitNanos();
+    }
+
+    private void refreshEnabled() {
+        enabled = 0 < global.rate || !hosts.isEmpty();
+    }
+
+    /** 令牌桶(容量为1秒的速率，加锁访问) */
+    private static class Bucket {
+        /** 每秒字节数，0表示不限速 */
+        private volatile long rate;
+        /** 当前令牌数(可为负，表示透支) */
+        private double tokens;
+        /** 上次补充时间(纳秒) */
+        private long lastNanos = System.nanoTime();
+
+        void setRate(long rate) {
+            this.rate = Math.max(0L, rate);
+            this.tokens = Math.min(tokens, this.rate);
+        }
+
+        void refill(long now) {
+            if (0 < rate) {
+                tokens = Math.min(rate, tokens + (now - lastNanos) / 1e9 * rate);
+            }
+            lastNanos = now;
+        }
+
+        /** 令牌为正即可申请(允许透支)，否则返回偿还透支所需的等待时间 */
+        long waitNanos() {
+            if (0 >= rate || 0 < tokens) {
+                return 0L;
+            }
+            return Math.max(1L, (long) ((1 - tokens) / rate * 1e9));
+        }
+
+        void take(long bytes) {
+            if (0 < rate) {
+                tokens -= bytes;
+            }
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package common.core.utils;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
+
+/**
+ * 可断点重启的Sftp批量传输任务(批量上传目录下的文件，或批量下载远程目录下的文件并保持子目录结构)
+ *
+ * <p>每个文件开始传输和传输完成时各向断点日志追加一条记录。任务中途退出(包括JVM异常退出)后，用同一断点日志重新执行：
+ * 大小和修改时间与完成记录一致的文件直接跳过；已开始且源文件未变化的文件从目标已有部分续传，源文件已变化的从头传输。
+ * 断点日志默认保存在本地目录下，重新开始一个全新的任务时删除断点日志即可；断点日志记录了所属任务的方向、服务器和远程目录，
+ * 同一本地目录传输到其他远程目录(或从其他远程目录下载)时需指定另一个断点日志，否则拒绝执行。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpBatchJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SftpBatchJob.class);
+
+    /** 断点日志默认文件名 */
+    public static final String DEFAULT_CHECKPOINT_NAME = ".sftp-job.checkpoint";
+
+    /** 流式传输缓冲区大小 */
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    /** 删除远程源文件的并发通道数 */
+    private static final int CLEANUP_THREADS = 4;
+
+    /** 传输方向 */
+    private enum Direction {
+        UPLOAD,
+        DOWNLOAD
+    }
+
+    /** sftp对象(并行传输使用其连接池) */
+    private final SftpUtil sftpUtil;
+    /** 传输方向 */
+    private final Direction direction;
+    /** 本地目录 */
+    private final String localPath;
+    /** 远程目录 */
+    private final String remotePath;
+    /** 并发通道数 */
+    private int threads = 1;
+    /** 传输完成后是否删除源文件 */
+    private boolean deleteSource = false;
+    /** 断点日志文件 */
+    private File checkpointFile;
+    /** 上次执行时因已完成而跳过的文件数 */
+    private int skippedCount;
+
+    private SftpBatchJob(
+            SftpUtil sftpUtil, Direction direction, String localPath, String remotePath) {
+        this.sftpUtil = sftpUtil;
+        this.direction = direction;
+        this.localPath = SftpUtil.getAbsolutePath(localPath);
+        this.remotePath = remotePath;
+        this.checkpointFile = new File(this.localPath, DEFAULT_CHECKPOINT_NAME);
+    }
+
+    /**
+     * 创建批量上传任务(只上传本地目录下的文件，不含子目录)
+     *
+     * @param sftpUtil sftp对象
+     * @param localPath 本地目录
+     * @param remotePath 远程目录
+     * @return SftpBatchJob
+     */
+    public static SftpBatchJob upload(SftpUtil sftpUtil, String localPath, String remotePath) {
+        return new SftpBatchJob(sftpUtil, Direction.UPLOAD, localPath, remotePath);
+    }
+
+    /**
+     * 创建批量下载任务(含子目录下的文件，在本地目录下保持相同的子目录结构)
+     *
+     * @param sftpUtil sftp对象
+     * @param remotePath 远程目录
+     * @param localPath 本地目录
+     * @return SftpBatchJob
+     */
+    public static SftpBatchJob download(SftpUtil sftpUtil, String remotePath, String localPath) {
+        return new SftpBatchJob(sftpUtil, Direction.DOWNLOAD, localPath, remotePath);
+    }
+
+    /**
+     * 并发通道数(受连接池每主机会话上限约束)
+     *
+     * @param threads 并发通道数
+     * @return SftpBatchJob
+     */
+    public SftpBatchJob threads(int threads) {
+        this.threads = Math.max(1, threads);
+        return this;
+    }
+
+    /**
+     * 传输完成后删除源文件(上传删除本地文件，下载在全部传输结束后批量删除远程文件)
+     *
+     * @param deleteSource 是否删除源文件
+     * @return SftpBatchJob
+     */
+    public SftpBatchJob deleteSource(boolean deleteSource) {
+        this.deleteSource = deleteSource;
+        return this;
+    }
+
+    /**
+     * 指定断点日志文件，默认为本地目录下的.sftp-job.checkpoint
+     *
+     * @param checkpointFile 断点日志文件
+     * @return SftpBatchJob
+     */
+    public SftpBatchJob checkpoint(File checkpointFile) {
+        this.checkpointFile = checkpointFile;
+        return this;
+    }
+
+    public File getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * 执行任务：跳过已完成的文件，续传未完成的文件，单个文件失败不影响其他文件
+     *
+     * @return SftpBatchReport 本次实际传输的文件(不含跳过的文件)
+     * @throws Exception
+     */
+    public SftpBatchReport run() throws Exception {
+        sftpUtil.requirePlaintext("断点续传批量任务");
+        log.info(
+                "Sftp批量任务--->方向[{}], 本地目录[{}], 远程目录[{}], 断点日志[{}]--->开始处理！",
+                direction,
+                localPath,
+                remotePath,
+                checkpointFile);
+        long start = System.currentTimeMillis();
+        SftpBatchReport report;
+        try (SftpCheckpointLog checkpoint = SftpCheckpointLog.open(checkpointFile, jobId())) {
+            report =
+                    Direction.UPLOAD == direction
+                            ? runUpload(checkpoint, start)
+                            : runDownload(checkpoint, start);
+        }
+        log.info(
+                "Sftp批量任务--->方向[{}], 本地目录[{}], 远程目录[{}]--->处理完成：{}，跳过已完成文件[{}]",
+                direction,
+                localPath,
+                remotePath,
+                report,
+                skippedCount);
+        return report;
+    }
+
+    /**
+     * 任务标识：方向、服务器、本地目录、远程目录(绝对路径)
+     *
+     * @return String
+     * @throws SftpException
+     */
+    private String jobId() throws SftpException {
+        SftpPoolKey key = sftpUtil.getPoolKey();
+        return direction
+                + " "
+                + key.getUserName()
+                + "@"
+                + key.getHostAddress()
+                + " local="
+                + localPath
+                + " remote="
+                + sftpUtil.remoteAbsolutePath(remotePath);
+    }
+
+    private SftpBatchReport runUpload(SftpCheckpointLog checkpoint, long start) throws Exception {
+        File[] files = new File(localPath).listFiles(this::isUploadSource);
+        if (null == files) {
+            throw new Exception("Sftp批量任务 异常：本地目录[" + localPath + "] 不存在！");
+        }
+        String remoteDir = sftpUtil.remoteAbsolutePath(remotePath);
+        sftpUtil.ensureRemoteDir(remoteDir);
+        Arrays.sort(files, (a, b) -> Long.compare(b.length(), a.length()));
+        List<SftpTransferResult> items = new ArrayList<>(files.length);
+        Map<String, Long> modifyTimes = new HashMap<>();
+        skippedCount = 0;
+        for (File file : files) {
+            if (checkpoint.isDone(file.getPath(), file.length(), file.lastModified())) {
+                skippedCount++;
+                if (deleteSource) {
+                    deleteLocal(file);
+                }
+                continue;
+            }
+            modifyTimes.put(file.getPath(), file.lastModified());
+            items.add(
+                    new SftpTransferResult(
+                            file.getPath(), remoteDir + file.getName(), file.length()));
+        }
+        sftpUtil.runParallel(
+                threads,
+                items,
+                "upload-job",
+                (channelSftp, item) -> {
+                    long size = item.getBytes();
+                    long modifyTime = modifyTimes.get(item.getSource());
+                    long offset = 0L;
+                    if (checkpoint.isStarted(item.getSource(), size, modifyTime)) {
+                        offset = remoteSizeOrZero(channelSftp, item.getTarget());
+                    } else {
+                        checkpoint.begin(item.getSource(), size, modifyTime);
+                    }
+                    boolean resume = 0 < offset && offset <= size;
+                    Checksum checksum = SftpChecksums.newChecksum();
+                    // 续传时JSch通过skip跳过远程已有部分：限速流的skip不申请令牌，
+                    // CheckedInputStream的skip在本地读取并计入校验和
+                    try (InputStream in =
+                            sftpUtil.throttle(
+                                    new CheckedInputStream(
+                                            new BufferedInputStream(
+                                                    new FileInputStream(item.getSource()),
+                                                    BUFFER_SIZE),
+                                            checksum))) {
+                        channelSftp.put(
+                                in,
+                                item.getTarget(),
+                                null,
+                                resume ? ChannelSftp.RESUME : ChannelSftp.OVERWRITE);
+                    }
+                    long uploaded = remoteSizeOrZero(channelSftp, item.getTarget());
+                    if (uploaded != size) {
+                        throw new Exception(
+                                "远程文件["
+                                        + item.getTarget()
+                                        + "]大小["
+                                        + uploaded
+                                        + "]与本地文件大小["
+                                        + size
+                                        + "]不一致！");
+                    }
+                    checkpoint.done(item.getSource(), size, modifyTime, checksum.getValue());
+                    item.setOffset(resume ? offset : 0L);
+                    item.setChecksum(checksum.getValue());
+                    if (deleteSource) {
+                        deleteLocal(new File(item.getSource()));
+                    }
+                    return size - item.getOffset();
+                });
+        return new SftpBatchReport(items, System.currentTimeMillis() - start);
+    }
+
+    private SftpBatchReport runDownload(SftpCheckpointLog checkpoint, long start)
+            throws Exception {
+        String remoteRoot = sftpUtil.remoteAbsolutePath(remotePath);
+        List<SftpLsEntry> entries = new ArrayList<>(sftpUtil.getAllSftpLsEntry4Dir(remoteRoot));
+        entries.sort((a, b) -> Long.compare(b.getFileSize(), a.getFileSize()));
+        List<SftpTransferResult> items = new ArrayList<>(entries.size());
+        Map<String, Long> modifyTimes = new HashMap<>();
+        List<String> finished = new ArrayList<>();
+        skippedCount = 0;
+        for (SftpLsEntry entry : entries) {
+            String remoteFile = SftpUtil.getAbsolutePath(entry.getPath()) + entry.getFileName();
+            if (checkpoint.isDone(remoteFile, entry.getFileSize(), entry.getModifyTime())) {
+                skippedCount++;
+                finished.add(remoteFile);
+                continue;
+            }
+            modifyTimes.put(remoteFile, entry.getModifyTime());
+            items.add(
+                    new SftpTransferResult(
+                            remoteFile,
+                            new File(localPath, remoteFile.substring(remoteRoot.length()))
+                                    .getPath(),
+                            entry.getFileSize()));
+        }
+        sftpUtil.runParallel(
+                threads,
+                items,
+                "download-job",
+                (channelSftp, item) -> {
+                    long size = item.getBytes();
+                    long modifyTime = modifyTimes.get(item.getSource());
+                    File target = new File(item.getTarget());
+                    File parent = target.getParentFile();
+                    if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+                        throw new Exception("创建本地目录[" + parent + "]失败！");
+                    }
+                    long offset = 0L;
+                    if (checkpoint.isStarted(item.getSource(), size, modifyTime)) {
+                        offset = target.isFile() && target.length() <= size ? target.length() : 0L;
+                    } else {
+                        checkpoint.begin(item.getSource(), size, modifyTime);
+                    }
+                    Checksum checksum = SftpChecksums.newChecksum();
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    if (0 < offset) {
+                        // 本地已有部分只在本机读一遍以补齐校验和
+                        try (InputStream in =
+                                new CheckedInputStream(new FileInputStream(target), checksum)) {
+                            while (-1 != in.read(buffer)) {
+                                // 读取即更新校验和
+                            }
+                        }
+                    }
+                    try (InputStream in =
+                                    sftpUtil.throttle(
+                                            channelSftp.get(item.getSource(), null, offset));
+                            OutputStream out = new FileOutputStream(target, 0 < offset)) {
+                        int len;
+                        while (-1 != (len = in.read(buffer))) {
+                            checksum.update(buffer, 0, len);
+                            out.write(buffer, 0, len);
+                        }
+                    }
+                    if (target.length() != size) {
+                        throw new Exception(
+                                "本地文件["
+                                        + target
+                                        + "]大小["
+                                        + target.length()
+                                        + "]与远程文件大小["
+                                        + size
+                                        + "]不一致！");
+                    }
+                    checkpoint.done(item.getSource(), size, modifyTime, checksum.getValue());
+                    item.setOffset(offset);
+                    item.setChecksum(checksum.getValue());
+                    return size - offset;
+                });
+        if (deleteSource) {
+            for (SftpTransferResult item : items) {
+                if (item.isSuccess()) {
+                    finished.add(item.getSource());
+                }
+            }
+            if (!finished.isEmpty()) {
+                sftpUtil.deleteBatchFiles(finished, CLEANUP_THREADS);
+            }
+        }
+        return new SftpBatchReport(items, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 是否为待上传的本地文件(排除断点日志本身)
+     *
+     * @param file 本地文件
+     * @return boolean
+     */
+    private boolean isUploadSource(File file) {
+        if (!file.isFile()) {
+            return false;
+        }
+        // 同一目录下其他任务的默认断点日志也不上传
+        String name = file.getName();
+        String[] checkpointNames = {checkpointFile.getName(), DEFAULT_CHECKPOINT_NAME};
+        for (String checkpointName : checkpointNames) {
+            if (name.equals(checkpointName) || name.equals(checkpointName + ".tmp")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long remoteSizeOrZero(ChannelSftp channelSftp, String remoteFile)
+            throws SftpException {
+        try {
+            return SftpMetrics.getInstance()
+                    .timeRequest(
+                            SftpChannelFactory.hostOf(channelSftp),
+                            "stat",
+                            () -> channelSftp.stat(remoteFile))
+                    .getSize();
+        } catch (SftpException e) {
+            if (ChannelSftp.SSH_FX_NO_SUCH_FILE == e.id) {
+                return 0L;
+            }
+            throw e;
+        }
+    }
+
+    private static void deleteLocal(File file) {
+        if (file.isFile() && !file.delete()) {
+            log.warn("Sftp批量任务--->删除本地文件[{}]失败！", file);
+        }
+    }
+}
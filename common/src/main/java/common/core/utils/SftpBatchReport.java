@@ -0,0 +1,99 @@
+package common.core.utils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sftp批量处理结果报告
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpBatchReport implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 单个文件处理结果 */
+    private final List<SftpTransferResult> results;
+    /** 总耗时(毫秒) */
+    private final long costMillis;
+
+    public SftpBatchReport(List<SftpTransferResult> results, long costMillis) {
+        this.results = Collections.unmodifiableList(new ArrayList<>(results));
+        this.costMillis = costMillis;
+    }
+
+    public List<SftpTransferResult> getResults() {
+        return results;
+    }
+
+    public long getCostMillis() {
+        return costMillis;
+    }
+
+    /**
+     * 失败的文件
+     *
+     * @return List<SftpTransferResult>
+     */
+    public List<SftpTransferResult> getFailures() {
+        List<SftpTransferResult> failures = new ArrayList<>();
+        for (SftpTransferResult result : results) {
+            if (!result.isSuccess()) {
+                failures.add(result);
+            }
+        }
+        return failures;
+    }
+
+    public int getSuccessCount() {
+        return results.size() - getFailureCount();
+    }
+
+    public int getFailureCount() {
+        int count = 0;
+        for (SftpTransferResult result : results) {
+            if (!result.isSuccess()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 成功传输的总字节数
+     *
+     * @return long
+     */
+    public long getTotalBytes() {
+        long total = 0L;
+        for (SftpTransferResult result : results) {
+            if (result.isSuccess()) {
+                total += result.getBytes();
+            }
+        }
+        return total;
+    }
+
+    public boolean isAllSuccess() {
+        return 0 == getFailureCount();
+    }
+
+    @Override
+    public String toString() {
+        return "SftpBatchReport [total="
+                + results.size()
+                + ", success="
+                + getSuccessCount()
+                + ", failure="
+                + getFailureCount()
+                + ", totalBytes="
+                + getTotalBytes()
+                + ", costMillis="
+                + costMillis
+                + "]";
+    }
+}
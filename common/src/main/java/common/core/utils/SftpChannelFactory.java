@@ -0,0 +1,213 @@
+package common.core.utils;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sftp连接池对象工厂(每个池化对象独占一个Session和一个ChannelSftp)
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpChannelFactory extends BaseKeyedPooledObjectFactory<SftpPoolKey, ChannelSftp> {
+
+    private static final Logger log = LoggerFactory.getLogger(SftpChannelFactory.class);
+
+    /** 启用压缩时协商的压缩算法(按优先级) */
+    private static final String COMPRESSION_METHODS = "zlib@openssh.com,zlib,none";
+
+    /** 连接超时时间(毫秒) */
+    private final int connectTimeout;
+
+    /** 新建连接次数(即连接池未命中次数) */
+    private final LongAdder createdCount = new LongAdder();
+
+    public SftpChannelFactory(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * 建立会话并打开sftp通道
+     *
+     * @param key 连接信息
+     * @param connectTimeout 连接超时时间(毫秒)，0为不超时
+     * @return ChannelSftp
+     * @throws JSchException
+     */
+    public static ChannelSftp openChannel(SftpPoolKey key, int connectTimeout)
+            throws JSchException {
+        long start = System.nanoTime();
+        try {
+            ChannelSftp channel = doOpenChannel(key, connectTimeout);
+            SftpMetrics.getInstance()
+                    .recordConnect(key.getHost(), System.nanoTime() - start, true);
+            return channel;
+        } catch (JSchException e) {
+            SftpMetrics.getInstance()
+                    .recordConnect(key.getHost(), System.nanoTime() - start, false);
+            throw e;
+        }
+    }
+
+    /**
+     * 获取通道所连接的主机
+     *
+     * @param channel sftp通道
+     * @return String
+     */
+    public static String hostOf(ChannelSftp channel) {
+        try {
+            return channel.getSession().getHost();
+        } catch (JSchException e) {
+            return "unknown";
+        }
+    }
+
+    private static ChannelSftp doOpenChannel(SftpPoolKey key, int connectTimeout)
+            throws JSchException {
+        JSch jsch = new JSch();
+        if (null != key.getPrivateKey()) {
+            jsch.addIdentity(key.getPrivateKey());
+            log.info(
+                    "SFTP connect by privateKey, path of private key file：{}",
+                    key.getPrivateKey());
+        }
+        log.info("SFTP connect by host:{} username:{}", key.getHost(), key.getUserName());
+        Session session = jsch.getSession(key.getUserName(), key.getHost(), key.getPort());
+        log.info("SFTP Session is build");
+        if (null != key.getPassWord()) {
+            session.setPassword(key.getPassWord());
+        }
+        // 设置第一次登陆的时候提示，可选值:(ask | yes | no)
+        session.setConfig("StrictHostKeyChecking", "no");
+        if (key.isCompressed()) {
+            requireZlib();
+            // 优先使用延迟压缩(认证完成后才启用)，服务器不支持时退回zlib或不压缩
+            session.setConfig("compression.s2c", COMPRESSION_METHODS);
+            session.setConfig("compression.c2s", COMPRESSION_METHODS);
+            session.setConfig("compression_level", String.valueOf(key.getCompressionLevel()));
+            log.info("SFTP Session compression level:{}", key.getCompressionLevel());
+        }
+        session.connect(connectTimeout);
+        log.info("SFTP Session is connected");
+        ChannelSftp channel;
+        try {
+            channel = (ChannelSftp) session.openChannel("sftp");
+            channel.connect(connectTimeout);
+        } catch (JSchException e) {
+            session.disconnect();
+            throw e;
+        }
+        log.info("SFTP channel is connected");
+        log.info("SFTP server host:{} port:{} is connect success ", key.getHost(), key.getPort());
+        return channel;
+    }
+
+    /**
+     * 检查jsch压缩所需的jzlib在类路径中，缺少时在连接前给出明确提示(否则连接时才报无法加载压缩算法)
+     *
+     * @throws JSchException
+     */
+    private static void requireZlib() throws JSchException {
+        // 新版jsch(com.github.mwiede)自带jzlib
+        String[] classNames = {"com.jcraft.jzlib.ZStream", "com.jcraft.jsch.jzlib.ZStream"};
+        for (String name : classNames) {
+            try {
+                Class.forName(name);
+                return;
+            } catch (ClassNotFoundException e) {
+                // 继续检查下一个
+            }
+        }
+        throw new JSchException("SFTP启用压缩需要依赖com.jcraft:jzlib，请加入类路径或关闭压缩！");
+    }
+
+    /**
+     * 关闭通道及其会话
+     *
+     * @param channel sftp通道
+     */
+    public static void closeChannel(ChannelSftp channel) {
+        if (null == channel) {
+            return;
+        }
+        Session session = null;
+        try {
+            session = channel.getSession();
+        } catch (JSchException e) {
+            log.warn("获取sftp通道所属会话 异常：", e);
+        }
+        if (channel.isConnected()) {
+            channel.disconnect();
+        }
+        if (null != session && session.isConnected()) {
+            session.disconnect();
+        }
+    }
+
+    @Override
+    public ChannelSftp create(SftpPoolKey key) throws Exception {
+        createdCount.increment();
+        return openChannel(key, connectTimeout);
+    }
+
+    @Override
+    public PooledObject<ChannelSftp> wrap(ChannelSftp channel) {
+        return new DefaultPooledObject<>(channel);
+    }
+
+    @Override
+    public void destroyObject(SftpPoolKey key, PooledObject<ChannelSftp> p) {
+        closeChannel(p.getObject());
+        log.info("SFTP连接池 销毁连接[{}]", key);
+    }
+
+    /** 校验连接：只检查连接状态并发送一次keep-alive，不做远程目录操作 */
+    @Override
+    public boolean validateObject(SftpPoolKey key, PooledObject<ChannelSftp> p) {
+        ChannelSftp channel = p.getObject();
+        if (null == channel || !channel.isConnected() || channel.isClosed()) {
+            return false;
+        }
+        try {
+            Session session = channel.getSession();
+            if (!session.isConnected()) {
+                return false;
+            }
+            session.sendKeepAliveMsg();
+            return true;
+        } catch (Exception e) {
+            log.warn("SFTP连接池 校验连接[{}]失败：{}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    /** 归还连接时恢复到登录目录，避免上一个使用者的cd影响下一个使用者 */
+    @Override
+    public void passivateObject(SftpPoolKey key, PooledObject<ChannelSftp> p) throws Exception {
+        ChannelSftp channel = p.getObject();
+        String home = channel.getHome();
+        if (null != home && !home.equals(channel.pwd())) {
+            channel.cd(home);
+        }
+    }
+
+    /**
+     * 获取新建连接次数
+     *
+     * @return long
+     */
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+}
@@ -0,0 +1,57 @@
+package common.core.utils;
+
+import com.jcraft.jsch.ChannelSftp;
+
+/**
+ * Sftp连接池借出的通道(使用完毕后close归还，连接异常时先invalidate再close)
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpChannelLease implements AutoCloseable {
+
+    /** 所属连接池 */
+    private final SftpSessionPool pool;
+    /** 连接池键 */
+    private final SftpPoolKey key;
+    /** sftp通道 */
+    private final ChannelSftp channel;
+    /** 是否已失效 */
+    private boolean invalid = false;
+    /** 是否已归还 */
+    private boolean closed = false;
+
+    SftpChannelLease(SftpSessionPool pool, SftpPoolKey key, ChannelSftp channel) {
+        this.pool = pool;
+        this.key = key;
+        this.channel = channel;
+    }
+
+    public ChannelSftp getChannel() {
+        return channel;
+    }
+
+    public SftpPoolKey getKey() {
+        return key;
+    }
+
+    /** 标记通道已失效，归还时直接销毁而不放回连接池 */
+    public void invalidate() {
+        this.invalid = true;
+    }
+
+    public boolean isInvalid() {
+        return invalid;
+    }
+
+    /** 归还通道(重复调用无副作用) */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pool.release(this);
+    }
+}
@@ -0,0 +1,328 @@
+package common.core.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sftp批量任务断点日志(只追加)：记录每个文件的开始和完成，任务重启后跳过已完成的文件、续传未完成的文件
+ *
+ * <p>文件格式为每行一条：状态(B开始/D完成)\t大小\t修改时间\t校验和\t源文件；同一文件以最后一条为准。
+ * 源文件和任务标识按增量同步清单的规则转义\、制表符和换行符(见SftpSyncManifest)。
+ * 每条记录追加后立即flush到操作系统，JVM异常退出不会丢失已写入的记录；只在关闭时fsync一次，不拖慢传输。
+ * 读取时忽略不完整的末行(写入中途退出)，记录过多时在打开时压缩为每个文件一条。
+ * 文件头记录所属任务(方向、服务器、本地目录、远程目录)，打开时任务不一致则拒绝使用，避免同一本地目录换一个远程目录后误跳过全部文件。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpCheckpointLog implements Closeable {
+
+    /** 文件头 */
+    private static final String HEADER = "#sftp-checkpoint v1 " + SftpChecksums.ALGORITHM;
+
+    /** 任务标识行前缀 */
+    private static final String JOB_PREFIX = "#job ";
+
+    /** 字段分隔符 */
+    private static final String SEPARATOR = "\t";
+
+    /** 开始传输 */
+    private static final String BEGIN = "B";
+
+    /** 传输完成 */
+    private static final String DONE = "D";
+
+    /** 压缩阈值：记录行数超过文件数的倍数 */
+    private static final int COMPACT_RATIO = 2;
+
+    /** 压缩阈值：最少多余行数 */
+    private static final int COMPACT_MIN_LINES = 1024;
+
+    /** 日志文件 */
+    private final File file;
+
+    /** 任务标识 */
+    private final String job;
+
+    /** 源文件 -> 最后一条记录 */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /** 日志文件输出流(关闭时fsync) */
+    private FileOutputStream out;
+
+    /** 追加写入 */
+    private Writer writer;
+
+    private SftpCheckpointLog(File file, String job) {
+        this.file = file;
+        this.job = job;
+    }
+
+    /**
+     * 打开断点日志，文件不存在时创建
+     *
+     * @param file 日志文件
+     * @param job 任务标识，与已有日志记录的任务不一致时抛出异常
+     * @return SftpCheckpointLog
+     * @throws IOException
+     */
+    public static SftpCheckpointLog open(File file, String job) throws IOException {
+        SftpCheckpointLog checkpoint = new SftpCheckpointLog(file, job);
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (null != parent && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("创建断点日志目录[" + parent + "]失败！");
+        }
+        // 末行没有换行符说明写入中途退出，截断的源文件路径可能恰好是另一个文件，整行丢弃
+        dropUnterminatedLine(file);
+        int lines = 0 < file.length() ? checkpoint.load() : 0;
+        if (0 == file.length()
+                || lines > checkpoint.entries.size() * COMPACT_RATIO + COMPACT_MIN_LINES) {
+            checkpoint.compact();
+        }
+        checkpoint.out = new FileOutputStream(file, true);
+        checkpoint.writer =
+                new BufferedWriter(new OutputStreamWriter(checkpoint.out, StandardCharsets.UTF_8));
+        return checkpoint;
+    }
+
+    /**
+     * 读取已有记录
+     *
+     * @return int 记录行数
+     * @throws IOException
+     */
+    private int load() throws IOException {
+        int lines = 0;
+        String storedJob = null;
+        try (BufferedReader reader =
+                Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.startsWith(JOB_PREFIX) && null == storedJob) {
+                    storedJob = SftpSyncManifest.unescape(line.substring(JOB_PREFIX.length()));
+                    continue;
+                }
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(SEPARATOR, 5);
+                if (5 != fields.length) {
+                    continue;
+                }
+                try {
+                    entries.put(
+                            SftpSyncManifest.unescape(fields[4]),
+                            new Entry(
+                                    DONE.equals(fields[0]),
+                                    Long.parseLong(fields[1]),
+                                    Long.parseLong(fields[2]),
+                                    DONE.equals(fields[0]) ? Long.parseLong(fields[3], 16) : 0L));
+                    lines++;
+                } catch (NumberFormatException e) {
+                    // 写入中途退出留下的不完整记录
+                }
+            }
+        }
+        if (!job.equals(storedJob)) {
+            throw new IOException(
+                    "断点日志["
+                            + file
+                            + "]属于其他任务["
+                            + storedJob
+                            + "]，与当前任务["
+                            + job
+                            + "]不一致，请删除该文件或指定其他断点日志！");
+        }
+        return lines;
+    }
+
+    /**
+     * 按当前记录重写日志(先写临时文件再替换)
+     *
+     * @throws IOException
+     */
+    private void compact() throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.newLine();
+            out.write(JOB_PREFIX + SftpSyncManifest.escape(job));
+            out.newLine();
+            for (Map.Entry<String, Entry> item : entries.entrySet()) {
+                out.write(format(item.getKey(), item.getValue()));
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 末行不完整(没有换行符)时截掉该行，新记录从最后一个换行符之后开始写
+     *
+     * @param file 日志文件
+     * @throws IOException
+     */
+    private static void dropUnterminatedLine(File file) throws IOException {
+        if (!file.isFile()) {
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long length = raf.length();
+            long position = length;
+            while (0 < position) {
+                raf.seek(position - 1);
+                if ('\n' == raf.read()) {
+                    break;
+                }
+                position--;
+            }
+            if (position < length) {
+                raf.setLength(position);
+            }
+        }
+    }
+
+    /**
+     * 文件是否已完成(大小和修改时间与完成记录一致)
+     *
+     * @param source 源文件
+     * @param size 文件大小
+     * @param modifyTime 修改时间
+     * @return boolean
+     */
+    public boolean isDone(String source, long size, long modifyTime) {
+        Entry entry = entries.get(source);
+        return null != entry && entry.done && entry.matches(size, modifyTime);
+    }
+
+    /**
+     * 文件是否已开始但未完成，且源文件在此期间未变化(可以续传)
+     *
+     * @param source 源文件
+     * @param size 文件大小
+     * @param modifyTime 修改时间
+     * @return boolean
+     */
+    public boolean isStarted(String source, long size, long modifyTime) {
+        Entry entry = entries.get(source);
+        return null != entry && !entry.done && entry.matches(size, modifyTime);
+    }
+
+    /**
+     * 已完成文件的校验和
+     *
+     * @param source 源文件
+     * @return Long 未完成时为空
+     */
+    public Long getChecksum(String source) {
+        Entry entry = entries.get(source);
+        return null != entry && entry.done ? entry.checksum : null;
+    }
+
+    /**
+     * 记录文件开始传输
+     *
+     * @param source 源文件
+     * @param size 文件大小
+     * @param modifyTime 修改时间
+     * @throws IOException
+     */
+    public void begin(String source, long size, long modifyTime) throws IOException {
+        append(source, new Entry(false, size, modifyTime, 0L));
+    }
+
+    /**
+     * 记录文件传输完成
+     *
+     * @param source 源文件
+     * @param size 文件大小
+     * @param modifyTime 修改时间
+     * @param checksum 校验和
+     * @throws IOException
+     */
+    public void done(String source, long size, long modifyTime, long checksum)
+            throws IOException {
+        append(source, new Entry(true, size, modifyTime, checksum));
+    }
+
+    /**
+     * 已记录的文件数
+     *
+     * @return int
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private synchronized void append(String source, Entry entry) throws IOException {
+        if (null == writer) {
+            throw new IOException("断点日志[" + file + "]已关闭！");
+        }
+        writer.write(format(source, entry));
+        writer.flush();
+        entries.put(source, entry);
+    }
+
+    private static String format(String source, Entry entry) {
+        return (entry.done ? DONE : BEGIN)
+                + SEPARATOR
+                + entry.size
+                + SEPARATOR
+                + entry.modifyTime
+                + SEPARATOR
+                + (entry.done ? SftpChecksums.toHex(entry.checksum) : "-")
+                + SEPARATOR
+                + SftpSyncManifest.escape(source)
+                + "\n";
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (null == writer) {
+            return;
+        }
+        try {
+            writer.flush();
+            out.getFD().sync();
+        } finally {
+            writer.close();
+            writer = null;
+            out = null;
+        }
+    }
+
+    /** 断点记录 */
+    private static class Entry {
+        /** 是否已完成 */
+        private final boolean done;
+        /** 文件大小 */
+        private final long size;
+        /** 修改时间 */
+        private final long modifyTime;
+        /** 校验和(完成时有效) */
+        private final long checksum;
+
+        Entry(boolean done, long size, long modifyTime, long checksum) {
+            this.done = done;
+            this.size = size;
+            this.modifyTime = modifyTime;
+            this.checksum = checksum;
+        }
+
+        boolean matches(long size, long modifyTime) {
+            return this.size == size && this.modifyTime == modifyTime;
+        }
+    }
+}
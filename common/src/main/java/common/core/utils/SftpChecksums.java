@@ -0,0 +1,111 @@
+package common.core.utils;
+
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * Sftp传输校验和工具
+ *
+ * <p>项目基于JDK1.8，CRC32C(JDK9+)不可用，统一使用CRC32：传输过程中边读写边计算，无需传输完成后再读一遍文件。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public final class SftpChecksums {
+
+    /** 校验算法名称 */
+    public static final String ALGORITHM = "CRC32";
+
+    /** CRC32多项式(反转) */
+    private static final long CRC32_POLY = 0xEDB88320L;
+
+    /** GF(2)矩阵维度 */
+    private static final int GF2_DIM = 32;
+
+    private SftpChecksums() {}
+
+    /**
+     * 新建校验和计算器
+     *
+     * @return Checksum
+     */
+    public static Checksum newChecksum() {
+        return new CRC32();
+    }
+
+    /**
+     * 校验和转16进制字符串
+     *
+     * @param checksum 校验和
+     * @return String 8位16进制
+     */
+    public static String toHex(long checksum) {
+        return String.format("%08x", checksum & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 合并两段相邻数据的CRC32(与zlib的crc32_combine一致)，用于由分段校验和得出整个文件的校验和
+     *
+     * @param crc1 前一段的CRC32
+     * @param crc2 后一段的CRC32
+     * @param len2 后一段的长度
+     * @return long 两段拼接后的CRC32
+     */
+    public static long combine(long crc1, long crc2, long len2) {
+        if (0 >= len2) {
+            return crc1;
+        }
+        long[] even = new long[GF2_DIM];
+        long[] odd = new long[GF2_DIM];
+        // 奇数次幂矩阵：一个0比特的运算
+        odd[0] = CRC32_POLY;
+        long row = 1;
+        for (int n = 1; n < GF2_DIM; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // 偶数次幂矩阵：两个0比特；再平方得到四个0比特
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+        // 每轮平方一次，按len2的二进制位把对应个数的0字节作用到crc1上
+        long crc = crc1;
+        long len = len2;
+        do {
+            gf2MatrixSquare(even, odd);
+            if (0 != (len & 1)) {
+                crc = gf2MatrixTimes(even, crc);
+            }
+            len >>= 1;
+            if (0 == len) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if (0 != (len & 1)) {
+                crc = gf2MatrixTimes(odd, crc);
+            }
+            len >>= 1;
+        } while (0 != len);
+        return (crc ^ crc2) & 0xFFFFFFFFL;
+    }
+
+    private static long gf2MatrixTimes(long[] mat, long vec) {
+        long sum = 0;
+        int i = 0;
+        long v = vec;
+        while (0 != v) {
+            if (0 != (v & 1)) {
+                sum ^= mat[i];
+            }
+            v >>>= 1;
+            i++;
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] mat) {
+        for (int n = 0; n < GF2_DIM; n++) {
+            square[n] = gf2MatrixTimes(mat, mat[n]);
+        }
+    }
+}
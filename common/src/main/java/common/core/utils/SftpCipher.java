@@ -0,0 +1,380 @@
+package common.core.utils;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sftp传输加解密(AES-GCM分块流式加密)，上传时边读边加密、下载时边读边解密，不产生明文或密文临时文件
+ *
+ * <p>密文格式：文件头(魔数8字节 + 块大小4字节 + 随机基础nonce12字节) + 若干密文块，每块为"明文块密文 + 16字节认证标签"，
+ * 除最后一块外每块明文长度都等于块大小。第i块的nonce为基础nonce的后8字节与i异或，附加认证数据为"文件头 + 块序号 + 是否最后一块"，
+ * 因此块被调换、删除、截断或文件头被篡改都会导致解密失败。各块互相独立，由共享线程池按CPU核数并行加解密，按原顺序输出。
+ *
+ * <p>解密时每块校验通过后才输出该块明文，文件被截断时在读到末尾时抛出异常，调用方应在读完之后再使用已写出的数据。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpCipher {
+
+    /** 默认块大小：64KB */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /** 最大块大小：16MB */
+    private static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    /** 算法 */
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    /** 文件头魔数 */
+    private static final byte[] MAGIC = "SFTPGCM1".getBytes(StandardCharsets.US_ASCII);
+
+    /** nonce长度(字节) */
+    private static final int NONCE_LENGTH = 12;
+
+    /** 认证标签长度(字节) */
+    private static final int TAG_LENGTH = 16;
+
+    /** 文件头长度(字节) */
+    private static final int HEADER_LENGTH = MAGIC.length + 4 + NONCE_LENGTH;
+
+    /** 随机数 */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** 每个线程复用的Cipher实例 */
+    private static final ThreadLocal<Cipher> CIPHERS =
+            ThreadLocal.withInitial(
+                    () -> {
+                        try {
+                            return Cipher.getInstance(TRANSFORMATION);
+                        } catch (GeneralSecurityException e) {
+                            throw new IllegalStateException("不支持" + TRANSFORMATION + "！", e);
+                        }
+                    });
+
+    /** 加解密线程池(所有实例共享，线程数为CPU核数) */
+    private static volatile ExecutorService executor;
+
+    /** 密钥 */
+    private final SecretKey key;
+    /** 加密块大小 */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    /** 每个流同时加解密的最大块数 */
+    private int inFlight = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 构造加解密对象
+     *
+     * @param key AES密钥(16、24或32字节)
+     */
+    public SftpCipher(byte[] key) {
+        if (null == key || (16 != key.length && 24 != key.length && 32 != key.length)) {
+            throw new IllegalArgumentException("AES密钥长度必须为16、24或32字节！");
+        }
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * 生成随机的256位AES密钥
+     *
+     * @return byte[]
+     */
+    public static byte[] generateKey() {
+        byte[] key = new byte[32];
+        RANDOM.nextBytes(key);
+        return key;
+    }
+
+    /**
+     * 加密块大小(只影响加密，解密按文件头中的块大小)
+     *
+     * @param chunkSize 块大小(字节)
+     * @return SftpCipher
+     */
+    public SftpCipher chunkSize(int chunkSize) {
+        if (0 >= chunkSize || MAX_CHUNK_SIZE < chunkSize) {
+            throw new IllegalArgumentException("加密块大小必须在1到" + MAX_CHUNK_SIZE + "之间！");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * 每个流同时加解密的最大块数(预读深度)，内存占用约为"块数 x 块大小"
+     *
+     * @param inFlight 块数
+     * @return SftpCipher
+     */
+    public SftpCipher inFlight(int inFlight) {
+        this.inFlight = Math.max(1, inFlight);
+        return this;
+    }
+
+    /**
+     * 包装明文输入流，读出的是密文
+     *
+     * @param plain 明文输入流
+     * @return InputStream
+     */
+    public InputStream encrypt(InputStream plain) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        RANDOM.nextBytes(nonce);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.put(MAGIC).putInt(chunkSize).put(nonce);
+        return new ChunkStream(plain, true, header.array());
+    }
+
+    /**
+     * 包装密文输入流，读出的是校验通过的明文
+     *
+     * @param encrypted 密文输入流
+     * @return InputStream
+     */
+    public InputStream decrypt(InputStream encrypted) {
+        return new ChunkStream(encrypted, false, null);
+    }
+
+    /**
+     * 明文加密后的大小
+     *
+     * @param plainSize 明文大小
+     * @return long
+     */
+    public long encryptedSize(long plainSize) {
+        // 空文件也有一个空的最后一块
+        long chunks = Math.max(1L, (plainSize + chunkSize - 1) / chunkSize);
+        return HEADER_LENGTH + plainSize + chunks * TAG_LENGTH;
+    }
+
+    private static ExecutorService executor() {
+        if (null == executor) {
+            synchronized (SftpCipher.class) {
+                if (null == executor) {
+                    executor =
+                            Executors.newFixedThreadPool(
+                                    Runtime.getRuntime().availableProcessors(),
+                                    new SftpThreadFactory("sftp-cipher"));
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 加密或解密一块
+     *
+     * @param encrypting 是否加密
+     * @param header 文件头
+     * @param index 块序号
+     * @param last 是否最后一块
+     * @param data 明文块或密文块
+     * @return byte[]
+     * @throws IOException
+     */
+    private byte[] transform(
+            boolean encrypting, byte[] header, long index, boolean last, byte[] data)
+            throws IOException {
+        byte[] nonce = Arrays.copyOfRange(header, MAGIC.length + 4, HEADER_LENGTH);
+        for (int i = 0; i < 8; i++) {
+            nonce[NONCE_LENGTH - 1 - i] ^= (byte) (index >>> (8 * i));
+        }
+        byte[] aad = ByteBuffer.allocate(9).putLong(index).put((byte) (last ? 1 : 0)).array();
+        try {
+            Cipher cipher = CIPHERS.get();
+            cipher.init(
+                    encrypting ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE,
+                    key,
+                    new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+            cipher.updateAAD(header);
+            cipher.updateAAD(aad);
+            return cipher.doFinal(data);
+        } catch (AEADBadTagException e) {
+            throw new IOException("Sftp解密 异常：第[" + index + "]块校验失败，文件已损坏或密钥不正确！", e);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Sftp加解密 异常：第[" + index + "]块处理失败！", e);
+        }
+    }
+
+    /** 分块加解密流：调用线程顺序读取源数据并提交各块，按提交顺序取回结果 */
+    private class ChunkStream extends InputStream {
+
+        /** 源输入流 */
+        private final InputStream source;
+        /** 是否加密 */
+        private final boolean encrypting;
+        /** 提交中的块(按顺序) */
+        private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        /** 文件头 */
+        private byte[] header;
+        /** 每次从源读取的块大小 */
+        private int readSize;
+        /** 是否已处理文件头 */
+        private boolean started = false;
+        /** 预读的下一块(用于判断当前块是否为最后一块) */
+        private byte[] lookahead;
+        /** 源数据是否已读完 */
+        private boolean eof = false;
+        /** 下一块序号 */
+        private long index = 0L;
+        /** 当前输出块 */
+        private byte[] current;
+        /** 当前输出位置 */
+        private int pos;
+
+        ChunkStream(InputStream source, boolean encrypting, byte[] header) {
+            this.source = source;
+            this.encrypting = encrypting;
+            this.header = header;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int len = read(one, 0, 1);
+            return -1 == len ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (0 == len) {
+                return 0;
+            }
+            while (null == current || pos == current.length) {
+                if (!advance()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(len, current.length - pos);
+            System.arraycopy(current, pos, b, off, count);
+            pos += count;
+            return count;
+        }
+
+        /**
+         * 切换到下一个输出块
+         *
+         * @return boolean 没有更多数据时返回false
+         * @throws IOException
+         */
+        private boolean advance() throws IOException {
+            if (!started) {
+                started = true;
+                if (encrypting) {
+                    readSize = chunkSize;
+                    current = header;
+                    pos = 0;
+                    return true;
+                }
+                readHeader();
+            }
+            fill();
+            Future<byte[]> future = pending.poll();
+            if (null == future) {
+                return false;
+            }
+            try {
+                current = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Sftp加解密被中断！");
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException
+                        ? (IOException) e.getCause()
+                        : new IOException(e.getCause());
+            }
+            pos = 0;
+            return true;
+        }
+
+        private void readHeader() throws IOException {
+            header = readChunk(HEADER_LENGTH);
+            if (HEADER_LENGTH != header.length
+                    || !Arrays.equals(MAGIC, Arrays.copyOf(header, MAGIC.length))) {
+                throw new IOException("Sftp解密 异常：不是有效的加密文件！");
+            }
+            int size = ByteBuffer.wrap(header, MAGIC.length, 4).getInt();
+            if (0 >= size || MAX_CHUNK_SIZE < size) {
+                throw new IOException("Sftp解密 异常：无效的块大小[" + size + "]！");
+            }
+            readSize = size + TAG_LENGTH;
+        }
+
+        /**
+         * 读取源数据并提交，直到提交中的块数达到上限或源数据读完
+         *
+         * @throws IOException
+         */
+        private void fill() throws IOException {
+            while (!eof && pending.size() < inFlight) {
+                byte[] data = null != lookahead ? lookahead : readChunk(readSize);
+                lookahead = null;
+                boolean last;
+                if (data.length < readSize) {
+                    last = true;
+                } else {
+                    lookahead = readChunk(readSize);
+                    last = 0 == lookahead.length;
+                }
+                if (last) {
+                    eof = true;
+                    lookahead = null;
+                }
+                if (!encrypting && data.length < TAG_LENGTH) {
+                    throw new IOException("Sftp解密 异常：第[" + index + "]块不完整，文件已被截断！");
+                }
+                long chunkIndex = index++;
+                byte[] chunkHeader = header;
+                pending.add(
+                        executor()
+                                .submit(
+                                        () ->
+                                                transform(
+                                                        encrypting,
+                                                        chunkHeader,
+                                                        chunkIndex,
+                                                        last,
+                                                        data)));
+            }
+        }
+
+        private byte[] readChunk(int size) throws IOException {
+            byte[] buffer = new byte[size];
+            int total = 0;
+            while (total < size) {
+                int len = source.read(buffer, total, size - total);
+                if (-1 == len) {
+                    break;
+                }
+                total += len;
+            }
+            return total == size ? buffer : Arrays.copyOf(buffer, total);
+        }
+
+        @Override
+        public void close() throws IOException {
+            Future<byte[]> future;
+            while (null != (future = pending.poll())) {
+                future.cancel(true);
+            }
+            source.close();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package common.core.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Sftp传输压缩策略：按文件扩展名决定使用压缩会话还是不压缩会话
+ *
+ * <p>CSV、XML等文本压缩率高，通过压缩会话传输可明显减少网络流量；压缩包、图片等已压缩的文件再压缩只会浪费CPU，走不压缩会话。
+ * 未登记的扩展名按defaultCompress处理。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpCompressionPolicy {
+
+    /** 默认压缩级别(兼顾压缩率与CPU) */
+    public static final int DEFAULT_LEVEL = 6;
+
+    /** 默认按压缩传输的扩展名 */
+    private static final Set<String> COMPRESSIBLE =
+            Collections.unmodifiableSet(
+                    new HashSet<>(
+                            Arrays.asList(
+                                    "txt", "csv", "tsv", "xml", "json", "log", "sql", "html", "htm",
+                                    "dat", "properties", "yml", "yaml", "ok", "chk")));
+
+    /** 默认不压缩传输的扩展名 */
+    private static final Set<String> INCOMPRESSIBLE =
+            Collections.unmodifiableSet(
+                    new HashSet<>(
+                            Arrays.asList(
+                                    "gz", "tgz", "zip", "7z", "rar", "bz2", "xz", "zst", "lz4",
+                                    "jar", "war", "jpg", "jpeg", "png", "gif", "mp3", "mp4",
+                                    "avi", "pdf", "docx", "xlsx", "pptx", "enc", "gpg")));
+
+    /** 压缩传输的扩展名(小写，不含点) */
+    private final Set<String> compressible = new HashSet<>(COMPRESSIBLE);
+
+    /** 不压缩传输的扩展名(小写，不含点) */
+    private final Set<String> incompressible = new HashSet<>(INCOMPRESSIBLE);
+
+    /** 压缩级别 */
+    private int level = DEFAULT_LEVEL;
+
+    /** 未登记扩展名是否压缩 */
+    private boolean defaultCompress = false;
+
+    public SftpCompressionPolicy level(int level) {
+        if (1 > level || 9 < level) {
+            throw new IllegalArgumentException("压缩级别[" + level + "]应在1-9之间！");
+        }
+        this.level = level;
+        return this;
+    }
+
+    public SftpCompressionPolicy defaultCompress(boolean defaultCompress) {
+        this.defaultCompress = defaultCompress;
+        return this;
+    }
+
+    /**
+     * 登记压缩传输的扩展名
+     *
+     * @param extensions 扩展名(不含点)
+     * @return SftpCompressionPolicy
+     */
+    public SftpCompressionPolicy compress(String... extensions) {
+        for (String extension : extensions) {
+            String value = extension.toLowerCase(Locale.ROOT);
+            incompressible.remove(value);
+            compressible.add(value);
+        }
+        return this;
+    }
+
+    /**
+     * 登记不压缩传输的扩展名
+     *
+     * @param extensions 扩展名(不含点)
+     * @return SftpCompressionPolicy
+     */
+    public SftpCompressionPolicy plain(String... extensions) {
+        for (String extension : extensions) {
+            String value = extension.toLowerCase(Locale.ROOT);
+            compressible.remove(value);
+            incompressible.add(value);
+        }
+        return this;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * 文件是否应通过压缩会话传输
+     *
+     * @param fileName 文件名或路径
+     * @return boolean
+     */
+    public boolean shouldCompress(String fileName) {
+        String extension = extensionOf(fileName);
+        if (compressible.contains(extension)) {
+            return true;
+        }
+        if (incompressible.contains(extension)) {
+            return false;
+        }
+        return defaultCompress;
+    }
+
+    /**
+     * 获取传输指定文件应使用的连接池键
+     *
+     * @param key 基础连接信息
+     * @param fileName 文件名或路径
+     * @return SftpPoolKey
+     */
+    public SftpPoolKey keyFor(SftpPoolKey key, String fileName) {
+        return key.withCompression(shouldCompress(fileName) ? level : 0);
+    }
+
+    private static String extensionOf(String fileName) {
+        if (null == fileName) {
+            return "";
+        }
+        int slash = Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\'));
+        String name = fileName.substring(slash + 1);
+        int index = name.lastIndexOf('.');
+        return 0 > index ? "" : name.substring(index + 1).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,263 @@
+package common.core.utils;
+
+import com.jcraft.jsch.ChannelSftp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Sftp远程目录并行遍历器
+ *
+ * <p>同级子目录的ls请求分散到多个连接池通道上并行执行，可限制遍历深度，并按文件名正则过滤。 被排除的目录不再向下遍历。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpDirectoryWalker {
+
+    private static final Logger log = LoggerFactory.getLogger(SftpDirectoryWalker.class);
+
+    /** 等待新目录的轮询间隔(毫秒) */
+    private static final long POLL_MILLIS = 50L;
+
+    /** 连接池 */
+    private final SftpSessionPool pool;
+    /** 连接信息 */
+    private final SftpPoolKey key;
+    /** 并发通道数 */
+    private int threads = 4;
+    /** 最大遍历深度(0表示只列出根目录下的文件) */
+    private int maxDepth = Integer.MAX_VALUE;
+    /** 文件名包含规则(为空不过滤，只作用于文件) */
+    private Pattern include;
+    /** 文件名排除规则(为空不过滤，作用于文件和目录) */
+    private Pattern exclude;
+
+    public SftpDirectoryWalker(SftpSessionPool pool, SftpPoolKey key) {
+        this.pool = pool;
+        this.key = key;
+    }
+
+    public SftpDirectoryWalker threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public SftpDirectoryWalker maxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    public SftpDirectoryWalker include(String regex) {
+        this.include = StringUtil.isNullOrBlock(regex) ? null : Pattern.compile(regex);
+        return this;
+    }
+
+    public SftpDirectoryWalker exclude(String regex) {
+        this.exclude = StringUtil.isNullOrBlock(regex) ? null : Pattern.compile(regex);
+        return this;
+    }
+
+    /**
+     * 遍历目录下所有文件(含子目录)，结果按路径排序
+     *
+     * @param remotePath 远程目录
+     * @return LinkedList<SftpLsEntry>
+     * @throws Exception
+     */
+    public LinkedList<SftpLsEntry> walk(String remotePath) throws Exception {
+        long start = System.currentTimeMillis();
+        BlockingQueue<DirTask> dirQueue = new LinkedBlockingQueue<>();
+        Queue<SftpLsEntry> files = new ConcurrentLinkedQueue<>();
+        // 已入队但尚未处理完的目录数，为0时遍历结束
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicReference<Exception> error = new AtomicReference<>();
+        dirQueue.add(new DirTask(trimEndSlash(remotePath), 0));
+        int workers = SftpParallelRunner.boundedThreads(pool, threads);
+        ExecutorService executor =
+                Executors.newFixedThreadPool(workers, new SftpThreadFactory("sftp-walk"));
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> work(dirQueue, files, pending, error)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    error.compareAndSet(null, new Exception(e.getCause()));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        if (null != error.get()) {
+            throw new Exception("Sftp并行遍历目录[" + remotePath + "] 异常！", error.get());
+        }
+        LinkedList<SftpLsEntry> result = new LinkedList<>(files);
+        result.sort(
+                Comparator.comparing(SftpLsEntry::getPath)
+                        .thenComparing(SftpLsEntry::getFileName));
+        log.info(
+                "Sftp并行遍历目录[{}]完成，文件数量[{}]，耗时[{}]毫秒",
+                remotePath,
+                result.size(),
+                System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * 在调用方的通道上只列出目录本身的文件(不含子目录，不另起线程)，过滤规则与walk相同，结果按文件名排序
+     *
+     * @param sftp sftp通道
+     * @param remotePath 远程目录
+     * @return LinkedList<SftpLsEntry>
+     * @throws Exception
+     */
+    public LinkedList<SftpLsEntry> list(ChannelSftp sftp, String remotePath) throws Exception {
+        LinkedList<SftpLsEntry> result = new LinkedList<>();
+        SftpUtil.listEntries(
+                sftp,
+                trimEndSlash(remotePath),
+                null,
+                true,
+                entry -> {
+                    String fileName = entry.getFileName();
+                    if (!entry.isDir() && !isExcluded(fileName) && isIncluded(fileName)) {
+                        result.add(entry);
+                    }
+                    return true;
+                });
+        result.sort(Comparator.comparing(SftpLsEntry::getFileName));
+        return result;
+    }
+
+    /**
+     * 工作线程：借出一个通道，循环领取目录执行ls，子目录放回队列供其他线程领取
+     *
+     * @param dirQueue 待遍历目录
+     * @param files 文件结果
+     * @param pending 未完成目录数
+     * @param error 首个异常
+     */
+    private void work(
+            BlockingQueue<DirTask> dirQueue,
+            Queue<SftpLsEntry> files,
+            AtomicInteger pending,
+            AtomicReference<Exception> error) {
+        SftpChannelLease lease = null;
+        try {
+            while (null == error.get() && 0 < pending.get()) {
+                DirTask task = dirQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (null == task) {
+                    continue;
+                }
+                try {
+                    if (null == lease) {
+                        lease = pool.borrow(key);
+                    }
+                    listDir(lease.getChannel(), task, dirQueue, files, pending);
+                } catch (Exception e) {
+                    error.compareAndSet(null, e);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (null != lease) {
+                lease.close();
+            }
+        }
+    }
+
+    /**
+     * 列出单个目录
+     *
+     * @param sftp sftp通道
+     * @param task 目录
+     * @param dirQueue 待遍历目录
+     * @param files 文件结果
+     * @param pending 未完成目录数
+     * @throws Exception
+     */
+    private void listDir(
+            ChannelSftp sftp,
+            DirTask task,
+            BlockingQueue<DirTask> dirQueue,
+            Queue<SftpLsEntry> files,
+            AtomicInteger pending)
+            throws Exception {
+        SftpUtil.listEntries(
+                sftp,
+                task.path,
+                null,
+                true,
+                entry -> {
+                    String fileName = entry.getFileName();
+                    if (isExcluded(fileName)) {
+                        return true;
+                    }
+                    if (entry.isDir()) {
+                        if (task.depth < maxDepth) {
+                            pending.incrementAndGet();
+                            String child =
+                                    "/".equals(task.path)
+                                            ? "/" + fileName
+                                            : task.path + "/" + fileName;
+                            dirQueue.add(new DirTask(child, task.depth + 1));
+                        }
+                    } else if (isIncluded(fileName)) {
+                        files.add(entry);
+                    }
+                    return true;
+                });
+    }
+
+    private boolean isIncluded(String fileName) {
+        return null == include || include.matcher(fileName).matches();
+    }
+
+    private boolean isExcluded(String fileName) {
+        return null != exclude && exclude.matcher(fileName).matches();
+    }
+
+    private static String trimEndSlash(String path) {
+        String value = path.replaceAll("\\\\", "/");
+        while (1 < value.length() && value.endsWith("/")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return value;
+    }
+
+    /** 待遍历目录 */
+    private static class DirTask {
+        /** 目录路径(不以/结尾) */
+        private final String path;
+        /** 相对根目录的深度 */
+        private final int depth;
+
+        DirTask(String path, int depth) {
+            this.path = path;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package common.core.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sftp远程目录监视器：定时列目录，与上次快照比对后只通知新增、修改和删除的文件
+ *
+ * <p>新出现或发生变化的文件需连续若干次轮询大小和修改时间都不变(写入完成)才通知，避免处理对方尚未上传完的文件。
+ * 轮询间隔随变化频率自适应：有变化或有等待稳定的文件时缩短到最小间隔，连续无变化时逐步放大到最大间隔。
+ * 快照只保存在内存中，启动后的第一次轮询默认把已存在的文件作为新增通知，可通过emitExisting(false)只记录基线。
+ * 后台轮询时回调成功才更新快照，回调异常时本次事件在下次轮询重新通知(至少一次)。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpDirectoryWatcher implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SftpDirectoryWatcher.class);
+
+    /** 默认最小轮询间隔：5秒 */
+    public static final long DEFAULT_MIN_INTERVAL_MILLIS = 5 * 1000L;
+
+    /** 默认最大轮询间隔：5分钟 */
+    public static final long DEFAULT_MAX_INTERVAL_MILLIS = 5 * 60 * 1000L;
+
+    /** 无变化时轮询间隔的放大倍数 */
+    private static final double BACKOFF_FACTOR = 1.5;
+
+    /** 事件类型 */
+    public enum EventType {
+        /** 新增 */
+        CREATED,
+        /** 修改(大小或修改时间变化) */
+        MODIFIED,
+        /** 删除 */
+        DELETED
+    }
+
+    /** 事件回调 */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * 处理一次轮询产生的事件(同一次轮询的事件按文件路径排序一次性回调)
+         *
+         * @param events 事件列表，不为空
+         * @throws Exception
+         */
+        void onEvents(List<Event> events) throws Exception;
+    }
+
+    /** 目录变化事件 */
+    public static class Event {
+        /** 事件类型 */
+        private final EventType type;
+        /** 文件绝对路径 */
+        private final String path;
+        /** 文件信息(删除事件为最后一次通知时的信息) */
+        private final SftpLsEntry entry;
+
+        Event(EventType type, String path, SftpLsEntry entry) {
+            this.type = type;
+            this.path = path;
+            this.entry = entry;
+        }
+
+        public EventType getType() {
+            return type;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public SftpLsEntry getEntry() {
+            return entry;
+        }
+
+        @Override
+        public String toString() {
+            return "Event [type=" + type + ", path=" + path + ", size=" + entry.getFileSize() + "]";
+        }
+    }
+
+    /** 连接池 */
+    private final SftpSessionPool pool;
+    /** 连接信息 */
+    private final SftpPoolKey key;
+    /** 远程目录 */
+    private final String remotePath;
+    /** 目录遍历器 */
+    private final SftpDirectoryWalker walker;
+    /** 最大遍历深度(0表示只监视目录本身) */
+    private int maxDepth = 0;
+    /** 最小轮询间隔(毫秒) */
+    private long minIntervalMillis = DEFAULT_MIN_INTERVAL_MILLIS;
+    /** 最大轮询间隔(毫秒) */
+    private long maxIntervalMillis = DEFAULT_MAX_INTERVAL_MILLIS;
+    /** 通知前需连续不变的轮询次数 */
+    private int stablePolls = 2;
+    /** 第一次轮询时是否通知已存在的文件 */
+    private boolean emitExisting = true;
+
+    /** 已通知的文件快照：路径 -> 文件信息 */
+    private Map<String, SftpLsEntry> snapshot = new HashMap<>();
+    /** 等待稳定的文件：路径 -> 等待信息 */
+    private Map<String, Pending> pending = new HashMap<>();
+    /** 是否已完成第一次轮询 */
+    private boolean initialized = false;
+    /** 快照版本，每次更新快照加1 */
+    private long version = 0L;
+    /** 当前轮询间隔(毫秒) */
+    private volatile long intervalMillis = DEFAULT_MIN_INTERVAL_MILLIS;
+
+    /** 定时轮询线程 */
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * 构造监视器(只监视目录本身，不含子目录)
+     *
+     * @param pool 连接池
+     * @param key 连接信息
+     * @param remotePath 远程目录
+     */
+    public SftpDirectoryWatcher(SftpSessionPool pool, SftpPoolKey key, String remotePath) {
+        this.pool = pool;
+        this.key = key;
+        this.remotePath = remotePath;
+        this.walker = new SftpDirectoryWalker(pool, key).threads(1).maxDepth(0);
+    }
+
+    /**
+     * 以sftp对象的连接信息构造监视器，轮询使用其连接池中单独的通道
+     *
+     * @param sftpUtil sftp对象
+     * @param remotePath 远程目录
+     */
+    public SftpDirectoryWatcher(SftpUtil sftpUtil, String remotePath) {
+        this(sftpUtil.getSessionPool(), sftpUtil.getPoolKey(), remotePath);
+    }
+
+    /**
+     * 轮询间隔范围
+     *
+     * @param minIntervalMillis 最小轮询间隔(毫秒)
+     * @param maxIntervalMillis 最大轮询间隔(毫秒)
+     * @return SftpDirectoryWatcher
+     */
+    public SftpDirectoryWatcher interval(long minIntervalMillis, long maxIntervalMillis) {
+        this.minIntervalMillis = Math.max(1L, minIntervalMillis);
+        this.maxIntervalMillis = Math.max(this.minIntervalMillis, maxIntervalMillis);
+        this.intervalMillis = this.minIntervalMillis;
+        return this;
+    }
+
+    /**
+     * 文件大小和修改时间需连续不变的轮询次数，1表示发现即通知
+     *
+     * @param stablePolls 轮询次数
+     * @return SftpDirectoryWatcher
+     */
+    public SftpDirectoryWatcher stablePolls(int stablePolls) {
+        this.stablePolls = Math.max(1, stablePolls);
+        return this;
+    }
+
+    public SftpDirectoryWatcher emitExisting(boolean emitExisting) {
+        this.emitExisting = emitExisting;
+        return this;
+    }
+
+    /**
+     * 同时监视子目录
+     *
+     * @param maxDepth 最大遍历深度(0表示只监视目录本身)
+     * @return SftpDirectoryWatcher
+     */
+    public SftpDirectoryWatcher maxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        walker.maxDepth(maxDepth);
+        return this;
+    }
+
+    public SftpDirectoryWatcher include(String regex) {
+        walker.include(regex);
+        return this;
+    }
+
+    public SftpDirectoryWatcher exclude(String regex) {
+        walker.exclude(regex);
+        return this;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * 轮询一次：列目录并与快照比对，返回本次产生的事件，同时调整下次轮询间隔
+     *
+     * @return List<Event> 按文件路径排序
+     * @throws Exception 列目录异常
+     */
+    public synchronized List<Event> poll() throws Exception {
+        Round round = scan();
+        commit(round);
+        return round.events;
+    }
+
+    /**
+     * 列目录并在快照副本上比对，不修改当前快照，同时调整下次轮询间隔
+     *
+     * @return Round
+     * @throws Exception 列目录异常
+     */
+    private synchronized Round scan() throws Exception {
+        Map<String, SftpLsEntry> current = new HashMap<>();
+        for (SftpLsEntry entry : list()) {
+            current.put(SftpUtil.getAbsolutePath(entry.getPath()) + entry.getFileName(), entry);
+        }
+        Round round = new Round(version, new HashMap<>(snapshot), new HashMap<>(pending));
+        if (!initialized && !emitExisting) {
+            round.snapshot.putAll(current);
+        } else {
+            diff(current, round);
+        }
+        round.events.sort((a, b) -> a.getPath().compareTo(b.getPath()));
+        adjustInterval(!round.events.isEmpty() || !round.pending.isEmpty());
+        return round;
+    }
+
+    /**
+     * 以比对结果更新快照(比对之后快照已被其他轮询更新时放弃)
+     *
+     * @param round 比对结果
+     */
+    private synchronized void commit(Round round) {
+        if (round.version != version) {
+            return;
+        }
+        snapshot = round.snapshot;
+        pending = round.pending;
+        initialized = true;
+        version++;
+    }
+
+    /**
+     * 列出监视的文件：只监视目录本身时在一个通道上直接列目录，否则并行遍历子目录
+     *
+     * @return List<SftpLsEntry>
+     * @throws Exception
+     */
+    private List<SftpLsEntry> list() throws Exception {
+        if (0 < maxDepth) {
+            return walker.walk(remotePath);
+        }
+        try (SftpChannelLease lease = pool.borrow(key)) {
+            try {
+                return walker.list(lease.getChannel(), remotePath);
+            } catch (Exception e) {
+                if (!lease.getChannel().isConnected()) {
+                    lease.invalidate();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 比对本次列表与快照副本
+     *
+     * @param current 本次列表
+     * @param round 快照副本及产生的事件
+     */
+    private void diff(Map<String, SftpLsEntry> current, Round round) {
+        Map<String, SftpLsEntry> snapshot = round.snapshot;
+        Map<String, Pending> pending = round.pending;
+        List<Event> events = round.events;
+        for (Map.Entry<String, SftpLsEntry> item : current.entrySet()) {
+            String path = item.getKey();
+            SftpLsEntry entry = item.getValue();
+            SftpLsEntry previous = snapshot.get(path);
+            if (null != previous && sameAs(previous, entry)) {
+                pending.remove(path);
+                continue;
+            }
+            Pending waiting = pending.get(path);
+            // Pending与当前快照共享，不能原地修改
+            if (null == waiting || !sameAs(waiting.entry, entry)) {
+                waiting = new Pending(entry, 1);
+            } else {
+                waiting = new Pending(entry, waiting.polls + 1);
+            }
+            pending.put(path, waiting);
+            if (waiting.polls >= stablePolls) {
+                events.add(
+                        new Event(
+                                null == previous ? EventType.CREATED : EventType.MODIFIED,
+                                path,
+                                entry));
+                snapshot.put(path, entry);
+                pending.remove(path);
+            }
+        }
+        Iterator<Map.Entry<String, SftpLsEntry>> iterator = snapshot.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, SftpLsEntry> item = iterator.next();
+            if (!current.containsKey(item.getKey())) {
+                events.add(new Event(EventType.DELETED, item.getKey(), item.getValue()));
+                iterator.remove();
+            }
+        }
+        // 等待期间消失的文件不再等待，也不通知
+        pending.keySet().retainAll(current.keySet());
+    }
+
+    /**
+     * 有变化时回到最小间隔，无变化时逐步放大
+     *
+     * @param active 本次是否有事件或等待稳定的文件
+     */
+    private void adjustInterval(boolean active) {
+        if (active) {
+            intervalMillis = minIntervalMillis;
+        } else {
+            intervalMillis =
+                    Math.min(maxIntervalMillis, (long) (intervalMillis * BACKOFF_FACTOR));
+        }
+    }
+
+    /**
+     * 在后台线程中按自适应间隔持续轮询，有事件时回调；列目录异常只记录日志，下次继续
+     *
+     * @param listener 事件回调
+     */
+    public synchronized void start(Listener listener) {
+        if (null != scheduler) {
+            throw new IllegalStateException("监视器已启动！");
+        }
+        scheduler =
+                Executors.newSingleThreadScheduledExecutor(new SftpThreadFactory("sftp-watcher"));
+        scheduler.execute(() -> pollAndSchedule(listener));
+        log.info("Sftp目录监视--->远程目录[{}]--->开始监视！", remotePath);
+    }
+
+    private void pollAndSchedule(Listener listener) {
+        try {
+            Round round = scan();
+            if (!round.events.isEmpty()) {
+                log.info("Sftp目录监视--->远程目录[{}], 事件数[{}]", remotePath, round.events.size());
+                listener.onEvents(round.events);
+            }
+            commit(round);
+        } catch (Exception e) {
+            log.error("Sftp目录监视--->远程目录[{}] 轮询异常：", remotePath, e);
+        }
+        ScheduledExecutorService current = scheduler;
+        try {
+            if (null != current) {
+                current.schedule(
+                        () -> pollAndSchedule(listener), intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // 轮询期间已停止
+        }
+    }
+
+    /** 停止后台轮询 */
+    @Override
+    public synchronized void close() {
+        if (null != scheduler) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            log.info("Sftp目录监视--->远程目录[{}]--->停止监视！", remotePath);
+        }
+    }
+
+    private static boolean sameAs(SftpLsEntry a, SftpLsEntry b) {
+        return a.getFileSize() == b.getFileSize() && a.getModifyTime() == b.getModifyTime();
+    }
+
+    /** 等待稳定的文件 */
+    private static class Pending {
+        /** 最近一次列出的文件信息 */
+        private final SftpLsEntry entry;
+        /** 大小和修改时间连续不变的轮询次数 */
+        private final int polls;
+
+        Pending(SftpLsEntry entry, int polls) {
+            this.entry = entry;
+            this.polls = polls;
+        }
+    }
+
+    /** 一次轮询的比对结果：更新后的快照副本和产生的事件 */
+    private static class Round {
+        /** 比对时的快照版本 */
+        private final long version;
+        /** 更新后的快照 */
+        private final Map<String, SftpLsEntry> snapshot;
+        /** 更新后的等待稳定文件 */
+        private final Map<String, Pending> pending;
+        /** 产生的事件 */
+        private final List<Event> events = new ArrayList<>();
+
+        Round(long version, Map<String, SftpLsEntry> snapshot, Map<String, Pending> pending) {
+            this.version = version;
+            this.snapshot = snapshot;
+            this.pending = pending;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package common.core.utils;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Checksum;
+
+/**
+ * Sftp多目标分发上传：本地文件只读取一次，同时写入多个目标服务器
+ *
+ * <p>读取线程把文件按块读入内存，同一个数据块(只读共享，不复制)依次放入每个目标各自的有界队列，每个目标由独立线程写出。
+ * 某个目标的队列已满时读取线程等待(背压)，因此内存占用不超过"目标数 x 队列块数 x 块大小"；
+ * 某个目标连续maxStallMillis毫秒都放不进数据时把它从共享读取中摘出，该目标写完已排队的数据后自行从本地文件续读剩余部分，
+ * 慢目标不会拖慢其他目标。每个目标先写临时文件，大小一致后再改名，单个目标失败不影响其他目标。
+ * 读取线程为每个数据块计算一次校验和，各目标按实际写出的数据块合并出自己的校验和(自行续读的部分单独计算)，只有成功的目标设置校验和。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpFanOutUpload {
+
+    private static final Logger log = LoggerFactory.getLogger(SftpFanOutUpload.class);
+
+    /** 默认块大小：256KB */
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    /** 默认每个目标的队列块数 */
+    public static final int DEFAULT_QUEUE_CHUNKS = 16;
+
+    /** 默认单个目标阻塞读取的最长时间：2秒 */
+    public static final long DEFAULT_MAX_STALL_MILLIS = 2 * 1000L;
+
+    /** 目标临时文件后缀 */
+    private static final String UPLOADING_SUFFIX = ".uploading";
+
+    /** 队列等待的检查间隔(毫秒) */
+    private static final long POLL_MILLIS = 100L;
+
+    /** 结束标记(按引用比较) */
+    private static final Chunk END = new Chunk(new byte[0], 0, 0L);
+
+    /** 上传目标 */
+    public static class Destination {
+        /** 连接信息 */
+        private final SftpPoolKey key;
+        /** 远程目录(绝对路径) */
+        private final String remotePath;
+        /** 保存文件名 */
+        private final String remoteFileName;
+
+        public Destination(SftpPoolKey key, String remotePath, String remoteFileName) {
+            this.key = key;
+            this.remotePath = SftpUtil.getAbsolutePath(remotePath);
+            this.remoteFileName = remoteFileName;
+        }
+
+        public SftpPoolKey getKey() {
+            return key;
+        }
+
+        public String getRemotePath() {
+            return remotePath;
+        }
+
+        public String getRemoteFileName() {
+            return remoteFileName;
+        }
+
+        @Override
+        public String toString() {
+            return key + ":" + remotePath + remoteFileName;
+        }
+    }
+
+    /** 连接池 */
+    private final SftpSessionPool pool;
+    /** 块大小 */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    /** 每个目标的队列块数 */
+    private int queueChunks = DEFAULT_QUEUE_CHUNKS;
+    /** 单个目标阻塞读取的最长时间(毫秒)，0表示一直等待 */
+    private long maxStallMillis = DEFAULT_MAX_STALL_MILLIS;
+    /** 传输优先级(用于带宽限制) */
+    private SftpBandwidthLimiter.Priority priority = SftpBandwidthLimiter.Priority.NORMAL;
+    /** 已确认存在的远程目录(按连接区分) */
+    private final Map<SftpPoolKey, SftpRemoteDirCache> dirCaches = new ConcurrentHashMap<>();
+
+    public SftpFanOutUpload(SftpSessionPool pool) {
+        this.pool = pool;
+    }
+
+    public SftpFanOutUpload chunkSize(int chunkSize) {
+        this.chunkSize = Math.max(8 * 1024, chunkSize);
+        return this;
+    }
+
+    public SftpFanOutUpload queueChunks(int queueChunks) {
+        this.queueChunks = Math.max(1, queueChunks);
+        return this;
+    }
+
+    /**
+     * 单个目标阻塞共享读取的最长时间，超过后该目标改为自行读取本地文件
+     *
+     * @param maxStallMillis 毫秒，0表示一直等待(所有目标按最慢的目标同步前进)
+     * @return SftpFanOutUpload
+     */
+    public SftpFanOutUpload maxStallMillis(long maxStallMillis) {
+        this.maxStallMillis = Math.max(0L, maxStallMillis);
+        return this;
+    }
+
+    public SftpFanOutUpload priority(SftpBandwidthLimiter.Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * 把本地文件上传到所有目标
+     *
+     * @param localFile 本地文件
+     * @param destinations 上传目标
+     * @return List<SftpTransferResult> 与destinations顺序一致的每个目标的结果
+     * @throws Exception 读取本地文件异常
+     */
+    public List<SftpTransferResult> upload(File localFile, List<Destination> destinations)
+            throws Exception {
+        if (!localFile.isFile()) {
+            throw new Exception("本地文件[" + localFile + "]不存在或不是文件！");
+        }
+        log.info(
+                "Sftp分发上传--->本地文件[{}], 目标数[{}]--->开始处理！",
+                localFile,
+                destinations.size());
+        long start = System.currentTimeMillis();
+        List<Target> targets = new ArrayList<>(destinations.size());
+        for (Destination destination : destinations) {
+            targets.add(new Target(destination, localFile, queueChunks));
+        }
+        ExecutorService executor =
+                Executors.newFixedThreadPool(
+                        Math.max(1, targets.size()), new SftpThreadFactory("sftp-fanout"));
+        List<Future<?>> futures = new ArrayList<>(targets.size());
+        try {
+            for (Target target : targets) {
+                futures.add(executor.submit(() -> write(target)));
+            }
+            try {
+                read(localFile, targets);
+            } catch (Exception e) {
+                for (Target target : targets) {
+                    target.fail(e);
+                }
+                throw e;
+            } finally {
+                for (Future<?> future : futures) {
+                    awaitQuietly(future);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        List<SftpTransferResult> results = new ArrayList<>(targets.size());
+        for (Target target : targets) {
+            results.add(target.result);
+        }
+        log.info(
+                "Sftp分发上传--->本地文件[{}]--->处理完成，耗时[{}]毫秒：{}",
+                localFile,
+                System.currentTimeMillis() - start,
+                results);
+        return results;
+    }
+
+    /**
+     * 读取线程：按块读取本地文件并放入各目标队列
+     *
+     * @param localFile 本地文件
+     * @param targets 上传目标
+     * @throws Exception
+     */
+    private void read(File localFile, List<Target> targets) throws Exception {
+        try (InputStream in = new FileInputStream(localFile)) {
+            while (true) {
+                byte[] data = new byte[chunkSize];
+                int len = readFully(in, data);
+                if (0 >= len) {
+                    break;
+                }
+                Checksum checksum = SftpChecksums.newChecksum();
+                checksum.update(data, 0, len);
+                Chunk chunk = new Chunk(data, len, checksum.getValue());
+                for (Target target : targets) {
+                    offer(target, chunk);
+                }
+                if (len < data.length) {
+                    break;
+                }
+            }
+        }
+        for (Target target : targets) {
+            offer(target, END);
+        }
+    }
+
+    /**
+     * 把数据块放入目标队列：目标已失败或已改为自行读取时跳过，队列满时等待，等待超时后把目标摘出共享读取
+     *
+     * @param target 上传目标
+     * @param chunk 数据块
+     * @throws InterruptedException
+     */
+    private void offer(Target target, Chunk chunk) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + maxStallMillis;
+        while (!target.detached && !target.failed) {
+            if (target.queue.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            if (0 < maxStallMillis && System.currentTimeMillis() >= deadline) {
+                log.info("Sftp分发上传--->目标[{}]写入缓慢，改为自行读取本地文件！", target.destination);
+                target.detached = true;
+            }
+        }
+    }
+
+    /**
+     * 目标写入线程：依次写出队列中的数据块，被摘出共享读取后自行读取本地文件剩余部分
+     *
+     * @param target 上传目标
+     */
+    private void write(Target target) {
+        Destination destination = target.destination;
+        String host = destination.getKey().getHost();
+        String remoteFile = destination.getRemotePath() + destination.getRemoteFileName();
+        String tmpFile = remoteFile + UPLOADING_SUFFIX;
+        long start = System.nanoTime();
+        SftpChannelLease lease = null;
+        try {
+            lease = pool.borrow(destination.getKey());
+            ChannelSftp channelSftp = lease.getChannel();
+            dirCaches
+                    .computeIfAbsent(destination.getKey(), k -> new SftpRemoteDirCache())
+                    .ensureDir(channelSftp, destination.getRemotePath());
+            long written = 0L;
+            long checksum = 0L;
+            try (OutputStream out =
+                    new SftpThrottledOutputStream(
+                            channelSftp.put(tmpFile, ChannelSftp.OVERWRITE),
+                            SftpBandwidthLimiter.getInstance(),
+                            host,
+                            priority)) {
+                while (true) {
+                    if (target.failed) {
+                        throw new IOException("Sftp分发上传已中止！", target.result.getCause());
+                    }
+                    Chunk chunk = target.queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (END == chunk) {
+                        break;
+                    }
+                    if (null != chunk) {
+                        out.write(chunk.data, 0, chunk.length);
+                        written += chunk.length;
+                        checksum = SftpChecksums.combine(checksum, chunk.checksum, chunk.length);
+                    } else if (target.detached) {
+                        // 队列已写完，之后的数据不会再放入队列
+                        Checksum rest = SftpChecksums.newChecksum();
+                        long copied = copyRest(target.localFile, written, out, rest);
+                        written += copied;
+                        checksum = SftpChecksums.combine(checksum, rest.getValue(), copied);
+                        break;
+                    }
+                }
+            }
+            long size =
+                    SftpMetrics.getInstance()
+                            .timeRequest(host, "stat", () -> channelSftp.stat(tmpFile))
+                            .getSize();
+            if (size != written || size != target.localFile.length()) {
+                throw new Exception(
+                        "Sftp分发上传 异常：目标文件["
+                                + tmpFile
+                                + "]大小["
+                                + size
+                                + "]与本地文件大小["
+                                + target.localFile.length()
+                                + "]不一致！");
+            }
+            replace(channelSftp, tmpFile, remoteFile);
+            target.result.setBytes(written);
+            target.result.setChecksum(checksum);
+            SftpMetrics.getInstance()
+                    .recordTransfer(host, "fanout-upload", written, System.nanoTime() - start);
+        } catch (Exception e) {
+            log.error("Sftp分发上传--->目标[{}] 异常：", destination, e);
+            target.fail(e);
+            SftpMetrics.getInstance().recordFailure(host, "fanout-upload");
+            if (null != lease) {
+                removeQuietly(lease.getChannel(), tmpFile);
+                if (!lease.getChannel().isConnected()) {
+                    lease.invalidate();
+                }
+            }
+        } finally {
+            target.queue.clear();
+            target.result.setCostMillis((System.nanoTime() - start) / 1000000L);
+            if (null != lease) {
+                lease.close();
+            }
+        }
+    }
+
+    /**
+     * 从指定位置读取本地文件剩余部分并写出
+     *
+     * @param localFile 本地文件
+     * @param position 起始位置
+     * @param out 输出流
+     * @param checksum 写出部分的校验和
+     * @return long 写出的字节数
+     * @throws IOException
+     */
+    private long copyRest(File localFile, long position, OutputStream out, Checksum checksum)
+            throws IOException {
+        long copied = 0L;
+        byte[] buffer = new byte[chunkSize];
+        try (RandomAccessFile raf = new RandomAccessFile(localFile, "r")) {
+            raf.seek(position);
+            int len;
+            while (-1 != (len = raf.read(buffer))) {
+                checksum.update(buffer, 0, len);
+                out.write(buffer, 0, len);
+                copied += len;
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * 临时文件改名为目标文件(目标文件已存在时先删除)
+     *
+     * @param channelSftp sftp通道
+     * @param tmpFile 临时文件
+     * @param remoteFile 目标文件
+     * @throws SftpException
+     */
+    private static void replace(ChannelSftp channelSftp, String tmpFile, String remoteFile)
+            throws SftpException {
+        try {
+            channelSftp.rm(remoteFile);
+        } catch (SftpException e) {
+            if (ChannelSftp.SSH_FX_NO_SUCH_FILE != e.id) {
+                throw e;
+            }
+        }
+        channelSftp.rename(tmpFile, remoteFile);
+    }
+
+    private static void removeQuietly(ChannelSftp channelSftp, String tmpFile) {
+        try {
+            if (channelSftp.isConnected()) {
+                channelSftp.rm(tmpFile);
+            }
+        } catch (SftpException e) {
+            log.debug("Sftp分发上传 删除临时文件[{}] 异常：{}", tmpFile, e.getMessage());
+        }
+    }
+
+    private static void awaitQuietly(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Sftp分发上传 写入线程异常：", e.getCause());
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int len = in.read(buffer, total, buffer.length - total);
+            if (-1 == len) {
+                break;
+            }
+            total += len;
+        }
+        return total;
+    }
+
+    /** 上传目标的运行状态 */
+    private static class Target {
+        /** 上传目标 */
+        private final Destination destination;
+        /** 本地文件 */
+        private final File localFile;
+        /** 待写出的数据块 */
+        private final BlockingQueue<Chunk> queue;
+        /** 处理结果 */
+        private final SftpTransferResult result;
+        /** 是否已摘出共享读取(之后自行读取本地文件) */
+        private volatile boolean detached = false;
+        /** 是否已失败 */
+        private volatile boolean failed = false;
+
+        Target(Destination destination, File localFile, int queueChunks) {
+            this.destination = destination;
+            this.localFile = localFile;
+            this.queue = new ArrayBlockingQueue<>(queueChunks);
+            this.result =
+                    new SftpTransferResult(localFile.getPath(), destination.toString(), 0L);
+        }
+
+        synchronized void fail(Exception e) {
+            if (!failed) {
+                result.setCause(e);
+                failed = true;
+            }
+        }
+    }
+
+    /** 只读共享的数据块 */
+    private static class Chunk {
+        /** 数据 */
+        private final byte[] data;
+        /** 有效长度 */
+        private final int length;
+        /** 有效数据的校验和 */
+        private final long checksum;
+
+        Chunk(byte[] data, int length, long checksum) {
+            this.data = data;
+            this.length = length;
+            this.checksum = checksum;
+        }
+    }
+}
@@ -0,0 +1,637 @@
+package common.core.utils;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Checksum;
+
+/**
+ * Sftp远程文件跟随读取(类似tail -f)：记住每个文件已消费的位置，每次只从该位置读取新追加的内容
+ *
+ * <p>只把以分隔符结尾的完整记录交给回调，文件末尾尚未写完的半条记录留到下次读取；已消费位置只前进到最后一条已回调记录的末尾，
+ * 因此回调返回false或异常时，未回调的记录下次仍会读到。文件变小(被截断)或开头内容变化(轮转为新文件，即使新文件已不小于原位置)时从头读取：
+ * 每个文件记住开头最多256字节的校验和，修改时间或大小变化时重新读取开头比较。超过最大长度的记录按OversizePolicy处理。
+ * 指定位置文件后，每次读取完成都把各文件的已消费位置保存到该文件，进程重启后继续从上次位置读取。
+ * 同一文件的读取互斥，后台读取期间手动poll同一文件时等待其完成后从新位置继续。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpFileFollower implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SftpFileFollower.class);
+
+    /** 默认单条记录最大长度(字节) */
+    public static final int DEFAULT_MAX_RECORD_LENGTH = 1024 * 1024;
+
+    /** 位置文件头 */
+    private static final String HEADER = "#sftp-follow-offsets v1";
+
+    /** 字段分隔符 */
+    private static final String SEPARATOR = "\t";
+
+    /** 读取缓冲区大小 */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 用于识别轮转的文件开头长度(字节) */
+    private static final int HEAD_LENGTH = 256;
+
+    /** 超过最大长度的记录的处理方式 */
+    public enum OversizePolicy {
+        /** 抛出异常，已消费位置停在该记录之前(每次读取都会失败，需setOffset跳过) */
+        FAIL,
+        /** 丢弃该记录并记录警告日志，已消费位置前进到该记录之后 */
+        SKIP,
+        /** 只把前maxRecordLength字节交给回调，其余丢弃并记录警告日志 */
+        TRUNCATE
+    }
+
+    /** 记录回调 */
+    @FunctionalInterface
+    public interface RecordHandler {
+
+        /**
+         * 处理一条完整记录
+         *
+         * @param remoteFile 远程文件
+         * @param offset 记录在文件中的起始位置(字节)
+         * @param record 记录内容(不含分隔符)
+         * @return boolean 返回false时停止本次读取，已消费位置停在该记录之后
+         * @throws Exception
+         */
+        boolean handle(String remoteFile, long offset, String record) throws Exception;
+    }
+
+    /** 连接池 */
+    private final SftpSessionPool pool;
+    /** 连接信息 */
+    private final SftpPoolKey key;
+    /** 字符集 */
+    private Charset charset = StandardCharsets.UTF_8;
+    /** 记录分隔符(为空按行拆分) */
+    private String delimiter;
+    /** 单条记录最大长度(字节) */
+    private int maxRecordLength = DEFAULT_MAX_RECORD_LENGTH;
+    /** 超长记录的处理方式 */
+    private OversizePolicy oversizePolicy = OversizePolicy.SKIP;
+    /** 首次读取没有位置记录的文件时是否从文件末尾开始 */
+    private boolean startFromEnd = false;
+    /** 传输优先级(用于带宽限制) */
+    private SftpBandwidthLimiter.Priority priority = SftpBandwidthLimiter.Priority.NORMAL;
+    /** 位置文件(为空不保存) */
+    private File offsetFile;
+
+    /** 远程文件 -> 已消费位置 */
+    private final Map<String, Long> offsets = new ConcurrentHashMap<>();
+
+    /** 远程文件 -> 文件开头的指纹(用于识别轮转) */
+    private final Map<String, Head> heads = new ConcurrentHashMap<>();
+
+    /** 远程文件 -> 读取锁(同一文件同时只有一个线程读取) */
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+
+    /** 定时读取线程 */
+    private ScheduledExecutorService scheduler;
+
+    public SftpFileFollower(SftpSessionPool pool, SftpPoolKey key) {
+        this.pool = pool;
+        this.key = key;
+    }
+
+    /**
+     * 以sftp对象的连接信息构造，读取使用其连接池中单独的通道
+     *
+     * @param sftpUtil sftp对象
+     */
+    public SftpFileFollower(SftpUtil sftpUtil) {
+        this(sftpUtil.getSessionPool(), sftpUtil.getPoolKey());
+    }
+
+    public SftpFileFollower charset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    /** 按行拆分记录(\n或\r\n) */
+    public SftpFileFollower lines() {
+        this.delimiter = null;
+        return this;
+    }
+
+    /**
+     * 按指定分隔符拆分记录
+     *
+     * @param delimiter 分隔符
+     * @return SftpFileFollower
+     */
+    public SftpFileFollower records(String delimiter) {
+        if (null == delimiter || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("记录分隔符不能为空！");
+        }
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    public SftpFileFollower maxRecordLength(int maxRecordLength) {
+        this.maxRecordLength = Math.max(1, maxRecordLength);
+        return this;
+    }
+
+    /**
+     * 超过最大长度的记录的处理方式，默认SKIP
+     *
+     * @param oversizePolicy 处理方式
+     * @return SftpFileFollower
+     */
+    public SftpFileFollower oversizePolicy(OversizePolicy oversizePolicy) {
+        this.oversizePolicy = oversizePolicy;
+        return this;
+    }
+
+    /**
+     * 没有位置记录的文件从当前末尾开始读取(只读之后追加的内容)，默认从头读取
+     *
+     * @param startFromEnd 是否从末尾开始
+     * @return SftpFileFollower
+     */
+    public SftpFileFollower startFromEnd(boolean startFromEnd) {
+        this.startFromEnd = startFromEnd;
+        return this;
+    }
+
+    public SftpFileFollower priority(SftpBandwidthLimiter.Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * 指定位置文件并读取其中已保存的位置
+     *
+     * @param offsetFile 位置文件
+     * @return SftpFileFollower
+     * @throws IOException
+     */
+    public SftpFileFollower offsetFile(File offsetFile) throws IOException {
+        this.offsetFile = offsetFile;
+        if (!offsetFile.isFile()) {
+            return this;
+        }
+        try (BufferedReader reader =
+                Files.newBufferedReader(offsetFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                // 位置、开头长度、开头校验和、修改时间、文件路径(已转义)
+                String[] fields = line.split(SEPARATOR, 5);
+                if (5 == fields.length) {
+                    String remoteFile = SftpSyncManifest.unescape(fields[4]);
+                    offsets.put(remoteFile, Long.parseLong(fields[0]));
+                    int headLength = Integer.parseInt(fields[1]);
+                    if (0 < headLength) {
+                        heads.put(
+                                remoteFile,
+                                new Head(
+                                        headLength,
+                                        Long.parseLong(fields[2], 16),
+                                        Integer.parseInt(fields[3]),
+                                        0L));
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 已消费位置
+     *
+     * @param remoteFile 远程文件
+     * @return long 没有位置记录时为-1
+     */
+    public long getOffset(String remoteFile) {
+        Long offset = offsets.get(remoteFile);
+        return null == offset ? -1L : offset;
+    }
+
+    /**
+     * 手动设置已消费位置(如重新消费)
+     *
+     * @param remoteFile 远程文件
+     * @param offset 位置(字节)
+     */
+    public void setOffset(String remoteFile, long offset) {
+        offsets.put(remoteFile, Math.max(0L, offset));
+        heads.remove(remoteFile);
+    }
+
+    /**
+     * 读取一次：从已消费位置读到当前文件末尾，逐条回调完整记录
+     *
+     * @param remoteFile 远程文件(绝对路径)
+     * @param handler 记录回调
+     * @return int 回调的记录数
+     * @throws Exception
+     */
+    public int poll(String remoteFile, RecordHandler handler) throws Exception {
+        try (SftpChannelLease lease = pool.borrow(key)) {
+            try {
+                return read(lease.getChannel(), remoteFile, handler);
+            } catch (Exception e) {
+                if (!lease.getChannel().isConnected()) {
+                    lease.invalidate();
+                }
+                throw e;
+            } finally {
+                // 回调异常时已回调的记录同样需要保存位置
+                saveOffsets();
+            }
+        }
+    }
+
+    /**
+     * 依次读取多个文件一次
+     *
+     * @param remoteFiles 远程文件(绝对路径)
+     * @param handler 记录回调
+     * @return int 回调的记录数
+     * @throws Exception 第一个读取失败的文件的异常(其他文件照常读取)
+     */
+    public int poll(Collection<String> remoteFiles, RecordHandler handler) throws Exception {
+        int count = 0;
+        Exception error = null;
+        try (SftpChannelLease lease = pool.borrow(key)) {
+            for (String remoteFile : remoteFiles) {
+                try {
+                    count += read(lease.getChannel(), remoteFile, handler);
+                } catch (Exception e) {
+                    log.error("Sftp跟随读取 文件[{}] 异常：", remoteFile, e);
+                    if (null == error) {
+                        error = e;
+                    }
+                    if (!lease.getChannel().isConnected()) {
+                        lease.invalidate();
+                        break;
+                    }
+                }
+            }
+        }
+        saveOffsets();
+        if (null != error) {
+            throw error;
+        }
+        return count;
+    }
+
+    /**
+     * 在后台线程中按固定间隔持续读取；读取异常只记录日志，下次继续
+     *
+     * @param remoteFiles 远程文件(绝对路径)
+     * @param intervalMillis 读取间隔(毫秒)
+     * @param handler 记录回调
+     */
+    public synchronized void start(
+            Collection<String> remoteFiles, long intervalMillis, RecordHandler handler) {
+        if (null != scheduler) {
+            throw new IllegalStateException("跟随读取已启动！");
+        }
+        List<String> files = new ArrayList<>(remoteFiles);
+        scheduler =
+                Executors.newSingleThreadScheduledExecutor(new SftpThreadFactory("sftp-follow"));
+        scheduler.scheduleWithFixedDelay(
+                () -> {
+                    try {
+                        poll(files, handler);
+                    } catch (Exception e) {
+                        log.error("Sftp跟随读取 异常：{}", e.getMessage());
+                    }
+                },
+                0L,
+                Math.max(1L, intervalMillis),
+                TimeUnit.MILLISECONDS);
+        log.info("Sftp跟随读取--->文件{}, 间隔[{}]毫秒--->开始读取！", files, intervalMillis);
+    }
+
+    /** 停止后台读取 */
+    @Override
+    public synchronized void close() {
+        if (null != scheduler) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            log.info("Sftp跟随读取--->停止读取！");
+        }
+    }
+
+    /**
+     * 从已消费位置读取到本次开始时的文件末尾
+     *
+     * @param channelSftp sftp通道
+     * @param remoteFile 远程文件
+     * @param handler 记录回调
+     * @return int 回调的记录数
+     * @throws Exception
+     */
+    private int read(ChannelSftp channelSftp, String remoteFile, RecordHandler handler)
+            throws Exception {
+        synchronized (locks.computeIfAbsent(remoteFile, file -> new Object())) {
+            return readLocked(channelSftp, remoteFile, handler);
+        }
+    }
+
+    private int readLocked(ChannelSftp channelSftp, String remoteFile, RecordHandler handler)
+            throws Exception {
+        String host = key.getHost();
+        SftpATTRS attrs =
+                SftpMetrics.getInstance()
+                        .timeRequest(host, "stat", () -> channelSftp.stat(remoteFile));
+        long size = attrs.getSize();
+        Long known = offsets.get(remoteFile);
+        long offset = null == known ? (startFromEnd ? size : 0L) : known;
+        if (offset > size) {
+            log.info("Sftp跟随读取--->文件[{}]已被截断或轮转({} -> {})，从头读取！", remoteFile, offset, size);
+            offset = 0L;
+            heads.remove(remoteFile);
+        } else if (0 < offset && rotated(channelSftp, remoteFile, offset, size, attrs.getMTime())) {
+            log.info("Sftp跟随读取--->文件[{}]开头内容已变化，视为轮转，从头读取！", remoteFile);
+            offset = 0L;
+        }
+        offsets.put(remoteFile, offset);
+        if (offset == size) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        byte[] separator = (null == delimiter ? "\n" : delimiter).getBytes(charset);
+        RecordBuffer record = new RecordBuffer();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        // 只读到本次stat时的末尾，之后追加的内容留到下次
+        long remaining = size - offset;
+        long transferred = 0L;
+        long recordStart = offset;
+        // 从头读取时顺便记下文件开头，作为之后识别轮转的指纹
+        byte[] headData = 0 == offset ? new byte[(int) Math.min(HEAD_LENGTH, size)] : null;
+        // 当前超长记录已丢弃的字节数，为-1表示当前记录未超长
+        long discarded = -1L;
+        int count = 0;
+        try (InputStream in =
+                new SftpThrottledInputStream(
+                        channelSftp.get(remoteFile, null, offset),
+                        SftpBandwidthLimiter.getInstance(),
+                        host,
+                        priority)) {
+            while (0 < remaining) {
+                int len = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (-1 == len) {
+                    break;
+                }
+                if (null != headData && transferred < headData.length) {
+                    System.arraycopy(
+                            buffer,
+                            0,
+                            headData,
+                            (int) transferred,
+                            (int) Math.min(len, headData.length - transferred));
+                }
+                remaining -= len;
+                transferred += len;
+                for (int i = 0; i < len; i++) {
+                    if (0 <= discarded && record.length == maxRecordLength + separator.length) {
+                        // 超长记录只保留前maxRecordLength字节和用于匹配分隔符的末尾字节
+                        record.dropAt(maxRecordLength);
+                        discarded++;
+                    }
+                    record.append(buffer[i]);
+                    if (!record.endsWith(separator)) {
+                        if (0 > discarded && record.length > maxRecordLength) {
+                            if (OversizePolicy.FAIL == oversizePolicy) {
+                                throw new IOException(
+                                        "Sftp跟随读取 异常：文件["
+                                                + remoteFile
+                                                + "]位置["
+                                                + recordStart
+                                                + "]的记录超过最大长度["
+                                                + maxRecordLength
+                                                + "]！");
+                            }
+                            discarded = 0L;
+                        }
+                        continue;
+                    }
+                    long next = recordStart + record.length + Math.max(0L, discarded);
+                    boolean goOn = true;
+                    if (0 > discarded) {
+                        goOn = handler.handle(remoteFile, recordStart, decode(record, separator));
+                        count++;
+                    } else {
+                        log.warn(
+                                "Sftp跟随读取--->文件[{}]位置[{}]的记录长度[{}]超过最大长度[{}]，{}！",
+                                remoteFile,
+                                recordStart,
+                                next - recordStart - separator.length,
+                                maxRecordLength,
+                                OversizePolicy.SKIP == oversizePolicy ? "已丢弃" : "已截断");
+                        if (OversizePolicy.TRUNCATE == oversizePolicy) {
+                            goOn =
+                                    handler.handle(
+                                            remoteFile,
+                                            recordStart,
+                                            new String(record.data, 0, maxRecordLength, charset));
+                            count++;
+                        }
+                        discarded = -1L;
+                    }
+                    offsets.put(remoteFile, next);
+                    recordStart = next;
+                    record.length = 0;
+                    if (!goOn) {
+                        remaining = 0L;
+                        break;
+                    }
+                }
+            }
+        }
+        if (null != headData) {
+            int length = (int) Math.min(headData.length, offsets.get(remoteFile));
+            Checksum checksum = SftpChecksums.newChecksum();
+            checksum.update(headData, 0, length);
+            heads.put(remoteFile, new Head(length, checksum.getValue(), attrs.getMTime(), size));
+        }
+        SftpMetrics.getInstance()
+                .recordTransfer(host, "follow", transferred, System.nanoTime() - start);
+        log.debug(
+                "Sftp跟随读取--->文件[{}], 位置[{} -> {}], 记录数[{}]",
+                remoteFile,
+                offset,
+                offsets.get(remoteFile),
+                count);
+        return count;
+    }
+
+    /**
+     * 比较文件开头与上次记录的指纹，判断文件是否已轮转为新文件；修改时间和大小都未变化时不重新读取
+     *
+     * @param channelSftp sftp通道
+     * @param remoteFile 远程文件
+     * @param offset 已消费位置(不大于文件大小)
+     * @param size 文件大小
+     * @param mtime 修改时间(秒)
+     * @return boolean 是否已轮转
+     * @throws Exception
+     */
+    private boolean rotated(
+            ChannelSftp channelSftp, String remoteFile, long offset, long size, int mtime)
+            throws Exception {
+        Head head = heads.get(remoteFile);
+        int length = (int) Math.min(HEAD_LENGTH, offset);
+        if (null != head && head.mtime == mtime && head.size == size && head.length == length) {
+            return false;
+        }
+        byte[] data = new byte[length];
+        int read = 0;
+        try (InputStream in = channelSftp.get(remoteFile, null, 0L)) {
+            while (read < length) {
+                int len = in.read(data, read, length - read);
+                if (-1 == len) {
+                    break;
+                }
+                read += len;
+            }
+        }
+        Checksum checksum = SftpChecksums.newChecksum();
+        if (null != head && head.length <= read) {
+            checksum.update(data, 0, head.length);
+            if (checksum.getValue() != head.checksum) {
+                heads.remove(remoteFile);
+                return true;
+            }
+        }
+        checksum.reset();
+        checksum.update(data, 0, read);
+        heads.put(remoteFile, new Head(read, checksum.getValue(), mtime, size));
+        return false;
+    }
+
+    /**
+     * 去掉分隔符(按行拆分时同时去掉行尾的\r)并解码
+     *
+     * @param record 记录
+     * @param separator 分隔符
+     * @return String
+     */
+    private String decode(RecordBuffer record, byte[] separator) {
+        int length = record.length - separator.length;
+        if (null == delimiter && 0 < length && '\r' == record.data[length - 1]) {
+            length--;
+        }
+        return new String(record.data, 0, length, charset);
+    }
+
+    /**
+     * 保存各文件的已消费位置(先写临时文件再替换)
+     *
+     * @throws IOException
+     */
+    private synchronized void saveOffsets() throws IOException {
+        if (null == offsetFile) {
+            return;
+        }
+        File tmp = new File(offsetFile.getPath() + ".tmp");
+        try (BufferedWriter writer =
+                Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, Long> item : new TreeMap<>(offsets).entrySet()) {
+                Head head = heads.get(item.getKey());
+                writer.write(
+                        item.getValue()
+                                + SEPARATOR
+                                + (null == head ? 0 : head.length)
+                                + SEPARATOR
+                                + Long.toHexString(null == head ? 0L : head.checksum)
+                                + SEPARATOR
+                                + (null == head ? 0 : head.mtime)
+                                + SEPARATOR
+                                + SftpSyncManifest.escape(item.getKey()));
+                writer.newLine();
+            }
+        }
+        Files.move(tmp.toPath(), offsetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** 文件开头的指纹 */
+    private static class Head {
+        /** 参与校验的开头长度(字节) */
+        private final int length;
+        /** 开头的校验和 */
+        private final long checksum;
+        /** 记录指纹时的修改时间(秒) */
+        private final int mtime;
+        /** 记录指纹时的文件大小(从位置文件读取时未知，为0) */
+        private final long size;
+
+        Head(int length, long checksum, int mtime, long size) {
+            this.length = length;
+            this.checksum = checksum;
+            this.mtime = mtime;
+            this.size = size;
+        }
+    }
+
+    /** 按字节累积的记录 */
+    private static class RecordBuffer {
+        /** 数据 */
+        private byte[] data = new byte[256];
+        /** 有效长度 */
+        private int length;
+
+        void append(byte b) {
+            if (length == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[length++] = b;
+        }
+
+        /** 丢弃指定位置的一个字节，其后的字节前移 */
+        void dropAt(int index) {
+            System.arraycopy(data, index + 1, data, index, length - index - 1);
+            length--;
+        }
+
+        boolean endsWith(byte[] separator) {
+            int offset = length - separator.length;
+            if (0 > offset) {
+                return false;
+            }
+            for (int i = 0; i < separator.length; i++) {
+                if (data[offset + i] != separator[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -21,6 +21,8 @@ public class SftpLsEntry implements Serializable {
     protected boolean isDir;
     /** 文件大小 */
     private long fileSize;
+    /** 最后修改时间(秒) */
+    private long modifyTime;
 
     public SftpLsEntry() {
         super();
@@ -34,7 +36,13 @@ public class SftpLsEntry implements Serializable {
         this.fileSize = fileSize;
     }
 
-    protected String getFileName() {
+    public SftpLsEntry(
+            String fileName, String path, boolean isDir, long fileSize, long modifyTime) {
+        this(fileName, path, isDir, fileSize);
+        this.modifyTime = modifyTime;
+    }
+
+    public String getFileName() {
         return fileName;
     }
 
@@ -42,7 +50,7 @@ public class SftpLsEntry implements Serializable {
         this.fileName = fileName;
     }
 
-    protected String getPath() {
+    public String getPath() {
         return path;
     }
 
@@ -50,7 +58,7 @@ public class SftpLsEntry implements Serializable {
         this.path = path;
     }
 
-    protected boolean isDir() {
+    public boolean isDir() {
         return isDir;
     }
 
@@ -58,7 +66,7 @@ public class SftpLsEntry implements Serializable {
         this.isDir = isDir;
     }
 
-    protected long getFileSize() {
+    public long getFileSize() {
         return fileSize;
     }
 
@@ -66,6 +74,14 @@ public class SftpLsEntry implements Serializable {
         this.fileSize = fileSize;
     }
 
+    public long getModifyTime() {
+        return modifyTime;
+    }
+
+    protected void setModifyTime(long modifyTime) {
+        this.modifyTime = modifyTime;
+    }
+
     @Override
     public String toString() {
         return "SftpLsEntry [fileName="
@@ -76,6 +92,8 @@ public class SftpLsEntry implements Serializable {
                 + isDir
                 + ", fileSize="
                 + fileSize
+                + ", modifyTime="
+                + modifyTime
                 + "]";
     }
 }
@@ -0,0 +1,20 @@
+package common.core.utils;
+
+/**
+ * Sftp流式列目录回调(每收到一条目录项回调一次，不在内存中保存整个目录列表)
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface SftpLsEntryHandler {
+
+    /**
+     * 处理一条目录项
+     *
+     * @param entry 目录项
+     * @return true继续列出，false立即停止
+     */
+    boolean handle(SftpLsEntry entry);
+}
@@ -0,0 +1,151 @@
+package common.core.utils;
+
+import com.jcraft.jsch.SftpException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sftp指标采集(Micrometer)，所有指标带host和operation标签
+ *
+ * <p>默认注册到Metrics.globalRegistry：Spring Boot默认把actuator的MeterRegistry加入全局注册表，普通Java程序可自行向全局注册表添加实现，
+ * 也可以通过bindTo指定注册表。
+ *
+ * <ul>
+ *   <li>sftp.connect：建立会话和通道的耗时(outcome=success/failure)
+ *   <li>sftp.request：ls/lstat/stat等请求的耗时
+ *   <li>sftp.transfer.duration：单个文件传输耗时
+ *   <li>sftp.transfer.bytes：单个文件传输字节数
+ *   <li>sftp.transfer.throughput：单个文件传输速率(字节/秒)
+ *   <li>sftp.transfer.failures：传输失败次数
+ * </ul>
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpMetrics {
+
+    /** 当前使用的指标采集对象 */
+    private static volatile SftpMetrics instance = new SftpMetrics(Metrics.globalRegistry);
+
+    /** 指标注册表 */
+    private final MeterRegistry registry;
+
+    public SftpMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public static SftpMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * 改为向指定注册表(如Spring容器中的MeterRegistry)记录指标
+     *
+     * @param registry 指标注册表
+     */
+    public static void bindTo(MeterRegistry registry) {
+        instance = new SftpMetrics(registry);
+    }
+
+    /** 可能抛出SftpException的sftp请求 */
+    @FunctionalInterface
+    public interface SftpCall<T> {
+        T call() throws SftpException;
+    }
+
+    /**
+     * 记录建立连接耗时
+     *
+     * @param host 主机
+     * @param nanos 耗时(纳秒)
+     * @param success 是否成功
+     */
+    public void recordConnect(String host, long nanos, boolean success) {
+        Timer.builder("sftp.connect")
+                .description("SFTP会话及通道建立耗时")
+                .tags(Tags.of("host", host, "operation", "connect"))
+                .tag("outcome", success ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 执行sftp请求并记录耗时
+     *
+     * @param host 主机
+     * @param operation 操作(ls、lstat、stat等)
+     * @param call sftp请求
+     * @return T
+     * @throws SftpException
+     */
+    public <T> T timeRequest(String host, String operation, SftpCall<T> call)
+            throws SftpException {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            Timer.builder("sftp.request")
+                    .description("SFTP请求耗时")
+                    .tags(Tags.of("host", host, "operation", operation))
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 记录单个文件传输
+     *
+     * @param host 主机
+     * @param operation 操作(upload、download等)
+     * @param bytes 传输字节数
+     * @param nanos 耗时(纳秒)
+     */
+    public void recordTransfer(String host, String operation, long bytes, long nanos) {
+        Tags tags = Tags.of("host", host, "operation", operation);
+        Timer.builder("sftp.transfer.duration")
+                .description("SFTP单个文件传输耗时")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("sftp.transfer.bytes")
+                .description("SFTP单个文件传输字节数")
+                .baseUnit("bytes")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(bytes);
+        if (0 < nanos) {
+            DistributionSummary.builder("sftp.transfer.throughput")
+                    .description("SFTP单个文件传输速率")
+                    .baseUnit("bytes/s")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(bytes / (nanos / 1e9));
+        }
+    }
+
+    /**
+     * 记录传输失败
+     *
+     * @param host 主机
+     * @param operation 操作
+     */
+    public void recordFailure(String host, String operation) {
+        Counter.builder("sftp.transfer.failures")
+                .description("SFTP传输失败次数")
+                .tags(Tags.of("host", host, "operation", operation))
+                .register(registry)
+                .increment();
+    }
+}
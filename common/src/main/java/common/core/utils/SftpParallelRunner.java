@@ -0,0 +1,247 @@
+package common.core.utils;
+
+import com.jcraft.jsch.ChannelSftp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Sftp多通道并行处理器
+ *
+ * <p>每个工作线程从连接池借出一个通道，按列表顺序从共享队列中领取文件处理，直到队列为空。 列表按文件大小倒序排列时即为"最长任务优先"调度，可缩短整体完成时间。
+ * 单个文件失败只记录在结果中，不影响其他文件。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public final class SftpParallelRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SftpParallelRunner.class);
+
+    private SftpParallelRunner() {}
+
+    /** 在已借出的通道上处理单个文件 */
+    public interface ChannelTask {
+
+        /**
+         * 处理单个文件
+         *
+         * @param sftp sftp通道
+         * @param item 待处理文件
+         * @return 实际传输字节数
+         * @throws Exception
+         */
+        long execute(ChannelSftp sftp, SftpTransferResult item) throws Exception;
+    }
+
+    /**
+     * 按连接池每主机会话上限约束并发数
+     *
+     * @param pool 连接池
+     * @param threads 期望并发数
+     * @return int
+     */
+    public static int boundedThreads(SftpSessionPool pool, int threads) {
+        int count = Math.max(1, threads);
+        int max = pool.getMaxPerHost();
+        return 0 < max ? Math.min(count, max) : count;
+    }
+
+    /**
+     * 多通道并行处理文件列表
+     *
+     * @param pool 连接池
+     * @param key 连接信息
+     * @param threads 并发数
+     * @param items 待处理文件(按领取顺序排列)
+     * @param operation 操作名称(用于线程名和指标标签)
+     * @param task 单个文件处理逻辑
+     * @return List<SftpTransferResult> 与items相同的对象，已填充耗时与失败原因
+     * @throws InterruptedException
+     */
+    public static List<SftpTransferResult> run(
+            SftpSessionPool pool,
+            SftpPoolKey key,
+            int threads,
+            List<SftpTransferResult> items,
+            String operation,
+            ChannelTask task)
+            throws InterruptedException {
+        return run(pool, item -> key, threads, items, operation, task, true);
+    }
+
+    /**
+     * 多通道并行处理文件列表，每个文件使用各自的连接信息(如按扩展名区分压缩与不压缩会话)
+     *
+     * <p>所有文件共用一个队列按列表顺序领取，工作线程领取到的文件与当前通道的连接信息不同时归还当前通道并借出对应通道。
+     *
+     * @param pool 连接池
+     * @param keyFor 文件 -> 连接信息
+     * @param threads 并发数
+     * @param items 待处理文件(按领取顺序排列)
+     * @param operation 操作名称(用于线程名和指标标签)
+     * @param task 单个文件处理逻辑
+     * @return List<SftpTransferResult> 与items相同的对象，已填充耗时与失败原因
+     * @throws InterruptedException
+     */
+    public static List<SftpTransferResult> run(
+            SftpSessionPool pool,
+            Function<SftpTransferResult, SftpPoolKey> keyFor,
+            int threads,
+            List<SftpTransferResult> items,
+            String operation,
+            ChannelTask task)
+            throws InterruptedException {
+        return run(pool, keyFor, threads, items, operation, task, true);
+    }
+
+    /**
+     * 多通道并行执行删除、重命名等元数据请求：不记录传输指标(请求耗时由任务自行通过timeRequest记录)
+     *
+     * @param pool 连接池
+     * @param key 连接信息
+     * @param threads 并发数
+     * @param items 待处理文件(按领取顺序排列)
+     * @param operation 操作名称(用于线程名)
+     * @param task 单个文件处理逻辑
+     * @return List<SftpTransferResult> 与items相同的对象，已填充耗时与失败原因
+     * @throws InterruptedException
+     */
+    public static List<SftpTransferResult> runRequests(
+            SftpSessionPool pool,
+            SftpPoolKey key,
+            int threads,
+            List<SftpTransferResult> items,
+            String operation,
+            ChannelTask task)
+            throws InterruptedException {
+        return run(pool, item -> key, threads, items, operation, task, false);
+    }
+
+    private static List<SftpTransferResult> run(
+            SftpSessionPool pool,
+            Function<SftpTransferResult, SftpPoolKey> keyFor,
+            int threads,
+            List<SftpTransferResult> items,
+            String operation,
+            ChannelTask task,
+            boolean transfer)
+            throws InterruptedException {
+        if (items.isEmpty()) {
+            return items;
+        }
+        int workers = Math.min(boundedThreads(pool, threads), items.size());
+        Queue<SftpTransferResult> queue = new ConcurrentLinkedQueue<>(items);
+        AtomicReference<Exception> borrowError = new AtomicReference<>();
+        ExecutorService executor =
+                Executors.newFixedThreadPool(workers, new SftpThreadFactory("sftp-" + operation));
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(
+                        executor.submit(
+                                () -> work(pool, keyFor, operation, transfer, queue, task, borrowError)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("Sftp并行处理[{}] 工作线程异常：", operation, e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // 所有工作线程都未能借出通道时，剩余文件记为失败
+        SftpTransferResult left;
+        while (null != (left = queue.poll())) {
+            Exception e = borrowError.get();
+            left.setCause(null != e ? e : new Exception("Sftp并行处理未获取到可用通道！"));
+        }
+        return items;
+    }
+
+    /**
+     * 工作线程：借出通道后循环领取文件，通道断开或文件需要其他连接信息时更换通道
+     *
+     * @param pool 连接池
+     * @param keyFor 文件 -> 连接信息
+     * @param operation 操作名称
+     * @param transfer 是否记录传输指标
+     * @param queue 待处理队列
+     * @param task 单个文件处理逻辑
+     * @param borrowError 借出通道失败原因
+     */
+    private static void work(
+            SftpSessionPool pool,
+            Function<SftpTransferResult, SftpPoolKey> keyFor,
+            String operation,
+            boolean transfer,
+            Queue<SftpTransferResult> queue,
+            ChannelTask task,
+            AtomicReference<Exception> borrowError) {
+        SftpChannelLease lease = null;
+        try {
+            SftpTransferResult item;
+            while (!Thread.currentThread().isInterrupted() && null != (item = queue.poll())) {
+                SftpPoolKey key = keyFor.apply(item);
+                if (null != lease && !key.equals(lease.getKey())) {
+                    // 归还后再借出，同一主机的会话名额不会被一个线程占用两个
+                    lease.close();
+                    lease = null;
+                }
+                if (null == lease) {
+                    try {
+                        lease = pool.borrow(key);
+                    } catch (Exception e) {
+                        // 放回队列交给其他已持有通道的工作线程，全部线程都借不到时由调用方记为失败
+                        log.error("Sftp并行处理 借出通道[{}] 异常：", key, e);
+                        borrowError.set(e);
+                        queue.add(item);
+                        return;
+                    }
+                }
+                long start = System.nanoTime();
+                try {
+                    item.setBytes(task.execute(lease.getChannel(), item));
+                    if (transfer) {
+                        SftpMetrics.getInstance()
+                                .recordTransfer(
+                                        key.getHost(),
+                                        operation,
+                                        item.getBytes(),
+                                        System.nanoTime() - start);
+                    }
+                } catch (Exception e) {
+                    log.error("Sftp并行处理 文件[{}] 异常：", item.getSource(), e);
+                    item.setCause(e);
+                    if (transfer) {
+                        SftpMetrics.getInstance().recordFailure(key.getHost(), operation);
+                    }
+                    if (!lease.getChannel().isConnected()) {
+                        lease.invalidate();
+                        lease.close();
+                        lease = null;
+                    }
+                } finally {
+                    item.setCostMillis((System.nanoTime() - start) / 1000000L);
+                }
+            }
+        } finally {
+            if (null != lease) {
+                lease.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package common.core.utils;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+/**
+ * Sftp连接池的键(同一主机、端口、用户共用一组会话)
+ *
+ * <p>登录密码与私钥以SHA-256指纹参与键的比较，凭据不同的键不会拿到按其他凭据认证过的会话；
+ * 压缩级别不同的会话分属不同的键，压缩与不压缩的会话互不混用。凭据及其指纹都不参与序列化。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpPoolKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 服务器IP地址 */
+    private final String host;
+    /** 端口 */
+    private final int port;
+    /** 登录用户名 */
+    private final String userName;
+    /** 登录密码 */
+    private final transient String passWord;
+    /** 私钥 */
+    private final transient String privateKey;
+    /** 登录密码与私钥的指纹 */
+    private final transient String credentialFingerprint;
+    /** zlib压缩级别(1-9)，0表示不压缩 */
+    private final int compressionLevel;
+
+    /**
+     * 构造连接池键
+     *
+     * @param userName 登录用户名
+     * @param passWord 登录密码
+     * @param privateKey 私钥
+     * @param host IP地址
+     * @param port 端口
+     */
+    public SftpPoolKey(String userName, String passWord, String privateKey, String host, int port) {
+        this(userName, passWord, privateKey, host, port, 0);
+    }
+
+    /**
+     * 构造连接池键
+     *
+     * @param userName 登录用户名
+     * @param passWord 登录密码
+     * @param privateKey 私钥
+     * @param host IP地址
+     * @param port 端口
+     * @param compressionLevel zlib压缩级别(1-9)，0表示不压缩
+     */
+    public SftpPoolKey(
+            String userName,
+            String passWord,
+            String privateKey,
+            String host,
+            int port,
+            int compressionLevel) {
+        if (0 > compressionLevel || 9 < compressionLevel) {
+            throw new IllegalArgumentException("压缩级别[" + compressionLevel + "]应在0-9之间！");
+        }
+        this.userName = userName;
+        this.passWord = passWord;
+        this.privateKey = privateKey;
+        this.host = host;
+        this.port = port;
+        this.compressionLevel = compressionLevel;
+        this.credentialFingerprint = fingerprint(passWord, privateKey);
+    }
+
+    /**
+     * 计算登录密码与私钥的指纹(区分为空与空字符串)
+     *
+     * @param passWord 登录密码
+     * @param privateKey 私钥
+     * @return String
+     */
+    private static String fingerprint(String passWord, String privateKey) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持SHA-256！", e);
+        }
+        for (String value : new String[] {passWord, privateKey}) {
+            if (null == value) {
+                digest.update((byte) 0);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                digest.update((byte) 1);
+                digest.update(
+                        new byte[] {
+                            (byte) (bytes.length >>> 24),
+                            (byte) (bytes.length >>> 16),
+                            (byte) (bytes.length >>> 8),
+                            (byte) bytes.length
+                        });
+                digest.update(bytes);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >>> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 获取相同连接信息、指定压缩级别的键
+     *
+     * @param level zlib压缩级别(1-9)，0表示不压缩
+     * @return SftpPoolKey
+     */
+    public SftpPoolKey withCompression(int level) {
+        if (level == compressionLevel) {
+            return this;
+        }
+        return new SftpPoolKey(this, level);
+    }
+
+    /**
+     * 复制连接信息(沿用已计算的凭据指纹)
+     *
+     * @param source 原键
+     * @param compressionLevel zlib压缩级别(1-9)，0表示不压缩
+     */
+    private SftpPoolKey(SftpPoolKey source, int compressionLevel) {
+        if (0 > compressionLevel || 9 < compressionLevel) {
+            throw new IllegalArgumentException("压缩级别[" + compressionLevel + "]应在0-9之间！");
+        }
+        this.userName = source.userName;
+        this.passWord = source.passWord;
+        this.privateKey = source.privateKey;
+        this.host = source.host;
+        this.port = source.port;
+        this.compressionLevel = compressionLevel;
+        this.credentialFingerprint = source.credentialFingerprint;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getPassWord() {
+        return passWord;
+    }
+
+    public String getPrivateKey() {
+        return privateKey;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public boolean isCompressed() {
+        return 0 < compressionLevel;
+    }
+
+    /**
+     * 主机标识(主机:端口)，同一主机的所有键共用每主机会话上限
+     *
+     * @return String
+     */
+    public String getHostAddress() {
+        return host + ":" + port;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SftpPoolKey)) {
+            return false;
+        }
+        SftpPoolKey that = (SftpPoolKey) o;
+        return port == that.port
+                && compressionLevel == that.compressionLevel
+                && Objects.equals(host, that.host)
+                && Objects.equals(userName, that.userName)
+                && Objects.equals(credentialFingerprint, that.credentialFingerprint);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(host, port, userName, compressionLevel, credentialFingerprint);
+    }
+
+    @Override
+    public String toString() {
+        String value = userName + "@" + host + ":" + port;
+        return isCompressed() ? value + "?compression=" + compressionLevel : value;
+    }
+}
@@ -0,0 +1,102 @@
+package common.core.utils;
+
+import java.io.Serializable;
+
+/**
+ * Sftp连接池统计信息快照
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpPoolStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 借出次数 */
+    private final long borrowCount;
+    /** 命中次数(复用空闲连接) */
+    private final long hitCount;
+    /** 未命中次数(新建连接) */
+    private final long missCount;
+    /** 平均等待时间(毫秒) */
+    private final double meanWaitMillis;
+    /** 最大等待时间(毫秒) */
+    private final long maxWaitMillis;
+    /** 使用中的连接数 */
+    private final int numActive;
+    /** 空闲的连接数 */
+    private final int numIdle;
+
+    public SftpPoolStats(
+            long borrowCount,
+            long missCount,
+            double meanWaitMillis,
+            long maxWaitMillis,
+            int numActive,
+            int numIdle) {
+        this.borrowCount = borrowCount;
+        this.missCount = missCount;
+        this.hitCount = Math.max(0L, borrowCount - missCount);
+        this.meanWaitMillis = meanWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.numActive = numActive;
+        this.numIdle = numIdle;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 命中率
+     *
+     * @return double 0~1
+     */
+    public double getHitRatio() {
+        return 0 == borrowCount ? 0D : (double) hitCount / borrowCount;
+    }
+
+    public double getMeanWaitMillis() {
+        return meanWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public int getNumActive() {
+        return numActive;
+    }
+
+    public int getNumIdle() {
+        return numIdle;
+    }
+
+    @Override
+    public String toString() {
+        return "SftpPoolStats [borrowCount="
+                + borrowCount
+                + ", hitCount="
+                + hitCount
+                + ", missCount="
+                + missCount
+                + ", meanWaitMillis="
+                + meanWaitMillis
+                + ", maxWaitMillis="
+                + maxWaitMillis
+                + ", numActive="
+                + numActive
+                + ", numIdle="
+                + numIdle
+                + "]";
+    }
+}
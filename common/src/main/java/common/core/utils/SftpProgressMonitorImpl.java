@@ -14,7 +14,9 @@ import java.util.TimerTask;
  * @author chaoxy
  * @date 2019/05/13
  * @version 1.0
+ * @deprecated 每个实例各启动一个Timer线程，并发传输时线程数过多，请使用 {@link SftpTransferMonitor}
  */
+@Deprecated
 public class SftpProgressMonitorImpl extends TimerTask implements com.jcraft.jsch.SftpProgressMonitor {
 
     private static final Logger LOG = LoggerFactory.getLogger(SftpProgressMonitorImpl.class);
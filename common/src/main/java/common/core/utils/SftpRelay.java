@@ -0,0 +1,488 @@
+package common.core.utils;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Checksum;
+
+/**
+ * Sftp服务器之间直接中转文件，不经过本地磁盘
+ *
+ * <p>每个文件由工作线程从源通道get读取，写入固定数量、固定大小的缓冲块组成的环形缓冲区，中转线程同时从缓冲区取出数据put到目标通道；
+ * 读写互相重叠，缓冲区满时读取暂停，内存占用为"并发数 x 缓冲块数 x 缓冲块大小"。
+ * 文件先写入目标临时文件，大小一致(及校验和一致)后再改名为目标文件名，失败时删除临时文件。
+ *
+ * <p>源和目标使用同一个连接池；源和目标为同一主机时每个文件占用该主机两个通道，并发数按每主机会话上限的一半约束。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(SftpRelay.class);
+
+    /** 默认缓冲块大小：256KB */
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    /** 默认每个文件的缓冲块数 */
+    public static final int DEFAULT_CHUNKS = 8;
+
+    /** 目标临时文件后缀 */
+    private static final String RELAYING_SUFFIX = ".relaying";
+
+    /** 缓冲块等待的检查间隔(毫秒) */
+    private static final long POLL_MILLIS = 100L;
+
+    /** 连接池 */
+    private final SftpSessionPool pool;
+    /** 源服务器连接信息 */
+    private final SftpPoolKey sourceKey;
+    /** 目标服务器连接信息 */
+    private final SftpPoolKey targetKey;
+    /** 缓冲块大小 */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    /** 每个文件的缓冲块数 */
+    private int chunks = DEFAULT_CHUNKS;
+    /** 是否回读目标文件比对校验和 */
+    private boolean verifyChecksum = true;
+    /** 传输优先级(按源主机限速) */
+    private SftpBandwidthLimiter.Priority priority = SftpBandwidthLimiter.Priority.NORMAL;
+    /** 已确认存在的目标目录 */
+    private final SftpRemoteDirCache targetDirs = new SftpRemoteDirCache();
+
+    /**
+     * 构造中转对象
+     *
+     * @param pool 连接池
+     * @param sourceKey 源服务器连接信息
+     * @param targetKey 目标服务器连接信息
+     */
+    public SftpRelay(SftpSessionPool pool, SftpPoolKey sourceKey, SftpPoolKey targetKey) {
+        this.pool = pool;
+        this.sourceKey = sourceKey;
+        this.targetKey = targetKey;
+    }
+
+    public SftpRelay chunkSize(int chunkSize) {
+        this.chunkSize = Math.max(8 * 1024, chunkSize);
+        return this;
+    }
+
+    public SftpRelay chunks(int chunks) {
+        this.chunks = Math.max(2, chunks);
+        return this;
+    }
+
+    /**
+     * 传输完成后是否回读目标文件比对CRC32校验和(默认开启；关闭时只比对大小)
+     *
+     * @param verifyChecksum 是否比对校验和
+     * @return SftpRelay
+     */
+    public SftpRelay verifyChecksum(boolean verifyChecksum) {
+        this.verifyChecksum = verifyChecksum;
+        return this;
+    }
+
+    public SftpRelay priority(SftpBandwidthLimiter.Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * 中转单个文件
+     *
+     * @param sourceFile 源文件(绝对路径)
+     * @param targetFile 目标文件(绝对路径)
+     * @return SftpTransferResult
+     * @throws Exception
+     */
+    public SftpTransferResult relayFile(String sourceFile, String targetFile) throws Exception {
+        List<SftpTransferResult> items = new ArrayList<>(1);
+        items.add(new SftpTransferResult(sourceFile, targetFile, 0L));
+        SftpTransferResult result = relay(items, 1).get(0);
+        if (!result.isSuccess()) {
+            throw new Exception("Sftp中转文件[" + sourceFile + "] 异常！", result.getCause());
+        }
+        return result;
+    }
+
+    /**
+     * 多通道并行中转目录下的文件(不含子目录)，大文件优先
+     *
+     * @param sourceDir 源目录
+     * @param targetDir 目标目录
+     * @param nameRegex 文件名过滤规则(正则，为空不过滤)
+     * @param threads 并发文件数
+     * @return SftpBatchReport
+     * @throws Exception
+     */
+    public SftpBatchReport relayBatch(
+            String sourceDir, String targetDir, String nameRegex, int threads) throws Exception {
+        log.info(
+                "Sftp中转--->源[{}:{}], 目标[{}:{}], 并发数[{}]--->开始处理！",
+                sourceKey.getHost(),
+                sourceDir,
+                targetKey.getHost(),
+                targetDir,
+                threads);
+        long start = System.currentTimeMillis();
+        String sourceRoot = SftpUtil.getAbsolutePath(sourceDir);
+        String targetRoot = SftpUtil.getAbsolutePath(targetDir);
+        List<SftpLsEntry> entries = new ArrayList<>();
+        try (SftpChannelLease lease = pool.borrow(sourceKey)) {
+            SftpUtil.listEntries(
+                    lease.getChannel(),
+                    sourceRoot,
+                    nameRegex,
+                    true,
+                    entry -> {
+                        if (!entry.isDir()) {
+                            entries.add(entry);
+                        }
+                        return true;
+                    });
+        }
+        entries.sort((a, b) -> Long.compare(b.getFileSize(), a.getFileSize()));
+        List<SftpTransferResult> items = new ArrayList<>(entries.size());
+        for (SftpLsEntry entry : entries) {
+            items.add(
+                    new SftpTransferResult(
+                            sourceRoot + entry.getFileName(),
+                            targetRoot + entry.getFileName(),
+                            entry.getFileSize()));
+        }
+        SftpBatchReport report =
+                new SftpBatchReport(relay(items, threads), System.currentTimeMillis() - start);
+        log.info(
+                "Sftp中转--->源[{}:{}], 目标[{}:{}]--->处理完成：{}",
+                sourceKey.getHost(),
+                sourceDir,
+                targetKey.getHost(),
+                targetDir,
+                report);
+        return report;
+    }
+
+    /**
+     * 并行中转文件列表：工作线程持有源通道读取，中转线程持有目标通道写入
+     *
+     * @param items 待中转文件
+     * @param threads 并发文件数
+     * @return List<SftpTransferResult>
+     * @throws InterruptedException
+     */
+    private List<SftpTransferResult> relay(List<SftpTransferResult> items, int threads)
+            throws InterruptedException {
+        if (items.isEmpty()) {
+            return items;
+        }
+        int workers = SftpParallelRunner.boundedThreads(pool, threads);
+        int max = pool.getMaxPerHost();
+        if (sourceKey.getHostAddress().equals(targetKey.getHostAddress()) && 0 < max) {
+            workers = Math.max(1, Math.min(workers, max / 2));
+        }
+        workers = Math.min(workers, items.size());
+        ExecutorService writers =
+                Executors.newFixedThreadPool(workers, new SftpThreadFactory("sftp-relay-writer"));
+        try {
+            return SftpParallelRunner.run(
+                    pool,
+                    sourceKey,
+                    workers,
+                    items,
+                    "relay",
+                    (channelSftp, item) -> relayOne(channelSftp, item, writers));
+        } finally {
+            writers.shutdownNow();
+        }
+    }
+
+    /**
+     * 中转单个文件
+     *
+     * @param source 源通道
+     * @param item 待中转文件
+     * @param writers 中转线程池
+     * @return long 传输字节数
+     * @throws Exception
+     */
+    private long relayOne(ChannelSftp source, SftpTransferResult item, ExecutorService writers)
+            throws Exception {
+        String tmpFile = item.getTarget() + RELAYING_SUFFIX;
+        String targetDir = item.getTarget().substring(0, item.getTarget().lastIndexOf('/') + 1);
+        SftpChannelLease lease = pool.borrow(targetKey);
+        ChannelSftp target = lease.getChannel();
+        try {
+            targetDirs.ensureDir(target, targetDir);
+            BufferRing ring = new BufferRing(chunks, chunkSize);
+            Future<?> writer =
+                    writers.submit(
+                            () -> {
+                                try (OutputStream out =
+                                        target.put(tmpFile, ChannelSftp.OVERWRITE)) {
+                                    ring.drainTo(out);
+                                } catch (Exception e) {
+                                    ring.abort(e);
+                                    throw e;
+                                }
+                                return null;
+                            });
+            Checksum checksum = SftpChecksums.newChecksum();
+            long bytes;
+            try (InputStream in =
+                    new SftpThrottledInputStream(
+                            source.get(item.getSource()),
+                            SftpBandwidthLimiter.getInstance(),
+                            sourceKey.getHost(),
+                            priority)) {
+                bytes = ring.fill(in, checksum);
+            } catch (Exception e) {
+                ring.abort(e);
+                awaitQuietly(writer);
+                // 写入先失败时读取方收到的是中止异常，抛出最先发生的异常
+                throw ring.getCause();
+            }
+            try {
+                writer.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+            verify(target, tmpFile, bytes, checksum.getValue());
+            replace(target, tmpFile, item.getTarget());
+            item.setChecksum(checksum.getValue());
+            return bytes;
+        } catch (Exception e) {
+            removeQuietly(target, tmpFile);
+            if (!target.isConnected()) {
+                lease.invalidate();
+            }
+            throw e;
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * 比对目标临时文件的大小，开启校验时回读目标文件比对校验和
+     *
+     * @param target 目标通道
+     * @param tmpFile 目标临时文件
+     * @param bytes 读取的字节数
+     * @param checksum 读取数据的校验和
+     * @throws Exception
+     */
+    private void verify(ChannelSftp target, String tmpFile, long bytes, long checksum)
+            throws Exception {
+        long size =
+                SftpMetrics.getInstance()
+                        .timeRequest(targetKey.getHost(), "stat", () -> target.stat(tmpFile))
+                        .getSize();
+        if (size != bytes) {
+            throw new Exception(
+                    "Sftp中转 异常：目标文件["
+                            + tmpFile
+                            + "]大小["
+                            + size
+                            + "]与源文件读取大小["
+                            + bytes
+                            + "]不一致！");
+        }
+        if (!verifyChecksum) {
+            return;
+        }
+        Checksum written = SftpChecksums.newChecksum();
+        byte[] buffer = new byte[chunkSize];
+        try (InputStream in = target.get(tmpFile)) {
+            int len;
+            while (-1 != (len = in.read(buffer))) {
+                written.update(buffer, 0, len);
+            }
+        }
+        if (written.getValue() != checksum) {
+            throw new Exception(
+                    "Sftp中转 异常：目标文件["
+                            + tmpFile
+                            + "]校验和["
+                            + SftpChecksums.toHex(written.getValue())
+                            + "]与源文件["
+                            + SftpChecksums.toHex(checksum)
+                            + "]不一致！");
+        }
+    }
+
+    /**
+     * 临时文件改名为目标文件(目标文件已存在时先删除)
+     *
+     * @param target 目标通道
+     * @param tmpFile 临时文件
+     * @param targetFile 目标文件
+     * @throws SftpException
+     */
+    private void replace(ChannelSftp target, String tmpFile, String targetFile)
+            throws SftpException {
+        try {
+            target.rm(targetFile);
+        } catch (SftpException e) {
+            if (ChannelSftp.SSH_FX_NO_SUCH_FILE != e.id) {
+                throw e;
+            }
+        }
+        SftpMetrics.getInstance()
+                .timeRequest(
+                        targetKey.getHost(),
+                        "rename",
+                        () -> {
+                            target.rename(tmpFile, targetFile);
+                            return null;
+                        });
+    }
+
+    private static void removeQuietly(ChannelSftp target, String tmpFile) {
+        try {
+            if (target.isConnected()) {
+                target.rm(tmpFile);
+            }
+        } catch (SftpException e) {
+            log.debug("Sftp中转 删除临时文件[{}] 异常：{}", tmpFile, e.getMessage());
+        }
+    }
+
+    private static void awaitQuietly(Future<?> writer) {
+        try {
+            writer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.debug("Sftp中转 写入中止：{}", e.getCause().getMessage());
+        }
+    }
+
+    /** 环形缓冲区：空闲块与已填充块在两个有界队列之间循环，任一方中止时另一方随即退出 */
+    private static class BufferRing {
+
+        /** 结束标记(按引用比较) */
+        private static final Chunk END = new Chunk(0);
+
+        /** 空闲缓冲块 */
+        private final BlockingQueue<Chunk> free;
+        /** 已填充的缓冲块 */
+        private final BlockingQueue<Chunk> filled;
+        /** 中止原因(最先发生的异常)，为空表示未中止 */
+        private final AtomicReference<Exception> cause = new AtomicReference<>();
+
+        BufferRing(int chunks, int chunkSize) {
+            this.free = new ArrayBlockingQueue<>(chunks);
+            this.filled = new ArrayBlockingQueue<>(chunks + 1);
+            for (int i = 0; i < chunks; i++) {
+                free.add(new Chunk(chunkSize));
+            }
+        }
+
+        /**
+         * 读取线程：读满一块即交给写入线程，读完后放入结束标记
+         *
+         * @param in 源输入流
+         * @param checksum 校验和
+         * @return long 读取的字节数
+         * @throws IOException
+         * @throws InterruptedException
+         */
+        long fill(InputStream in, Checksum checksum) throws IOException, InterruptedException {
+            long total = 0L;
+            while (true) {
+                Chunk chunk = take(free);
+                int len = readFully(in, chunk.data);
+                if (0 < len) {
+                    checksum.update(chunk.data, 0, len);
+                    chunk.length = len;
+                    filled.put(chunk);
+                    total += len;
+                }
+                if (len < chunk.data.length) {
+                    filled.put(END);
+                    return total;
+                }
+            }
+        }
+
+        /**
+         * 写入线程：依次写出已填充的块并归还，遇到结束标记返回
+         *
+         * @param out 目标输出流
+         * @throws IOException
+         * @throws InterruptedException
+         */
+        void drainTo(OutputStream out) throws IOException, InterruptedException {
+            while (true) {
+                Chunk chunk = take(filled);
+                if (END == chunk) {
+                    return;
+                }
+                out.write(chunk.data, 0, chunk.length);
+                free.put(chunk);
+            }
+        }
+
+        void abort(Exception e) {
+            cause.compareAndSet(null, e);
+        }
+
+        Exception getCause() {
+            return cause.get();
+        }
+
+        private Chunk take(BlockingQueue<Chunk> queue)
+                throws IOException, InterruptedException {
+            while (true) {
+                if (null != cause.get()) {
+                    throw new IOException("Sftp中转已中止！", cause.get());
+                }
+                Chunk chunk = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (null != chunk) {
+                    return chunk;
+                }
+            }
+        }
+
+        private static int readFully(InputStream in, byte[] buffer) throws IOException {
+            int total = 0;
+            while (total < buffer.length) {
+                int len = in.read(buffer, total, buffer.length - total);
+                if (-1 == len) {
+                    break;
+                }
+                total += len;
+            }
+            return total;
+        }
+    }
+
+    /** 缓冲块 */
+    private static class Chunk {
+        /** 数据 */
+        private final byte[] data;
+        /** 有效长度 */
+        private int length;
+
+        Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package common.core.utils;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已确认存在的远程目录缓存(线程安全，同一台sftp服务器的多个通道共用)
+ *
+ * <p>目录一经确认存在或创建成功即记入缓存，之后同一目录的上传不再发起stat/mkdir请求。 缓存的目录被外部删除时，调用方应在上传失败后evict再重试。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpRemoteDirCache {
+
+    /** 已确认存在的目录(绝对路径，以/结尾) */
+    private final Set<String> dirs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 规范化为以/开头和结尾的绝对路径
+     *
+     * @param dir 远程目录
+     * @return String
+     */
+    public static String normalize(String dir) {
+        String path = SftpUtil.getAbsolutePath(dir);
+        if (null == path) {
+            return null;
+        }
+        path = path.replaceAll("/{2,}", "/");
+        return path.startsWith("/") ? path : "/" + path;
+    }
+
+    /**
+     * 目录是否已确认存在
+     *
+     * @param dir 远程目录
+     * @return boolean
+     */
+    public boolean contains(String dir) {
+        String path = normalize(dir);
+        return null != path && dirs.contains(path);
+    }
+
+    /**
+     * 记录目录已存在(含其所有上级目录)
+     *
+     * @param dir 远程目录
+     */
+    public void add(String dir) {
+        String path = normalize(dir);
+        if (null == path) {
+            return;
+        }
+        while (!dirs.contains(path) && 1 < path.length()) {
+            dirs.add(path);
+            path = path.substring(0, path.lastIndexOf('/', path.length() - 2) + 1);
+        }
+    }
+
+    /**
+     * 移除目录(含其所有下级目录)
+     *
+     * @param dir 远程目录
+     */
+    public void evict(String dir) {
+        String path = normalize(dir);
+        if (null != path) {
+            dirs.removeIf(cached -> cached.startsWith(path));
+        }
+    }
+
+    public void clear() {
+        dirs.clear();
+    }
+
+    /**
+     * 确保远程目录存在，不存在时逐级创建；不切换通道的当前目录
+     *
+     * @param sftp sftp通道
+     * @param dir 远程目录(绝对路径)
+     * @throws SftpException
+     */
+    public void ensureDir(ChannelSftp sftp, String dir) throws SftpException {
+        String path = normalize(dir);
+        if (null == path || dirs.contains(path)) {
+            return;
+        }
+        // 多数情况下目录已存在，先整体检查一次
+        if (isDir(sftp, path)) {
+            add(path);
+            return;
+        }
+        StringBuilder current = new StringBuilder("/");
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            current.append(segment).append('/');
+            String sub = current.toString();
+            if (dirs.contains(sub) || isDir(sftp, sub)) {
+                add(sub);
+                continue;
+            }
+            try {
+                SftpMetrics.getInstance()
+                        .timeRequest(
+                                SftpChannelFactory.hostOf(sftp),
+                                "mkdir",
+                                () -> {
+                                    sftp.mkdir(trimEndSlash(sub));
+                                    return null;
+                                });
+            } catch (SftpException e) {
+                // 其他线程可能已先一步创建
+                if (!isDir(sftp, sub)) {
+                    throw e;
+                }
+            }
+            add(sub);
+        }
+    }
+
+    /**
+     * 判断远程路径是否为目录
+     *
+     * @param sftp sftp通道
+     * @param path 远程路径
+     * @return boolean 不存在时返回false
+     * @throws SftpException 路径存在但不是目录，或其他错误
+     */
+    private boolean isDir(ChannelSftp sftp, String path) throws SftpException {
+        try {
+            SftpATTRS attrs =
+                    SftpMetrics.getInstance()
+                            .timeRequest(
+                                    SftpChannelFactory.hostOf(sftp),
+                                    "stat",
+                                    () -> sftp.stat(trimEndSlash(path)));
+            if (!attrs.isDir()) {
+                throw new SftpException(ChannelSftp.SSH_FX_FAILURE, "远程[" + path + "] 不是目录！");
+            }
+            return true;
+        } catch (SftpException e) {
+            if (ChannelSftp.SSH_FX_NO_SUCH_FILE == e.id) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /** 部分服务器(如MINA SSHD)不接受以/结尾的路径，请求前去掉结尾的/ */
+    private static String trimEndSlash(String path) {
+        return 1 < path.length() && path.endsWith("/")
+                ? path.substring(0, path.length() - 1)
+                : path;
+    }
+}
@@ -0,0 +1,275 @@
+package common.core.utils;
+
+import com.jcraft.jsch.ChannelSftp;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sftp会话连接池(按 主机/端口/用户 分组，基于commons-pool2)
+ *
+ * <p>借出前与空闲期间通过keep-alive校验连接，空闲超时的会话由后台线程回收。同一主机(主机+端口)上所有键(不同用户、凭据、
+ * 压缩级别)同时借出的会话数不超过maxTotalPerKey；需要新建会话而该主机的会话总数(各键借出+空闲)已达上限时，
+ * 先清除同一主机其他键的空闲会话，使同一主机保持的会话总数同样不超过该上限。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpSessionPool implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SftpSessionPool.class);
+
+    /** 默认连接超时时间：30秒 */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 30 * 1000;
+
+    /** 默认每个主机最大会话数 */
+    public static final int DEFAULT_MAX_PER_HOST = 8;
+
+    /** 连接池 */
+    private final GenericKeyedObjectPool<SftpPoolKey, ChannelSftp> pool;
+
+    /** 对象工厂 */
+    private final SftpChannelFactory factory;
+
+    /** 每个主机最大会话数 */
+    private final int maxPerHost;
+
+    /** 借出等待超时时间(毫秒)，小于0表示一直等待 */
+    private final long maxWaitMillis;
+
+    /** 每个主机的借出名额：主机:端口 -> 信号量 */
+    private final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    /** 每个主机用过的键：主机:端口 -> 连接池键 */
+    private final ConcurrentMap<String, Set<SftpPoolKey>> hostKeys = new ConcurrentHashMap<>();
+
+    /** 借出次数 */
+    private final LongAdder borrowCount = new LongAdder();
+
+    /** 借出累计等待时间(纳秒) */
+    private final LongAdder borrowWaitNanos = new LongAdder();
+
+    /** 借出最大等待时间(纳秒) */
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+
+    public SftpSessionPool() {
+        this(defaultConfig(DEFAULT_MAX_PER_HOST), DEFAULT_CONNECT_TIMEOUT);
+    }
+
+    /**
+     * 构造连接池
+     *
+     * @param config 连接池配置
+     * @param connectTimeout 连接超时时间(毫秒)
+     */
+    public SftpSessionPool(GenericKeyedObjectPoolConfig<ChannelSftp> config, int connectTimeout) {
+        this.factory = new SftpChannelFactory(connectTimeout);
+        this.pool = new GenericKeyedObjectPool<>(factory, config);
+        this.maxPerHost = config.getMaxTotalPerKey();
+        this.maxWaitMillis = config.getMaxWaitDuration().toMillis();
+    }
+
+    /**
+     * 默认连接池配置
+     *
+     * @param maxPerHost 每个主机最大同时借出会话数(同一主机的所有键共用)
+     * @return GenericKeyedObjectPoolConfig
+     */
+    public static GenericKeyedObjectPoolConfig<ChannelSftp> defaultConfig(int maxPerHost) {
+        GenericKeyedObjectPoolConfig<ChannelSftp> config = new GenericKeyedObjectPoolConfig<>();
+        config.setMaxTotalPerKey(maxPerHost);
+        config.setMaxIdlePerKey(maxPerHost);
+        config.setMinIdlePerKey(0);
+        config.setMaxTotal(-1);
+        config.setBlockWhenExhausted(true);
+        config.setMaxWait(Duration.ofMinutes(1));
+        config.setTestOnBorrow(true);
+        config.setTestWhileIdle(true);
+        config.setTimeBetweenEvictionRuns(Duration.ofSeconds(30));
+        config.setMinEvictableIdleTime(Duration.ofMinutes(5));
+        config.setNumTestsPerEvictionRun(-1);
+        config.setJmxEnabled(false);
+        return config;
+    }
+
+    /**
+     * 借出sftp通道，连接数已满时等待其他使用者归还
+     *
+     * @param key 连接池键
+     * @return SftpChannelLease
+     * @throws Exception
+     */
+    public SftpChannelLease borrow(SftpPoolKey key) throws Exception {
+        long start = System.nanoTime();
+        Semaphore permits = permitsFor(key);
+        ChannelSftp channel;
+        try {
+            acquire(permits, key);
+            try {
+                makeRoomFor(key, permits);
+                channel = pool.borrowObject(key);
+            } catch (Exception e) {
+                if (null != permits) {
+                    permits.release();
+                }
+                throw e;
+            }
+        } finally {
+            long wait = System.nanoTime() - start;
+            borrowWaitNanos.add(wait);
+            maxBorrowWaitNanos.accumulateAndGet(wait, Math::max);
+        }
+        borrowCount.increment();
+        return new SftpChannelLease(this, key, channel);
+    }
+
+    /**
+     * 获取主机的借出名额，不限制时为空
+     *
+     * @param key 连接池键
+     * @return Semaphore
+     */
+    private Semaphore permitsFor(SftpPoolKey key) {
+        if (0 >= maxPerHost) {
+            return null;
+        }
+        return hostPermits.computeIfAbsent(
+                key.getHostAddress(), k -> new Semaphore(maxPerHost, true));
+    }
+
+    /**
+     * 占用主机的一个借出名额，超过等待时间仍无名额时抛出异常
+     *
+     * @param permits 主机的借出名额
+     * @param key 连接池键
+     * @throws InterruptedException
+     */
+    private void acquire(Semaphore permits, SftpPoolKey key) throws InterruptedException {
+        if (null == permits) {
+            return;
+        }
+        if (0 > maxWaitMillis) {
+            permits.acquire();
+        } else if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+            throw new NoSuchElementException(
+                    "SFTP连接池 主机[" + key.getHostAddress() + "]借出会话数已达上限[" + maxPerHost + "]，等待超时！");
+        }
+    }
+
+    /**
+     * 本键没有空闲会话(借出时将新建会话)且主机上的会话总数已达上限时，清除同一主机其他键的空闲会话
+     *
+     * @param key 连接池键
+     * @param permits 主机的借出名额，不限制时为空
+     */
+    private void makeRoomFor(SftpPoolKey key, Semaphore permits) {
+        if (null == permits) {
+            return;
+        }
+        Set<SftpPoolKey> keys =
+                hostKeys.computeIfAbsent(key.getHostAddress(), k -> ConcurrentHashMap.newKeySet());
+        keys.add(key);
+        // 同一主机的检查与清除串行执行，避免并发借出时重复统计
+        synchronized (permits) {
+            if (0 < pool.getNumIdle(key)) {
+                return;
+            }
+            int sessions = 0;
+            for (SftpPoolKey hostKey : keys) {
+                sessions += pool.getNumActive(hostKey) + pool.getNumIdle(hostKey);
+            }
+            if (sessions < maxPerHost) {
+                return;
+            }
+            for (SftpPoolKey hostKey : keys) {
+                if (!hostKey.equals(key) && 0 < pool.getNumIdle(hostKey)) {
+                    log.debug(
+                            "SFTP连接池 主机[{}]会话数[{}]已达上限，清除键[{}]的空闲会话",
+                            key.getHostAddress(),
+                            sessions,
+                            hostKey);
+                    pool.clear(hostKey);
+                }
+            }
+        }
+    }
+
+    /**
+     * 归还或销毁通道
+     *
+     * @param lease 借出的通道
+     */
+    void release(SftpChannelLease lease) {
+        try {
+            if (!lease.isInvalid()) {
+                pool.returnObject(lease.getKey(), lease.getChannel());
+                return;
+            }
+            try {
+                pool.invalidateObject(lease.getKey(), lease.getChannel());
+            } catch (Exception e) {
+                log.warn("SFTP连接池 销毁失效连接[{}] 异常：", lease.getKey(), e);
+            }
+        } finally {
+            Semaphore permits = permitsFor(lease.getKey());
+            if (null != permits) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * 清除指定主机的空闲连接
+     *
+     * @param key 连接池键
+     */
+    public void clear(SftpPoolKey key) {
+        pool.clear(key);
+    }
+
+    /**
+     * 每个主机(主机+端口，不区分用户和压缩级别)最大同时借出会话数
+     *
+     * @return int 小于0表示不限制
+     */
+    public int getMaxPerHost() {
+        return maxPerHost;
+    }
+
+    /**
+     * 获取连接池统计信息
+     *
+     * @return SftpPoolStats
+     */
+    public SftpPoolStats getStats() {
+        long borrows = borrowCount.sum();
+        double meanWait = 0 == borrows ? 0D : borrowWaitNanos.sum() / 1e6 / borrows;
+        return new SftpPoolStats(
+                borrows,
+                factory.getCreatedCount(),
+                meanWait,
+                maxBorrowWaitNanos.get() / 1000000L,
+                pool.getNumActive(),
+                pool.getNumIdle());
+    }
+
+    /** 关闭连接池并断开全部空闲会话 */
+    @Override
+    public void close() {
+        log.info("SFTP连接池 关闭，统计信息：{}", getStats());
+        pool.close();
+    }
+}
@@ -0,0 +1,405 @@
+package common.core.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Sftp流式处理管道：远程文件边下载边解压、解码、拆分记录并回调，不落地临时文件
+ *
+ * <p>处理顺序固定为：解压(gzip/zip) -> 字符集解码 -> 按行或分隔符拆分记录 -> 过滤/转换(按添加顺序) -> 回调。
+ * 读取、解压和拆分在独立线程中进行，拆出的记录经有界队列交给调用线程回调，回调较慢时读取线程阻塞，网络读取随之暂停；
+ * 单条记录长度受maxRecordLength限制，因此内存占用只与队列容量和记录长度有关，与文件大小无关。
+ *
+ * <p>管道通过SftpUtil.downFile读取时占用该SftpUtil的通道，处理完成前不要在同一个SftpUtil上执行其他操作。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpStreamPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(SftpStreamPipeline.class);
+
+    /** 默认队列容量(记录数) */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /** 默认单条记录最大长度(字符) */
+    public static final int DEFAULT_MAX_RECORD_LENGTH = 1024 * 1024;
+
+    /** 读取缓冲区大小 */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 队列等待的检查间隔(毫秒) */
+    private static final long POLL_MILLIS = 100L;
+
+    /** 结束标记(按引用比较) */
+    private static final String END = new String("<END>");
+
+    /** 记录回调 */
+    @FunctionalInterface
+    public interface RecordHandler {
+
+        /**
+         * 处理一条记录
+         *
+         * @param index 记录序号(从0开始，过滤掉的记录不占序号)
+         * @param record 记录内容(不含分隔符)
+         * @return boolean 返回false时停止处理
+         * @throws Exception
+         */
+        boolean handle(long index, String record) throws Exception;
+    }
+
+    /** 解压方式 */
+    private enum Compression {
+        NONE,
+        GZIP,
+        ZIP
+    }
+
+    /** 源输入流 */
+    private final InputStream source;
+    /** 解压方式 */
+    private Compression compression = Compression.NONE;
+    /** zip条目名称过滤 */
+    private Pattern zipEntryPattern;
+    /** 字符集 */
+    private Charset charset = StandardCharsets.UTF_8;
+    /** 记录分隔符(为空按行拆分) */
+    private String delimiter;
+    /** 队列容量 */
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    /** 单条记录最大长度 */
+    private int maxRecordLength = DEFAULT_MAX_RECORD_LENGTH;
+    /** 过滤/转换(按添加顺序执行，返回null表示丢弃) */
+    private final List<Function<String, String>> stages = new ArrayList<>();
+
+    private SftpStreamPipeline(InputStream source) {
+        this.source = source;
+    }
+
+    /**
+     * 以输入流(如SftpUtil.downFile的返回值)创建管道，管道结束时关闭该输入流
+     *
+     * @param source 输入流
+     * @return SftpStreamPipeline
+     */
+    public static SftpStreamPipeline from(InputStream source) {
+        return new SftpStreamPipeline(source);
+    }
+
+    public SftpStreamPipeline gunzip() {
+        this.compression = Compression.GZIP;
+        return this;
+    }
+
+    /**
+     * 按zip解压，依次处理所有文件条目
+     *
+     * @return SftpStreamPipeline
+     */
+    public SftpStreamPipeline unzip() {
+        return unzip(null);
+    }
+
+    /**
+     * 按zip解压，依次处理名称匹配的文件条目
+     *
+     * @param entryRegex 条目名称规则(正则，为空不过滤)
+     * @return SftpStreamPipeline
+     */
+    public SftpStreamPipeline unzip(String entryRegex) {
+        this.compression = Compression.ZIP;
+        this.zipEntryPattern =
+                StringUtil.isNullOrBlock(entryRegex) ? null : Pattern.compile(entryRegex);
+        return this;
+    }
+
+    public SftpStreamPipeline charset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    /** 按行拆分记录(\n或\r\n) */
+    public SftpStreamPipeline lines() {
+        this.delimiter = null;
+        return this;
+    }
+
+    /**
+     * 按指定分隔符拆分记录
+     *
+     * @param delimiter 分隔符
+     * @return SftpStreamPipeline
+     */
+    public SftpStreamPipeline records(String delimiter) {
+        if (null == delimiter || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("记录分隔符不能为空！");
+        }
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    public SftpStreamPipeline queueCapacity(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+        return this;
+    }
+
+    public SftpStreamPipeline maxRecordLength(int maxRecordLength) {
+        this.maxRecordLength = Math.max(1, maxRecordLength);
+        return this;
+    }
+
+    public SftpStreamPipeline filter(Predicate<String> predicate) {
+        stages.add(record -> predicate.test(record) ? record : null);
+        return this;
+    }
+
+    public SftpStreamPipeline map(Function<String, String> mapper) {
+        stages.add(mapper);
+        return this;
+    }
+
+    /**
+     * 执行管道，在调用线程中逐条回调，处理完成(或回调返回false)后返回
+     *
+     * @param handler 记录回调
+     * @return long 回调的记录数
+     * @throws Exception 读取、解压、解码或回调异常
+     */
+    public long run(RecordHandler handler) throws Exception {
+        long start = System.currentTimeMillis();
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicReference<Exception> error = new AtomicReference<>();
+        // 调用线程提前结束(回调返回false或异常)时通知读取线程退出
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        ExecutorService executor =
+                Executors.newSingleThreadExecutor(new SftpThreadFactory("sftp-pipeline"));
+        long count = 0L;
+        try {
+            Future<?> producer = executor.submit(() -> produce(queue, error, stopped));
+            while (true) {
+                String record = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (null == record) {
+                    if (producer.isDone() && queue.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                if (END == record) {
+                    break;
+                }
+                String value = applyStages(record);
+                if (null == value) {
+                    continue;
+                }
+                if (!handler.handle(count++, value)) {
+                    break;
+                }
+            }
+        } finally {
+            stopped.set(true);
+            executor.shutdownNow();
+            // 读取线程可能还在读source，等它退出后再关闭，避免并发读写同一个通道
+            awaitProducer(executor);
+            closeQuietly(source);
+        }
+        if (null != error.get()) {
+            throw error.get();
+        }
+        log.info(
+                "Sftp流式处理--->处理完成，记录数[{}]，耗时[{}]毫秒",
+                count,
+                System.currentTimeMillis() - start);
+        return count;
+    }
+
+    /**
+     * 读取线程：解压、解码、拆分记录后放入队列
+     *
+     * @param queue 记录队列
+     * @param error 读取异常
+     * @param stopped 调用线程是否已结束
+     */
+    private void produce(
+            BlockingQueue<String> queue,
+            AtomicReference<Exception> error,
+            AtomicBoolean stopped) {
+        try {
+            InputStream in = new BufferedInputStream(source, BUFFER_SIZE);
+            if (Compression.GZIP == compression) {
+                split(new GZIPInputStream(in, BUFFER_SIZE), queue, stopped);
+            } else if (Compression.ZIP == compression) {
+                ZipInputStream zip = new ZipInputStream(in, charset);
+                ZipEntry entry;
+                while (!stopped.get() && null != (entry = zip.getNextEntry())) {
+                    if (entry.isDirectory()
+                            || (null != zipEntryPattern
+                                    && !zipEntryPattern.matcher(entry.getName()).matches())) {
+                        continue;
+                    }
+                    split(zip, queue, stopped);
+                }
+            } else {
+                split(in, queue, stopped);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            if (!stopped.get()) {
+                error.compareAndSet(null, e);
+            }
+        } finally {
+            try {
+                offer(queue, END, stopped);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 解码并拆分记录(zip条目读完即结束，不关闭底层流)
+     *
+     * @param in 解压后的输入流
+     * @param queue 记录队列
+     * @param stopped 调用线程是否已结束
+     * @throws Exception
+     */
+    private void split(InputStream in, BlockingQueue<String> queue, AtomicBoolean stopped)
+            throws Exception {
+        Reader reader = new BufferedReader(new InputStreamReader(in, charset), BUFFER_SIZE);
+        StringBuilder record = new StringBuilder();
+        char[] buffer = new char[BUFFER_SIZE];
+        String separator = null == delimiter ? "\n" : delimiter;
+        // 只在分隔符末字符处比较整个分隔符，其余字符按段批量追加
+        char last = separator.charAt(separator.length() - 1);
+        int len;
+        while (!stopped.get() && -1 != (len = reader.read(buffer))) {
+            int from = 0;
+            for (int i = 0; i < len; i++) {
+                if (last != buffer[i]) {
+                    continue;
+                }
+                record.append(buffer, from, i + 1 - from);
+                from = i + 1;
+                if (endsWith(record, separator)) {
+                    record.setLength(record.length() - separator.length());
+                    emit(record, queue, stopped);
+                } else {
+                    checkLength(record);
+                }
+            }
+            record.append(buffer, from, len - from);
+            checkLength(record);
+        }
+        if (0 < record.length()) {
+            emit(record, queue, stopped);
+        }
+    }
+
+    private void checkLength(StringBuilder record) throws IOException {
+        if (record.length() > maxRecordLength) {
+            throw new IOException("Sftp流式处理 异常：单条记录超过最大长度[" + maxRecordLength + "]！");
+        }
+    }
+
+    private void emit(
+            StringBuilder record, BlockingQueue<String> queue, AtomicBoolean stopped)
+            throws InterruptedException {
+        int length = record.length();
+        if (null == delimiter && 0 < length && '\r' == record.charAt(length - 1)) {
+            record.setLength(length - 1);
+        }
+        offer(queue, record.toString(), stopped);
+        record.setLength(0);
+    }
+
+    private static void offer(
+            BlockingQueue<String> queue, String record, AtomicBoolean stopped)
+            throws InterruptedException {
+        while (!stopped.get()) {
+            if (queue.offer(record, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    private String applyStages(String record) {
+        String value = record;
+        for (Function<String, String> stage : stages) {
+            value = stage.apply(value);
+            if (null == value) {
+                return null;
+            }
+        }
+        return value;
+    }
+
+    private static boolean endsWith(StringBuilder record, String separator) {
+        int offset = record.length() - separator.length();
+        if (0 > offset) {
+            return false;
+        }
+        for (int i = 0; i < separator.length(); i++) {
+            if (record.charAt(offset + i) != separator.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 等待读取线程退出(读取线程每读完一块都会检查stopped，当前读取返回后即退出)
+     *
+     * @param executor 读取线程池
+     */
+    private static void awaitProducer(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            log.warn("Sftp流式处理 关闭输入流 异常：{}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package common.core.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sftp增量同步清单(记录已同步文件的相对路径、大小、修改时间和校验和)
+ *
+ * <p>文件格式为每行一条：大小\t修改时间\t校验和\t相对路径；相对路径中的\、制表符和换行符转义为\\、\t、\n、\r，
+ * 文件名含这些字符时也能正确读回。保存时先写临时文件再替换，避免中途退出导致清单损坏。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpSyncManifest {
+
+    /** 清单默认文件名 */
+    public static final String DEFAULT_FILE_NAME = ".sftp-sync.manifest";
+
+    /** 文件头 */
+    private static final String HEADER = "#sftp-sync-manifest v1 " + SftpChecksums.ALGORITHM;
+
+    /** 字段分隔符 */
+    private static final String SEPARATOR = "\t";
+
+    /** 相对路径 -> 同步记录 */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 读取清单，文件不存在时返回空清单
+     *
+     * @param file 清单文件
+     * @return SftpSyncManifest
+     * @throws IOException
+     */
+    public static SftpSyncManifest load(File file) throws IOException {
+        SftpSyncManifest manifest = new SftpSyncManifest();
+        if (!file.isFile()) {
+            return manifest;
+        }
+        try (BufferedReader reader =
+                Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(SEPARATOR, 4);
+                if (4 != fields.length) {
+                    continue;
+                }
+                manifest.entries.put(
+                        unescape(fields[3]),
+                        new Entry(
+                                Long.parseLong(fields[0]),
+                                Long.parseLong(fields[1]),
+                                Long.parseLong(fields[2], 16)));
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * 保存清单(按路径排序)
+     *
+     * @param file 清单文件
+     * @throws IOException
+     */
+    public void save(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (BufferedWriter writer =
+                Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, Entry> item : new TreeMap<>(entries).entrySet()) {
+                Entry entry = item.getValue();
+                writer.write(
+                        entry.size
+                                + SEPARATOR
+                                + entry.modifyTime
+                                + SEPARATOR
+                                + SftpChecksums.toHex(entry.checksum)
+                                + SEPARATOR
+                                + escape(item.getKey()));
+                writer.newLine();
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 转义路径中的\、制表符和换行符，保证一条记录只占一行且字段分隔符唯一
+     *
+     * @param path 相对路径
+     * @return String
+     */
+    static String escape(String path) {
+        StringBuilder builder = new StringBuilder(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if ('\\' == c) {
+                builder.append("\\\\");
+            } else if ('\t' == c) {
+                builder.append("\\t");
+            } else if ('\n' == c) {
+                builder.append("\\n");
+            } else if ('\r' == c) {
+                builder.append("\\r");
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 还原escape转义的路径
+     *
+     * @param value 转义后的路径
+     * @return String
+     */
+    static String unescape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ('\\' != c || i + 1 == value.length()) {
+                builder.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            if ('t' == next) {
+                builder.append('\t');
+            } else if ('n' == next) {
+                builder.append('\n');
+            } else if ('r' == next) {
+                builder.append('\r');
+            } else {
+                builder.append(next);
+            }
+        }
+        return builder.toString();
+    }
+
+    public Entry get(String relativePath) {
+        return entries.get(relativePath);
+    }
+
+    public void put(String relativePath, long size, long modifyTime, long checksum) {
+        entries.put(relativePath, new Entry(size, modifyTime, checksum));
+    }
+
+    public void remove(String relativePath) {
+        entries.remove(relativePath);
+    }
+
+    public Set<String> paths() {
+        return entries.keySet();
+    }
+
+    /**
+     * 远程文件是否与清单记录一致(大小和修改时间都相同)
+     *
+     * @param relativePath 相对路径
+     * @param size 远程文件大小
+     * @param modifyTime 远程文件修改时间(秒)
+     * @return boolean
+     */
+    public boolean isUnchanged(String relativePath, long size, long modifyTime) {
+        Entry entry = entries.get(relativePath);
+        return null != entry && entry.size == size && entry.modifyTime == modifyTime;
+    }
+
+    /** 同步记录 */
+    public static class Entry {
+        /** 文件大小 */
+        private final long size;
+        /** 修改时间(秒) */
+        private final long modifyTime;
+        /** 校验和 */
+        private final long checksum;
+
+        Entry(long size, long modifyTime, long checksum) {
+            this.size = size;
+            this.modifyTime = modifyTime;
+            this.checksum = checksum;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getModifyTime() {
+            return modifyTime;
+        }
+
+        public long getChecksum() {
+            return checksum;
+        }
+    }
+}
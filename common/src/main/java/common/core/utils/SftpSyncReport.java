@@ -0,0 +1,54 @@
+package common.core.utils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sftp增量同步结果报告
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpSyncReport implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 新增或变更文件的下载结果 */
+    private final SftpBatchReport downloads;
+    /** 未变更而跳过的文件数 */
+    private final int unchangedCount;
+    /** 远程已不存在而删除的本地文件 */
+    private final List<String> deleted;
+
+    public SftpSyncReport(SftpBatchReport downloads, int unchangedCount, List<String> deleted) {
+        this.downloads = downloads;
+        this.unchangedCount = unchangedCount;
+        this.deleted = Collections.unmodifiableList(new ArrayList<>(deleted));
+    }
+
+    public SftpBatchReport getDownloads() {
+        return downloads;
+    }
+
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    public List<String> getDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public String toString() {
+        return "SftpSyncReport [downloads="
+                + downloads
+                + ", unchangedCount="
+                + unchangedCount
+                + ", deletedCount="
+                + deleted.size()
+                + "]";
+    }
+}
@@ -0,0 +1,31 @@
+package common.core.utils;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sftp后台线程工厂(守护线程，线程名带前缀便于排查)
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpThreadFactory implements ThreadFactory {
+
+    /** 线程序号 */
+    private final AtomicInteger index = new AtomicInteger();
+
+    /** 线程名前缀 */
+    private final String prefix;
+
+    public SftpThreadFactory(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, prefix + "-" + index.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
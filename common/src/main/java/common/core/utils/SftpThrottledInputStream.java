@@ -0,0 +1,67 @@
+package common.core.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * 按SftpBandwidthLimiter限速的输入流(读取后按实际字节数申请令牌)
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpThrottledInputStream extends FilterInputStream {
+
+    /** 限速器 */
+    private final SftpBandwidthLimiter limiter;
+    /** 主机 */
+    private final String host;
+    /** 优先级 */
+    private final SftpBandwidthLimiter.Priority priority;
+
+    public SftpThrottledInputStream(
+            InputStream in,
+            SftpBandwidthLimiter limiter,
+            String host,
+            SftpBandwidthLimiter.Priority priority) {
+        super(in);
+        this.limiter = limiter;
+        this.host = host;
+        this.priority = priority;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (-1 != b) {
+            acquire(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int count = super.read(b, off, len);
+        if (0 < count) {
+            acquire(count);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // 跳过的数据不经过网络传输(续传时跳过本地已上传部分)，不申请令牌
+        return super.skip(n);
+    }
+
+    private void acquire(int bytes) throws IOException {
+        try {
+            limiter.acquire(host, priority, bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Sftp限速等待被中断！");
+        }
+    }
+}
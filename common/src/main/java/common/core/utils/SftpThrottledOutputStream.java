@@ -0,0 +1,56 @@
+package common.core.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * 按SftpBandwidthLimiter限速的输出流(写入前按字节数申请令牌)
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpThrottledOutputStream extends FilterOutputStream {
+
+    /** 限速器 */
+    private final SftpBandwidthLimiter limiter;
+    /** 主机 */
+    private final String host;
+    /** 优先级 */
+    private final SftpBandwidthLimiter.Priority priority;
+
+    public SftpThrottledOutputStream(
+            OutputStream out,
+            SftpBandwidthLimiter limiter,
+            String host,
+            SftpBandwidthLimiter.Priority priority) {
+        super(out);
+        this.limiter = limiter;
+        this.host = host;
+        this.priority = priority;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        acquire(1);
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        acquire(len);
+        // FilterOutputStream默认逐字节写入，这里直接整块写入
+        out.write(b, off, len);
+    }
+
+    private void acquire(int bytes) throws IOException {
+        try {
+            limiter.acquire(host, priority, bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Sftp限速等待被中断！");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package common.core.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.DecimalFormat;
+
+/**
+ * Sftp文件传输进度监听(可接入日志、指标或业务回调)
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public interface SftpTransferListener {
+
+    /** 默认监听：输出日志 */
+    SftpTransferListener LOGGING = new LoggingListener();
+
+    /**
+     * 定时进度通知
+     *
+     * @param progress 进度快照
+     */
+    void onProgress(SftpTransferProgress progress);
+
+    /**
+     * 传输结束通知
+     *
+     * @param progress 进度快照
+     */
+    default void onEnd(SftpTransferProgress progress) {
+        onProgress(progress);
+    }
+
+    /** 日志监听 */
+    class LoggingListener implements SftpTransferListener {
+
+        private static final Logger LOG = LoggerFactory.getLogger(SftpTransferListener.class);
+
+        @Override
+        public void onProgress(SftpTransferProgress progress) {
+            DecimalFormat df = new DecimalFormat("#.##");
+            LOG.info(
+                    "传输文件[{}]共：{} bytes，已经传输：{} bytes，传输进度：{}%，当前速率：{} KB/s，平均速率：{} KB/s，预计剩余：{} 秒",
+                    progress.getSource(),
+                    progress.getFileSize(),
+                    progress.getTransferred(),
+                    df.format(progress.getPercent()),
+                    df.format(progress.getInstantRate() / 1024),
+                    df.format(progress.getAverageRate() / 1024),
+                    progress.getEtaMillis() / 1000);
+        }
+
+        @Override
+        public void onEnd(SftpTransferProgress progress) {
+            DecimalFormat df = new DecimalFormat("#.##");
+            LOG.info(
+                    "传输文件[{}]结束：共传输 {} bytes，耗时 {} 毫秒，平均速率：{} KB/s",
+                    progress.getSource(),
+                    progress.getTransferred(),
+                    progress.getElapsedMillis(),
+                    df.format(progress.getAverageRate() / 1024));
+        }
+    }
+}
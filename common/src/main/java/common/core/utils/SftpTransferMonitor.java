@@ -0,0 +1,198 @@
+package common.core.utils;
+
+import com.jcraft.jsch.SftpProgressMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sftp文件传输进度监控(替代SftpProgressMonitorImpl)
+ *
+ * <p>所有传输共用一个定时线程统计进度，字节计数使用LongAdder，并发传输时count()无锁竞争。 每次统计计算瞬时速率、平均速率和预计剩余时间，交给监听器处理。
+ * 传输异常中断时JSch不会调用end()，调用方应在finally中调用end()(重复调用无影响)；
+ * 未调用时，已取消或连续无进度超过空闲时间的传输也会自动停止定时统计。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpTransferMonitor implements SftpProgressMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(SftpTransferMonitor.class);
+
+    /** 默认统计间隔：5秒 */
+    public static final long DEFAULT_INTERVAL_MILLIS = 5 * 1000L;
+
+    /** 无进度多久后停止定时统计：10分钟 */
+    public static final long IDLE_TIMEOUT_MILLIS = 10 * 60 * 1000L;
+
+    /** 全部传输共用的定时线程 */
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(new SftpThreadFactory("sftp-progress"));
+
+    /** 已传输字节数 */
+    private final LongAdder transferred = new LongAdder();
+
+    /** 进度监听 */
+    private final SftpTransferListener listener;
+
+    /** 统计间隔(毫秒) */
+    private final long intervalMillis;
+
+    /** 文件总大小 */
+    private volatile long fileSize;
+
+    /** 源文件 */
+    private volatile String source;
+
+    /** 目标文件 */
+    private volatile String target;
+
+    /** 开始时间(纳秒) */
+    private volatile long startNanos;
+
+    /** 是否已结束 */
+    private volatile boolean ended = false;
+
+    /** 是否已取消(取消后count返回false，JSch随即中止传输) */
+    private volatile boolean cancelled = false;
+
+    /** 定时统计任务 */
+    private ScheduledFuture<?> future;
+
+    /** 上次统计时的字节数(只在定时线程中读写) */
+    private long lastBytes;
+
+    /** 上次统计时间(纳秒，只在定时线程中读写) */
+    private long lastNanos;
+
+    /** 上次有进度的时间(纳秒，只在定时线程中读写) */
+    private long lastProgressNanos;
+
+    public SftpTransferMonitor(long fileSize) {
+        this(fileSize, SftpTransferListener.LOGGING, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * 构造传输进度监控
+     *
+     * @param fileSize 文件总大小(未知时传0，将使用JSch提供的大小)
+     * @param listener 进度监听(为空时只计数和响应取消，不定时统计)
+     * @param intervalMillis 统计间隔(毫秒)
+     */
+    public SftpTransferMonitor(long fileSize, SftpTransferListener listener, long intervalMillis) {
+        this.fileSize = fileSize;
+        this.listener = listener;
+        this.intervalMillis = intervalMillis;
+    }
+
+    @Override
+    public synchronized void init(int op, String src, String dest, long max) {
+        this.source = src;
+        this.target = dest;
+        if (0 >= fileSize && 0 < max) {
+            this.fileSize = max;
+        }
+        this.startNanos = System.nanoTime();
+        this.lastNanos = startNanos;
+        this.lastProgressNanos = startNanos;
+        if (null == future && !ended && null != listener) {
+            future =
+                    SCHEDULER.scheduleAtFixedRate(
+                            this::report, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public boolean count(long count) {
+        transferred.add(count);
+        return !cancelled;
+    }
+
+    @Override
+    public void end() {
+        synchronized (this) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            if (null != future) {
+                future.cancel(false);
+            }
+        }
+        if (null == listener || 0 == startNanos) {
+            // 未开始传输(init未调用)时没有进度可通知
+            return;
+        }
+        try {
+            listener.onEnd(snapshot(0D, true));
+        } catch (Exception e) {
+            log.warn("Sftp传输进度监听 处理结束通知 异常：", e);
+        }
+    }
+
+    /** 取消传输 */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getTransferred() {
+        return transferred.sum();
+    }
+
+    /** 定时统计(在共享定时线程中执行，异常不得抛出以免影响其他传输) */
+    private void report() {
+        try {
+            long now = System.nanoTime();
+            long bytes = transferred.sum();
+            if (bytes != lastBytes) {
+                lastProgressNanos = now;
+            } else if (cancelled || now - lastProgressNanos >= IDLE_TIMEOUT_MILLIS * 1000000L) {
+                stopReport();
+                log.warn(
+                        "Sftp传输进度监控--->源文件[{}], 目标文件[{}]--->已取消或长时间无进度，未收到结束通知，停止统计！",
+                        source,
+                        target);
+                return;
+            }
+            double seconds = (now - lastNanos) / 1e9;
+            double instantRate = 0 < seconds ? (bytes - lastBytes) / seconds : 0D;
+            lastBytes = bytes;
+            lastNanos = now;
+            listener.onProgress(snapshot(instantRate, false));
+        } catch (Exception e) {
+            log.warn("Sftp传输进度监听 处理进度通知 异常：", e);
+        }
+    }
+
+    /** 停止定时统计(不视为传输结束，之后收到end()仍正常通知) */
+    private synchronized void stopReport() {
+        if (null != future) {
+            future.cancel(false);
+        }
+    }
+
+    private SftpTransferProgress snapshot(double instantRate, boolean finished) {
+        long elapsedNanos = 0 == startNanos ? 0L : System.nanoTime() - startNanos;
+        long bytes = transferred.sum();
+        double averageRate = 0 < elapsedNanos ? bytes / (elapsedNanos / 1e9) : 0D;
+        return new SftpTransferProgress(
+                source,
+                target,
+                fileSize,
+                bytes,
+                elapsedNanos / 1000000L,
+                finished ? averageRate : instantRate,
+                averageRate,
+                finished);
+    }
+}
@@ -0,0 +1,131 @@
+package common.core.utils;
+
+import java.io.Serializable;
+
+/**
+ * Sftp文件传输进度快照
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpTransferProgress implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 源文件 */
+    private final String source;
+    /** 目标文件 */
+    private final String target;
+    /** 文件总大小(未知时小于等于0) */
+    private final long fileSize;
+    /** 已传输字节数 */
+    private final long transferred;
+    /** 已耗时(毫秒) */
+    private final long elapsedMillis;
+    /** 最近一个统计间隔的速率(字节/秒) */
+    private final double instantRate;
+    /** 平均速率(字节/秒) */
+    private final double averageRate;
+    /** 是否已结束 */
+    private final boolean finished;
+
+    public SftpTransferProgress(
+            String source,
+            String target,
+            long fileSize,
+            long transferred,
+            long elapsedMillis,
+            double instantRate,
+            double averageRate,
+            boolean finished) {
+        this.source = source;
+        this.target = target;
+        this.fileSize = fileSize;
+        this.transferred = transferred;
+        this.elapsedMillis = elapsedMillis;
+        this.instantRate = instantRate;
+        this.averageRate = averageRate;
+        this.finished = finished;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getTransferred() {
+        return transferred;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double getInstantRate() {
+        return instantRate;
+    }
+
+    public double getAverageRate() {
+        return averageRate;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * 传输进度百分比
+     *
+     * @return double 文件大小未知时返回-1
+     */
+    public double getPercent() {
+        if (0 >= fileSize) {
+            return -1D;
+        }
+        return Math.min(100D, transferred * 100D / fileSize);
+    }
+
+    /**
+     * 按平均速率估算的剩余时间
+     *
+     * @return long 毫秒，无法估算时返回-1
+     */
+    public long getEtaMillis() {
+        if (finished) {
+            return 0L;
+        }
+        if (0 >= fileSize || 0 >= averageRate) {
+            return -1L;
+        }
+        return (long) (Math.max(0L, fileSize - transferred) * 1000D / averageRate);
+    }
+
+    @Override
+    public String toString() {
+        return "SftpTransferProgress [source="
+                + source
+                + ", target="
+                + target
+                + ", fileSize="
+                + fileSize
+                + ", transferred="
+                + transferred
+                + ", elapsedMillis="
+                + elapsedMillis
+                + ", instantRate="
+                + instantRate
+                + ", averageRate="
+                + averageRate
+                + ", finished="
+                + finished
+                + "]";
+    }
+}
@@ -0,0 +1,107 @@
+package common.core.utils;
+
+import java.io.Serializable;
+
+/**
+ * Sftp单个文件处理结果
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpTransferResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 源文件 */
+    private final String source;
+    /** 目标文件 */
+    private final String target;
+    /** 传输字节数 */
+    private long bytes;
+    /** 耗时(毫秒) */
+    private long costMillis;
+    /** 失败原因，为空表示成功 */
+    private Throwable cause;
+    /** 续传起始位置(字节) */
+    private long offset;
+    /** 文件校验和(CRC32)，为空表示未计算 */
+    private Long checksum;
+
+    public SftpTransferResult(String source, String target, long bytes) {
+        this.source = source;
+        this.target = target;
+        this.bytes = bytes;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public long getCostMillis() {
+        return costMillis;
+    }
+
+    public void setCostMillis(long costMillis) {
+        this.costMillis = costMillis;
+    }
+
+    public Throwable getCause() {
+        return cause;
+    }
+
+    public void setCause(Throwable cause) {
+        this.cause = cause;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public Long getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(Long checksum) {
+        this.checksum = checksum;
+    }
+
+    public boolean isSuccess() {
+        return null == cause;
+    }
+
+    @Override
+    public String toString() {
+        return "SftpTransferResult [source="
+                + source
+                + ", target="
+                + target
+                + ", bytes="
+                + bytes
+                + ", costMillis="
+                + costMillis
+                + ", offset="
+                + offset
+                + ", checksum="
+                + (null == checksum ? null : SftpChecksums.toHex(checksum))
+                + ", cause="
+                + cause
+                + "]";
+    }
+}
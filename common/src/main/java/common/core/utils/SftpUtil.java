@@ -4,11 +4,30 @@ import com.jcraft.jsch.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.regex.Pattern;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
 
 /**
  * sftp连接工具类
@@ -21,6 +40,27 @@ public class SftpUtil {
 
     private static Logger log = LoggerFactory.getLogger(SftpUtil.class);
 
+    /** 流式传输缓冲区大小 */
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    /** 分段传输时每段最小字节数：8MB */
+    private static final long MIN_SEGMENT_SIZE = 8L * 1024 * 1024;
+
+    /** 直写下载默认缓冲区大小：256KB */
+    public static final int DEFAULT_DIRECT_BUFFER_SIZE = 256 * 1024;
+
+    /** 内存映射下载时每次映射的窗口大小：64MB */
+    private static final long MAPPED_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    /** 下载后批量删除远程文件的并发通道数 */
+    private static final int CLEANUP_THREADS = 4;
+
+    /** 下载后待删除的远程文件不超过该数量(或当前未使用连接池)时，直接在当前通道上逐个删除 */
+    private static final int CLEANUP_SERIAL_LIMIT = 32;
+
+    /** 分段上传时远程临时文件后缀 */
+    private static final String UPLOADING_SUFFIX = ".uploading";
+
     /** 登录用户名 */
     private String userName;
     /** 登录密码 */
@@ -31,6 +71,17 @@ public class SftpUtil {
     private String host;
     /** 端口 */
     private int port;
+    /** zlib压缩级别(1-9)，0表示不压缩 */
+    private int compressionLevel = 0;
+
+    /** 并行传输的压缩策略(为空时全部使用当前连接的压缩设置) */
+    private SftpCompressionPolicy compressionPolicy;
+
+    /** 传输优先级(用于带宽限制) */
+    private SftpBandwidthLimiter.Priority priority = SftpBandwidthLimiter.Priority.NORMAL;
+
+    /** 传输加解密(为空时不加密) */
+    private SftpCipher cipher;
 
     /** sftp主服务 */
     private ChannelSftp sftp = null;
@@ -41,6 +92,18 @@ public class SftpUtil {
     /** 会话 */
     private Session session = null;
 
+    /** 连接池(为空时由本对象独占会话) */
+    private SftpSessionPool sessionPool;
+
+    /** 是否由本对象创建连接池(disConnect时一并关闭) */
+    private boolean ownsPool = false;
+
+    /** 从连接池借出的通道 */
+    private SftpChannelLease lease;
+
+    /** 已确认存在的远程目录 */
+    private final SftpRemoteDirCache dirCache = new SftpRemoteDirCache();
+
     /**
      * 构造sftp对象
      *
@@ -60,6 +123,26 @@ public class SftpUtil {
         init();
     }
 
+    /**
+     * 从连接池借出通道构造sftp对象，disConnect时归还通道而不断开会话
+     *
+     * @param sessionPool 连接池
+     * @param poolKey 连接信息
+     */
+    public SftpUtil(SftpSessionPool sessionPool, SftpPoolKey poolKey) throws Exception {
+        this.userName = poolKey.getUserName();
+        this.passWord = poolKey.getPassWord();
+        this.privateKey = poolKey.getPrivateKey();
+        this.host = poolKey.getHost();
+        this.port = poolKey.getPort();
+        this.compressionLevel = poolKey.getCompressionLevel();
+        this.sessionPool = sessionPool;
+        this.lease = sessionPool.borrow(poolKey);
+        this.sftp = lease.getChannel();
+        this.channel = this.sftp;
+        log.info("SFTP server host:{} port:{} borrow from pool success ", host, port);
+    }
+
     /**
      * 初始化连接
      *
@@ -76,27 +159,209 @@ public class SftpUtil {
      * @throws Exception
      */
     private ChannelSftp connect() throws Exception {
-        JSch jsch = new JSch();
-        if (null != privateKey) {
-            jsch.addIdentity(privateKey);
-            log.info("SFTP connect by privateKey, path of private key file：{}", privateKey);
-        }
-        log.info("SFTP connect by host:{} username:{}", host, userName);
-        session = jsch.getSession(userName, host, port);
-        log.info("SFTP Session is build");
-        if (null != passWord) {
-            session.setPassword(passWord);
-        }
-        // 设置第一次登陆的时候提示，可选值:(ask | yes | no)
-        session.setConfig("StrictHostKeyChecking", "no");
-        session.connect();
-        log.info("SFTP Session is connected");
-        String type = "sftp";
-        channel = session.openChannel(type);
-        channel.connect();
-        log.info("SFTP channel is connected");
-        log.info("SFTP server host:{} port:{} is connect success ", host, port);
-        return (ChannelSftp) channel;
+        ChannelSftp channelSftp = SftpChannelFactory.openChannel(getPoolKey(), 0);
+        channel = channelSftp;
+        session = channelSftp.getSession();
+        return channelSftp;
+    }
+
+    /**
+     * 获取当前连接信息
+     *
+     * @return SftpPoolKey
+     */
+    public SftpPoolKey getPoolKey() {
+        return new SftpPoolKey(userName, passWord, privateKey, host, port, compressionLevel);
+    }
+
+    /**
+     * 设置并行传输的压缩策略：按文件扩展名分别使用压缩会话或不压缩会话
+     *
+     * @param compressionPolicy 压缩策略，为空时不区分
+     */
+    public void setCompressionPolicy(SftpCompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    /**
+     * 设置本对象发起的传输的优先级，全局或主机限速生效时高优先级传输优先获得带宽
+     *
+     * @param priority 传输优先级
+     */
+    public void setTransferPriority(SftpBandwidthLimiter.Priority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * 设置传输加解密：上传时边读边加密，下载时边读边解密，远程只保存密文
+     *
+     * <p>只作用于流式传输：uploadFile、uploadBatchFiles、uploadBatchFilesParallel、downloadFile、
+     * downBatchFiles、downBatchFilesParallel、downFile和pipeline(SftpAsyncClient另有setCipher)。
+     * 断点续传、分段并行、直接写入、增量同步等按字节位置或远程文件大小处理的方法与密文长度不一致，设置加密后调用时抛出异常。
+     *
+     * @param cipher 加解密对象，为空时不加密
+     */
+    public void setCipher(SftpCipher cipher) {
+        this.cipher = cipher;
+    }
+
+    /**
+     * 检查未设置加密
+     *
+     * @param operation 操作名称
+     */
+    void requirePlaintext(String operation) {
+        if (null != cipher) {
+            throw new IllegalStateException("已设置传输加密，" + operation + "不支持加密传输！");
+        }
+    }
+
+    /**
+     * 设置了加密时把明文输入流包装为密文输入流
+     *
+     * @param in 明文输入流
+     * @return InputStream
+     */
+    private InputStream encrypting(InputStream in) {
+        return null == cipher ? in : cipher.encrypt(in);
+    }
+
+    /**
+     * 设置了加密时把密文输入流包装为明文输入流
+     *
+     * @param in 密文输入流
+     * @return InputStream
+     */
+    private InputStream decrypting(InputStream in) {
+        return null == cipher ? in : cipher.decrypt(in);
+    }
+
+    /**
+     * 按全局及当前主机限速包装输入流
+     *
+     * @param in 输入流
+     * @return InputStream
+     */
+    InputStream throttle(InputStream in) {
+        return new SftpThrottledInputStream(in, SftpBandwidthLimiter.getInstance(), host, priority);
+    }
+
+    /**
+     * 按全局及当前主机限速包装输出流
+     *
+     * @param out 输出流
+     * @return OutputStream
+     */
+    OutputStream throttle(OutputStream out) {
+        return new SftpThrottledOutputStream(
+                out, SftpBandwidthLimiter.getInstance(), host, priority);
+    }
+
+    /**
+     * 限速上传本地文件
+     *
+     * @param channelSftp sftp通道
+     * @param src 本地文件
+     * @param dst 远程文件
+     * @throws Exception
+     */
+    private void putThrottled(ChannelSftp channelSftp, String src, String dst) throws Exception {
+        try (InputStream in = throttle(encrypting(new FileInputStream(src)))) {
+            channelSftp.put(in, dst);
+        }
+    }
+
+    /**
+     * 限速下载到本地文件
+     *
+     * @param channelSftp sftp通道
+     * @param src 远程文件
+     * @param dst 本地文件
+     * @param monitor 传输进度监控(可为空)
+     * @throws Exception
+     */
+    private void getThrottled(
+            ChannelSftp channelSftp, String src, String dst, SftpProgressMonitor monitor)
+            throws Exception {
+        try {
+            if (null == cipher) {
+                try (OutputStream out = throttle(new FileOutputStream(dst))) {
+                    channelSftp.get(src, out, monitor);
+                }
+                return;
+            }
+            try (InputStream in = decrypting(throttle(channelSftp.get(src, monitor, 0L)));
+                    OutputStream out = new FileOutputStream(dst)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int len;
+                while (-1 != (len = in.read(buffer))) {
+                    out.write(buffer, 0, len);
+                }
+            } catch (IOException e) {
+                // 解密失败(文件损坏、被截断或密钥不正确)时不保留部分明文
+                Files.deleteIfExists(Paths.get(dst));
+                throw e;
+            }
+        } finally {
+            // 传输失败时JSch不调用end()，这里补上；成功时重复调用由监控自行忽略
+            if (null != monitor) {
+                monitor.end();
+            }
+        }
+    }
+
+    /**
+     * 获取传输指定文件应使用的连接信息
+     *
+     * @param fileName 文件名或路径
+     * @return SftpPoolKey
+     */
+    private SftpPoolKey poolKeyFor(String fileName) {
+        SftpPoolKey key = getPoolKey();
+        return null == compressionPolicy ? key : compressionPolicy.keyFor(key, fileName);
+    }
+
+    /**
+     * 并行处理文件：设置了压缩策略时按源文件名分别使用压缩会话或不压缩会话
+     *
+     * <p>压缩与不压缩的文件共用一个队列和一组工作线程，保持整批文件的领取顺序(如大文件优先)。
+     *
+     * @param threads 并发数
+     * @param items 待处理文件
+     * @param operation 操作名称
+     * @param task 单个文件的处理逻辑
+     * @throws InterruptedException
+     */
+    void runParallel(
+            int threads,
+            List<SftpTransferResult> items,
+            String operation,
+            SftpParallelRunner.ChannelTask task)
+            throws InterruptedException {
+        SftpPoolKey key = getPoolKey();
+        SftpParallelRunner.run(
+                getSessionPool(),
+                item ->
+                        null == compressionPolicy
+                                ? key
+                                : compressionPolicy.keyFor(key, item.getSource()),
+                threads,
+                items,
+                operation,
+                task);
+    }
+
+    /**
+     * 获取并行处理使用的连接池，未指定连接池时按当前连接信息创建一个仅供本对象使用的连接池
+     *
+     * @return SftpSessionPool
+     */
+    public synchronized SftpSessionPool getSessionPool() {
+        if (null == this.sessionPool) {
+            this.sessionPool = new SftpSessionPool();
+            this.ownsPool = true;
+        }
+        return this.sessionPool;
     }
 
     /**
@@ -120,6 +385,19 @@ public class SftpUtil {
 
     /** 关闭连接 */
     public void disConnect() {
+        if (this.ownsPool) {
+            this.sessionPool.close();
+            this.sessionPool = null;
+            this.ownsPool = false;
+        }
+        if (null != this.lease) {
+            this.lease.close();
+            this.lease = null;
+            this.sftp = null;
+            this.channel = null;
+            log.info("sftp is already returned to pool");
+            return;
+        }
         if (null != this.sftp && this.sftp.isConnected()) {
             this.sftp.disconnect();
         }
@@ -140,7 +418,9 @@ public class SftpUtil {
      */
     private boolean dirIsExist(String dir) {
         try {
-            SftpATTRS attrs = this.sftp.lstat(dir);
+            SftpATTRS attrs =
+                    SftpMetrics.getInstance()
+                            .timeRequest(host, "lstat", () -> this.sftp.lstat(dir));
             if (attrs.isDir()) {
                 return true;
             } else {
@@ -161,7 +441,9 @@ public class SftpUtil {
      */
     private boolean fileIsExist(String remoteFile) {
         try {
-            SftpATTRS attrs = this.sftp.lstat(remoteFile);
+            SftpATTRS attrs =
+                    SftpMetrics.getInstance()
+                            .timeRequest(host, "lstat", () -> this.sftp.lstat(remoteFile));
             if (attrs.isReg()) {
                 return true;
             }
@@ -182,7 +464,9 @@ public class SftpUtil {
      */
     private long getFileSize(String remoteFile) throws Exception {
         try {
-            SftpATTRS attrs = this.sftp.lstat(remoteFile);
+            SftpATTRS attrs =
+                    SftpMetrics.getInstance()
+                            .timeRequest(host, "lstat", () -> this.sftp.lstat(remoteFile));
             if (null == attrs || !attrs.isReg()) {
                 throw new Exception("远程[" + remoteFile + "] 不是文件！");
             }
@@ -204,8 +488,13 @@ public class SftpUtil {
         if (null == remotePath || "".equals(remotePath)) {
             throw new Exception("文件夹路径[" + remotePath + "]不能为空！");
         }
-        if (this.dirIsExist(remotePath)) {
+        // 绝对路径已确认存在时直接切换，省去逐级lstat
+        boolean isAbsolute = remotePath.startsWith("/");
+        if ((isAbsolute && dirCache.contains(remotePath)) || this.dirIsExist(remotePath)) {
             this.sftp.cd(remotePath);
+            if (isAbsolute) {
+                dirCache.add(remotePath);
+            }
             return true;
         }
         String[] str = remotePath.trim().split("/");
@@ -224,9 +513,35 @@ public class SftpUtil {
             }
         }
         this.sftp.cd(remotePath);
+        dirCache.add(filePath.toString());
         return true;
     }
 
+    /**
+     * 远程路径转换为绝对路径(相对路径以登录目录为基准)
+     *
+     * @param remotePath 远程路径
+     * @return String 以/结尾的绝对路径
+     * @throws SftpException
+     */
+    String remoteAbsolutePath(String remotePath) throws SftpException {
+        String path = getAbsolutePath(remotePath);
+        if (!path.startsWith("/")) {
+            path = getAbsolutePath(this.sftp.getHome()) + path;
+        }
+        return SftpRemoteDirCache.normalize(path);
+    }
+
+    /**
+     * 确保远程目录存在(已确认的目录记入缓存)
+     *
+     * @param remoteDir 远程目录(绝对路径)
+     * @throws SftpException
+     */
+    void ensureRemoteDir(String remoteDir) throws SftpException {
+        dirCache.ensureDir(this.sftp, remoteDir);
+    }
+
     /**
      * 上传文件
      *
@@ -253,7 +568,15 @@ public class SftpUtil {
         }
         // 判断远程文件夹是否存在
         createRemoteDir(remotePath);
-        this.sftp.put(filePath, remoteFileName);
+        long start = System.nanoTime();
+        try {
+            putThrottled(this.sftp, filePath, remoteFileName);
+        } catch (Exception e) {
+            SftpMetrics.getInstance().recordFailure(host, "upload");
+            throw e;
+        }
+        SftpMetrics.getInstance()
+                .recordTransfer(host, "upload", file.length(), System.nanoTime() - start);
         log.info(
                 "Sftp文件上传--->本地文件[{},{}]，远程目录[{},{}]--->成功！",
                 localPath,
@@ -263,6 +586,301 @@ public class SftpUtil {
         return true;
     }
 
+    /**
+     * 断点续传上传文件，并在读取本地文件的同时计算校验和
+     *
+     * <p>远程已存在的部分作为续传起点(远程文件大于本地文件时重新上传)，上传完成后比对远程文件大小。
+     *
+     * @param localPath 本地文件路径
+     * @param localFileName 文件名称
+     * @param remotePath 远程目录
+     * @param remoteFileName 保存文件名
+     * @return SftpTransferResult
+     * @throws Exception
+     */
+    public SftpTransferResult uploadFileResumable(
+            String localPath, String localFileName, String remotePath, String remoteFileName)
+            throws Exception {
+        requirePlaintext("断点续传上传");
+        String filePath = getAbsolutePath(localPath) + localFileName;
+        File file = new File(filePath);
+        if (!file.exists() || !file.isFile()) {
+            throw new Exception("本地文件[" + localFileName + "]不存在或不是文件！");
+        }
+        long start = System.currentTimeMillis();
+        String remoteDir = remoteAbsolutePath(remotePath);
+        dirCache.ensureDir(this.sftp, remoteDir);
+        String fileRemotePath = remoteDir + remoteFileName;
+        long localSize = file.length();
+        long offset = remoteSizeOrZero(fileRemotePath);
+        int mode = ChannelSftp.RESUME;
+        if (offset > localSize) {
+            log.info("Sftp续传上传--->远程文件[{}]大于本地文件，重新上传！", fileRemotePath);
+            offset = 0L;
+            mode = ChannelSftp.OVERWRITE;
+        }
+        log.info(
+                "Sftp续传上传--->本地文件[{}], 远程文件[{}], 续传位置[{}/{}]--->开始处理！",
+                filePath,
+                fileRemotePath,
+                offset,
+                localSize);
+        Checksum checksum = SftpChecksums.newChecksum();
+        // 续传时JSch通过skip跳过远程已有部分：限速流的skip不申请令牌，CheckedInputStream的skip在本地读取并计入校验和
+        try (InputStream in =
+                throttle(
+                        new CheckedInputStream(
+                                new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE),
+                                checksum))) {
+            this.sftp.put(in, fileRemotePath, null, mode);
+        }
+        long uploaded = remoteSizeOrZero(fileRemotePath);
+        if (uploaded != localSize) {
+            throw new Exception(
+                    "Sftp续传上传 异常：远程文件["
+                            + fileRemotePath
+                            + "]大小["
+                            + uploaded
+                            + "]与本地文件大小["
+                            + localSize
+                            + "]不一致！");
+        }
+        SftpTransferResult result =
+                new SftpTransferResult(filePath, fileRemotePath, localSize - offset);
+        result.setOffset(offset);
+        result.setChecksum(checksum.getValue());
+        result.setCostMillis(System.currentTimeMillis() - start);
+        SftpMetrics.getInstance()
+                .recordTransfer(
+                        host,
+                        "resumable-upload",
+                        result.getBytes(),
+                        result.getCostMillis() * 1000000L);
+        log.info("Sftp续传上传--->处理成功：{}", result);
+        return result;
+    }
+
+    /**
+     * 分段并行上传单个大文件
+     *
+     * <p>按字节范围把本地文件分成若干段，各段用FileChannel按位置读取，通过独立通道写入远程临时文件的对应位置；
+     * 全部分段成功且远程大小一致后，才用临时文件替换目标文件(服务器支持posix-rename时为原子替换)，失败时删除临时文件。
+     *
+     * @param localPath 本地文件路径
+     * @param localFileName 文件名称
+     * @param remotePath 远程目录
+     * @param remoteFileName 保存文件名
+     * @param segments 分段数(受连接池每主机会话上限约束，每段不小于8MB)
+     * @return SftpTransferResult
+     * @throws Exception
+     */
+    public SftpTransferResult uploadFileSegmented(
+            String localPath,
+            String localFileName,
+            String remotePath,
+            String remoteFileName,
+            int segments)
+            throws Exception {
+        requirePlaintext("分段并行上传");
+        String filePath = getAbsolutePath(localPath) + localFileName;
+        File file = new File(filePath);
+        if (!file.exists() || !file.isFile()) {
+            throw new Exception("本地文件[" + localFileName + "]不存在或不是文件！");
+        }
+        long start = System.currentTimeMillis();
+        long localSize = file.length();
+        String remoteDir = remoteAbsolutePath(remotePath);
+        dirCache.ensureDir(this.sftp, remoteDir);
+        String tmpRemotePath = remoteDir + remoteFileName + UPLOADING_SUFFIX;
+        List<SftpTransferResult> parts =
+                splitSegments(filePath, tmpRemotePath, localSize, segments);
+        log.info(
+                "Sftp分段上传--->本地文件[{}], 远程文件[{}], 文件大小[{}], 分段数[{}]--->开始处理！",
+                filePath,
+                remoteDir + remoteFileName,
+                localSize,
+                parts.size());
+        long checksum;
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            presizeRemoteFile(fileChannel, tmpRemotePath, localSize);
+            SftpParallelRunner.run(
+                    getSessionPool(),
+                    poolKeyFor(filePath),
+                    parts.size(),
+                    parts,
+                    "segment-upload",
+                    (channelSftp, part) -> {
+                        Checksum partChecksum = SftpChecksums.newChecksum();
+                        long position = part.getOffset();
+                        long end = part.getOffset() + part.getBytes();
+                        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                        // JSch只能以OVERWRITE(截断)或RESUME(在offset上加远程文件大小)打开文件，没有按指定位置打开的接口；
+                        // 写入前先确认临时文件仍为预设的完整大小，此时RESUME的写入位置正好是part.getOffset()
+                        long remoteSize = channelSftp.stat(part.getTarget()).getSize();
+                        if (remoteSize != localSize) {
+                            throw new Exception(
+                                    "远程临时文件["
+                                            + part.getTarget()
+                                            + "]大小["
+                                            + remoteSize
+                                            + "]不是预设大小["
+                                            + localSize
+                                            + "]！");
+                        }
+                        try (OutputStream out =
+                                throttle(
+                                        channelSftp.put(
+                                                part.getTarget(),
+                                                null,
+                                                ChannelSftp.RESUME,
+                                                part.getOffset() - remoteSize))) {
+                            while (position < end) {
+                                // 转为Buffer调用，JDK9+编译的class在JDK8上运行时不会找不到ByteBuffer.clear/limit
+                                ((Buffer) buffer).clear();
+                                ((Buffer) buffer)
+                                        .limit((int) Math.min(buffer.capacity(), end - position));
+                                int len = fileChannel.read(buffer, position);
+                                if (-1 == len) {
+                                    throw new Exception(
+                                            "本地文件["
+                                                    + part.getSource()
+                                                    + "]在位置["
+                                                    + position
+                                                    + "]提前结束！");
+                                }
+                                partChecksum.update(buffer.array(), 0, len);
+                                out.write(buffer.array(), 0, len);
+                                position += len;
+                            }
+                        }
+                        part.setChecksum(partChecksum.getValue());
+                        return part.getBytes();
+                    });
+            checksum = combineSegments(parts);
+            long uploaded = remoteSizeOrZero(tmpRemotePath);
+            if (uploaded != localSize) {
+                throw new Exception(
+                        "Sftp分段上传 异常：远程文件["
+                                + tmpRemotePath
+                                + "]大小["
+                                + uploaded
+                                + "]与本地文件大小["
+                                + localSize
+                                + "]不一致！");
+            }
+        } catch (Exception e) {
+            removeQuietly(tmpRemotePath);
+            throw e;
+        }
+        replaceRemoteFile(tmpRemotePath, remoteDir + remoteFileName);
+        SftpTransferResult result =
+                new SftpTransferResult(filePath, remoteDir + remoteFileName, localSize);
+        result.setChecksum(checksum);
+        result.setCostMillis(System.currentTimeMillis() - start);
+        log.info("Sftp分段上传--->处理成功：{}", result);
+        return result;
+    }
+
+    /**
+     * 创建远程临时文件并写入最后一个字节，使其大小固定为文件总大小，各分段随后只在此范围内按位置写入
+     *
+     * @param fileChannel 本地文件
+     * @param tmpRemotePath 远程临时文件
+     * @param fileSize 文件大小
+     * @throws Exception
+     */
+    private void presizeRemoteFile(FileChannel fileChannel, String tmpRemotePath, long fileSize)
+            throws Exception {
+        long lastPosition = Math.max(0L, fileSize - 1);
+        try (OutputStream out =
+                this.sftp.put(tmpRemotePath, null, ChannelSftp.OVERWRITE, lastPosition)) {
+            if (0 < fileSize) {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                fileChannel.read(last, lastPosition);
+                out.write(last.array(), 0, 1);
+            }
+        }
+    }
+
+    /**
+     * 用临时文件替换目标文件
+     *
+     * <p>先直接重命名：服务器支持posix-rename@openssh.com扩展时JSch会用它原子覆盖目标文件；
+     * 不支持时重命名会因目标已存在而失败，此时退回先删除再重命名，两步之间目标文件短暂不存在
+     *
+     * @param tmpRemotePath 远程临时文件
+     * @param remoteFile 目标文件
+     * @throws SftpException
+     */
+    private void replaceRemoteFile(String tmpRemotePath, String remoteFile) throws SftpException {
+        try {
+            this.sftp.rename(tmpRemotePath, remoteFile);
+        } catch (SftpException e) {
+            try {
+                this.sftp.stat(remoteFile);
+            } catch (SftpException statException) {
+                // 目标文件不存在，重命名失败另有原因
+                throw e;
+            }
+            log.warn("Sftp替换文件--->服务器不支持原子覆盖重命名，先删除目标文件[{}]再重命名！", remoteFile);
+            this.sftp.rm(remoteFile);
+            this.sftp.rename(tmpRemotePath, remoteFile);
+        }
+    }
+
+    /**
+     * 删除远程文件，文件不存在或删除失败时只记录日志
+     *
+     * @param remoteFile 远程文件
+     */
+    private void removeQuietly(String remoteFile) {
+        try {
+            this.sftp.rm(remoteFile);
+        } catch (SftpException e) {
+            if (ChannelSftp.SSH_FX_NO_SUCH_FILE != e.id) {
+                log.warn("删除远程文件[{}] 异常：{}", remoteFile, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 获取远程文件大小，文件不存在时返回0
+     *
+     * @param remoteFile 远程文件
+     * @return long
+     * @throws SftpException
+     */
+    private long remoteSizeOrZero(String remoteFile) throws SftpException {
+        try {
+            return SftpMetrics.getInstance()
+                    .timeRequest(host, "stat", () -> this.sftp.stat(remoteFile))
+                    .getSize();
+        } catch (SftpException e) {
+            if (ChannelSftp.SSH_FX_NO_SUCH_FILE == e.id) {
+                return 0L;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 把本地文件同时上传到多个目标服务器，本地文件只读取一次
+     *
+     * @param localPath 本地文件路径
+     * @param localFileName 文件名称
+     * @param destinations 上传目标
+     * @return List<SftpTransferResult> 与destinations顺序一致的每个目标的结果
+     * @throws Exception
+     */
+    public List<SftpTransferResult> uploadFileFanOut(
+            String localPath, String localFileName, List<SftpFanOutUpload.Destination> destinations)
+            throws Exception {
+        requirePlaintext("多目标上传");
+        return new SftpFanOutUpload(getSessionPool())
+                .priority(priority)
+                .upload(new File(getAbsolutePath(localPath) + localFileName), destinations);
+    }
+
     /**
      * 上传文件
      *
@@ -276,7 +894,7 @@ public class SftpUtil {
         log.info("Sftp文件上传---文件流-->本地文件[{}], 远程目录[{}]--->开始！", remoteFileName, remotePath);
         try {
             createRemoteDir(remotePath);
-            this.sftp.put(input, remoteFileName);
+            this.sftp.put(throttle(encrypting(input)), remoteFileName);
             log.info("Sftp文件上传---文件流-->本地文件[{}], 远程目录[{}]--->成功！", remoteFileName, remotePath);
         } finally {
             if (null != input) {
@@ -326,6 +944,70 @@ public class SftpUtil {
         return true;
     }
 
+    /**
+     * 多通道并行批量上传文件
+     *
+     * <p>远程目录只检查(或创建)一次并记入目录缓存，各通道直接按绝对路径上传，不再逐个文件cd和lstat。
+     *
+     * @param remotePath 远程目录
+     * @param localPath 本地目录
+     * @param threads 并发通道数(受连接池每主机会话上限约束)
+     * @param isDel 上传成功后是否删除本地文件
+     * @return SftpBatchReport
+     * @throws Exception
+     */
+    public SftpBatchReport uploadBatchFilesParallel(
+            String remotePath, String localPath, int threads, boolean isDel) throws Exception {
+        log.info(
+                "Sftp并行批量上传文件--->本地目录[{}], 远程目录[{}], 并发数[{}]--->开始处理！",
+                localPath,
+                remotePath,
+                threads);
+        long start = System.currentTimeMillis();
+        File[] files = new File(localPath).listFiles(File::isFile);
+        if (null == files || 0 == files.length) {
+            log.info("Sftp并行批量上传文件--->本地目录[{}] 无 文件！", localPath);
+            return new SftpBatchReport(Collections.emptyList(), 0L);
+        }
+        String remoteDir = remoteAbsolutePath(remotePath);
+        dirCache.ensureDir(this.sftp, remoteDir);
+        Arrays.sort(files, (a, b) -> Long.compare(b.length(), a.length()));
+        List<SftpTransferResult> items = new ArrayList<>(files.length);
+        for (File file : files) {
+            items.add(
+                    new SftpTransferResult(
+                            file.getPath(), remoteDir + file.getName(), file.length()));
+        }
+        runParallel(
+                threads,
+                items,
+                "upload",
+                (channelSftp, item) -> {
+                    try {
+                        putThrottled(channelSftp, item.getSource(), item.getTarget());
+                    } catch (SftpException e) {
+                        if (ChannelSftp.SSH_FX_NO_SUCH_FILE != e.id) {
+                            throw e;
+                        }
+                        // 目录在上传期间被删除：清除缓存后重建目录再试一次
+                        dirCache.evict(remoteDir);
+                        dirCache.ensureDir(channelSftp, remoteDir);
+                        putThrottled(channelSftp, item.getSource(), item.getTarget());
+                    }
+                    if (isDel) {
+                        deleteFile(item.getSource());
+                    }
+                    return item.getBytes();
+                });
+        SftpBatchReport report = new SftpBatchReport(items, System.currentTimeMillis() - start);
+        log.info(
+                "Sftp并行批量上传文件--->本地目录[{}], 远程目录[{}]--->处理完成：{}",
+                localPath,
+                remotePath,
+                report);
+        return report;
+    }
+
     /**
      * 删除本地文件
      *
@@ -363,7 +1045,19 @@ public class SftpUtil {
                 localFileName);
         String fileRemotePath = getAbsolutePath(remotePath) + remoteFileName;
         String fileLocalPath = getAbsolutePath(localPath) + localFileName;
-        this.sftp.get(fileRemotePath, fileLocalPath);
+        long start = System.nanoTime();
+        try {
+            getThrottled(this.sftp, fileRemotePath, fileLocalPath, null);
+        } catch (Exception e) {
+            SftpMetrics.getInstance().recordFailure(host, "download");
+            throw e;
+        }
+        SftpMetrics.getInstance()
+                .recordTransfer(
+                        host,
+                        "download",
+                        new File(fileLocalPath).length(),
+                        System.nanoTime() - start);
         log.info(
                 "Sftp文件下载--->远程目录[{}], 文件名称[{}], 本地目录[{},{}]--->处理成功！",
                 remotePath,
@@ -374,11 +1068,455 @@ public class SftpUtil {
     }
 
     /**
-     * Sftp文件下载到本地流
+     * SFTP断点续传下载单个文件，并在传输过程中计算校验和
+     *
+     * <p>本地已存在的部分作为续传起点(本地文件大于远程文件时重新下载)；校验和包含本地已有部分， expectedChecksum不为空且不一致时删除本地文件并抛出异常，以便下次从头下载。
      *
      * @param remotePath 远程目录
-     * @param fileName 文件名称
-     * @return InputStream
+     * @param remoteFileName 文件名称
+     * @param localPath 本地目录
+     * @param localFileName 保存文件名
+     * @param expectedChecksum 期望的CRC32校验和，为空不校验
+     * @return SftpTransferResult
+     * @throws Exception
+     */
+    public SftpTransferResult downloadFileResumable(
+            String remotePath,
+            String remoteFileName,
+            String localPath,
+            String localFileName,
+            Long expectedChecksum)
+            throws Exception {
+        requirePlaintext("断点续传下载");
+        String fileRemotePath = getAbsolutePath(remotePath) + remoteFileName;
+        String fileLocalPath = getAbsolutePath(localPath) + localFileName;
+        long start = System.currentTimeMillis();
+        long remoteSize = getFileSize(fileRemotePath);
+        mkLocalDirs(localPath);
+        File localFile = new File(fileLocalPath);
+        long offset = localFile.isFile() ? localFile.length() : 0L;
+        if (offset > remoteSize) {
+            log.info("Sftp续传下载--->本地文件[{}]大于远程文件，重新下载！", fileLocalPath);
+            offset = 0L;
+        }
+        log.info(
+                "Sftp续传下载--->远程文件[{}], 本地文件[{}], 续传位置[{}/{}]--->开始处理！",
+                fileRemotePath,
+                fileLocalPath,
+                offset,
+                remoteSize);
+        Checksum checksum = SftpChecksums.newChecksum();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        if (0 < offset) {
+            // 本地已有部分只在本机读一遍以补齐校验和
+            try (InputStream in =
+                    new CheckedInputStream(new FileInputStream(localFile), checksum)) {
+                while (-1 != in.read(buffer)) {
+                    // 读取即更新校验和
+                }
+            }
+        }
+        try (InputStream in = throttle(this.sftp.get(fileRemotePath, null, offset));
+                OutputStream out = new FileOutputStream(localFile, 0 < offset)) {
+            int len;
+            while (-1 != (len = in.read(buffer))) {
+                checksum.update(buffer, 0, len);
+                out.write(buffer, 0, len);
+            }
+        }
+        if (localFile.length() != remoteSize) {
+            throw new Exception(
+                    "Sftp续传下载 异常：本地文件["
+                            + fileLocalPath
+                            + "]大小["
+                            + localFile.length()
+                            + "]与远程文件大小["
+                            + remoteSize
+                            + "]不一致！");
+        }
+        if (null != expectedChecksum && expectedChecksum != checksum.getValue()) {
+            deleteFile(fileLocalPath);
+            throw new Exception(
+                    "Sftp续传下载 异常：文件["
+                            + fileRemotePath
+                            + "]校验和["
+                            + SftpChecksums.toHex(checksum.getValue())
+                            + "]与期望值["
+                            + SftpChecksums.toHex(expectedChecksum)
+                            + "]不一致！");
+        }
+        SftpTransferResult result =
+                new SftpTransferResult(fileRemotePath, fileLocalPath, remoteSize - offset);
+        result.setOffset(offset);
+        result.setChecksum(checksum.getValue());
+        result.setCostMillis(System.currentTimeMillis() - start);
+        SftpMetrics.getInstance()
+                .recordTransfer(
+                        host,
+                        "resumable-download",
+                        result.getBytes(),
+                        result.getCostMillis() * 1000000L);
+        log.info("Sftp续传下载--->处理成功：{}", result);
+        return result;
+    }
+
+    /**
+     * SFTP下载单个文件，直接写入本地文件通道
+     *
+     * @param remotePath 远程目录
+     * @param remoteFileName 文件名称
+     * @param localPath 本地目录
+     * @param localFileName 保存文件名
+     * @return SftpTransferResult
+     * @throws Exception
+     */
+    public SftpTransferResult downloadFileDirect(
+            String remotePath, String remoteFileName, String localPath, String localFileName)
+            throws Exception {
+        return downloadFileDirect(
+                remotePath,
+                remoteFileName,
+                localPath,
+                localFileName,
+                DEFAULT_DIRECT_BUFFER_SIZE,
+                false);
+    }
+
+    /**
+     * SFTP下载单个文件，按远程文件大小预分配本地文件后直接写入FileChannel或内存映射区
+     *
+     * <p>与downloadFile相比：读取时先把缓冲区填满再写盘，减少小块写入；预分配避免写入过程中文件反复扩展；
+     * 内存映射方式按窗口(64MB)逐段映射，不经过FileChannel.write，每个窗口写满后force到磁盘并立即解除映射，
+     * 同一时刻只有一个窗口处于映射状态；当前JDK无法立即解除映射时，旧窗口要等GC回收后才释放地址空间。
+     *
+     * @param remotePath 远程目录
+     * @param remoteFileName 文件名称
+     * @param localPath 本地目录
+     * @param localFileName 保存文件名
+     * @param bufferSize 读取缓冲区大小(字节)，不能小于32KB
+     * @param mapped 是否使用内存映射写入
+     * @return SftpTransferResult
+     * @throws Exception
+     */
+    public SftpTransferResult downloadFileDirect(
+            String remotePath,
+            String remoteFileName,
+            String localPath,
+            String localFileName,
+            int bufferSize,
+            boolean mapped)
+            throws Exception {
+        requirePlaintext("直接写入下载");
+        if (bufferSize < BUFFER_SIZE) {
+            throw new IllegalArgumentException(
+                    "缓冲区大小[" + bufferSize + "]不能小于[" + BUFFER_SIZE + "]字节！");
+        }
+        String fileRemotePath = getAbsolutePath(remotePath) + remoteFileName;
+        String fileLocalPath = getAbsolutePath(localPath) + localFileName;
+        long start = System.nanoTime();
+        long remoteSize = getFileSize(fileRemotePath);
+        log.info(
+                "Sftp直写下载--->远程文件[{}], 本地文件[{}], 文件大小[{}], 缓冲区[{}], 内存映射[{}]--->开始处理！",
+                fileRemotePath,
+                fileLocalPath,
+                remoteSize,
+                bufferSize,
+                mapped);
+        mkLocalDirs(localPath);
+        byte[] buffer = new byte[bufferSize];
+        MappedByteBuffer window = null;
+        try (RandomAccessFile raf = new RandomAccessFile(fileLocalPath, "rw");
+                InputStream in = throttle(this.sftp.get(fileRemotePath))) {
+            raf.setLength(remoteSize);
+            FileChannel fileChannel = raf.getChannel();
+            long position = 0L;
+            int len;
+            while (0 < (len = fillBuffer(in, buffer))) {
+                if (position + len > remoteSize) {
+                    throw new Exception("远程文件[" + fileRemotePath + "]在下载过程中变大！");
+                }
+                if (mapped) {
+                    int off = 0;
+                    while (off < len) {
+                        if (null == window || !window.hasRemaining()) {
+                            if (null != window) {
+                                // 换下一个窗口前把写满的窗口刷到磁盘并解除映射
+                                window.force();
+                                unmap(window);
+                                window = null;
+                            }
+                            long size = Math.min(MAPPED_WINDOW_SIZE, remoteSize - position);
+                            window =
+                                    fileChannel.map(
+                                            FileChannel.MapMode.READ_WRITE, position, size);
+                        }
+                        int count = Math.min(len - off, window.remaining());
+                        window.put(buffer, off, count);
+                        off += count;
+                        position += count;
+                    }
+                } else {
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, len);
+                    while (byteBuffer.hasRemaining()) {
+                        position += fileChannel.write(byteBuffer, position);
+                    }
+                }
+            }
+            if (position != remoteSize) {
+                throw new Exception(
+                        "Sftp直写下载 异常：已下载[" + position + "]与远程文件大小[" + remoteSize + "]不一致！");
+            }
+            if (null != window) {
+                window.force();
+            }
+        } catch (Exception e) {
+            SftpMetrics.getInstance().recordFailure(host, "direct-download");
+            // 先解除映射再删除，否则Windows下映射中的文件无法删除
+            unmap(window);
+            window = null;
+            deleteFile(fileLocalPath);
+            throw e;
+        } finally {
+            unmap(window);
+        }
+        long nanos = System.nanoTime() - start;
+        SftpMetrics.getInstance().recordTransfer(host, "direct-download", remoteSize, nanos);
+        SftpTransferResult result =
+                new SftpTransferResult(fileRemotePath, fileLocalPath, remoteSize);
+        result.setCostMillis(nanos / 1000000L);
+        log.info("Sftp直写下载--->处理成功：{}", result);
+        return result;
+    }
+
+    /**
+     * 立即解除内存映射，不等待GC回收映射区；当前JDK不支持时只记录日志，映射区仍由GC回收
+     *
+     * @param buffer 内存映射区，为空时不处理
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (null == buffer) {
+            return;
+        }
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            try {
+                // JDK9及以上
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } catch (NoSuchMethodException e) {
+                // JDK8：DirectByteBuffer.cleaner().clean()
+                Method cleaner = buffer.getClass().getMethod("cleaner");
+                cleaner.setAccessible(true);
+                Object bufferCleaner = cleaner.invoke(buffer);
+                if (null != bufferCleaner) {
+                    bufferCleaner.getClass().getMethod("clean").invoke(bufferCleaner);
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Sftp直写下载--->无法立即解除内存映射，等待GC回收：{}", e.toString());
+        }
+    }
+
+    /**
+     * 从输入流读取数据直到缓冲区填满或流结束
+     *
+     * @param in 输入流
+     * @param buffer 缓冲区
+     * @return int 读取的字节数，流已结束时返回0
+     * @throws IOException
+     */
+    private static int fillBuffer(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int len = in.read(buffer, total, buffer.length - total);
+            if (-1 == len) {
+                break;
+            }
+            total += len;
+        }
+        return total;
+    }
+
+    /**
+     * SFTP分段并行下载单个大文件
+     *
+     * <p>按字节范围把远程文件分成若干段，各段通过独立通道从对应位置读取，直接写入预分配大小的本地文件的对应位置；
+     * 各段校验和在传输中计算，完成后合并为整个文件的校验和。任一段失败时删除本地文件并抛出异常。
+     *
+     * @param remotePath 远程目录
+     * @param remoteFileName 文件名称
+     * @param localPath 本地目录
+     * @param localFileName 保存文件名
+     * @param segments 分段数(受连接池每主机会话上限约束，每段不小于8MB)
+     * @param expectedChecksum 期望的CRC32校验和，为空不校验
+     * @return SftpTransferResult
+     * @throws Exception
+     */
+    public SftpTransferResult downloadFileSegmented(
+            String remotePath,
+            String remoteFileName,
+            String localPath,
+            String localFileName,
+            int segments,
+            Long expectedChecksum)
+            throws Exception {
+        requirePlaintext("分段并行下载");
+        String fileRemotePath = getAbsolutePath(remotePath) + remoteFileName;
+        String fileLocalPath = getAbsolutePath(localPath) + localFileName;
+        long start = System.currentTimeMillis();
+        long remoteSize = getFileSize(fileRemotePath);
+        List<SftpTransferResult> parts =
+                splitSegments(fileRemotePath, fileLocalPath, remoteSize, segments);
+        log.info(
+                "Sftp分段下载--->远程文件[{}], 本地文件[{}], 文件大小[{}], 分段数[{}]--->开始处理！",
+                fileRemotePath,
+                fileLocalPath,
+                remoteSize,
+                parts.size());
+        mkLocalDirs(localPath);
+        long checksum;
+        try (RandomAccessFile raf = new RandomAccessFile(fileLocalPath, "rw")) {
+            raf.setLength(remoteSize);
+            FileChannel fileChannel = raf.getChannel();
+            SftpParallelRunner.run(
+                    getSessionPool(),
+                    poolKeyFor(fileRemotePath),
+                    parts.size(),
+                    parts,
+                    "segment-download",
+                    (channelSftp, part) -> {
+                        Checksum partChecksum = SftpChecksums.newChecksum();
+                        long position = part.getOffset();
+                        long remaining = part.getBytes();
+                        byte[] buffer = new byte[BUFFER_SIZE];
+                        try (InputStream in =
+                                throttle(channelSftp.get(part.getSource(), null, position))) {
+                            while (0 < remaining) {
+                                int len =
+                                        in.read(
+                                                buffer,
+                                                0,
+                                                (int) Math.min(buffer.length, remaining));
+                                if (-1 == len) {
+                                    throw new Exception(
+                                            "远程文件["
+                                                    + part.getSource()
+                                                    + "]在位置["
+                                                    + position
+                                                    + "]提前结束！");
+                                }
+                                partChecksum.update(buffer, 0, len);
+                                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, len);
+                                while (byteBuffer.hasRemaining()) {
+                                    position += fileChannel.write(byteBuffer, position);
+                                }
+                                remaining -= len;
+                            }
+                        }
+                        part.setChecksum(partChecksum.getValue());
+                        // 返回实际写入本地文件的字节数，作为该段的传输字节数
+                        return position - part.getOffset();
+                    });
+            checksum = combineSegments(parts);
+            // 本地文件已按远程大小预分配，文件大小无法反映缺失的数据，需按各段实际写入的字节数核对
+            long written = 0L;
+            for (SftpTransferResult part : parts) {
+                written += part.getBytes();
+            }
+            if (written != remoteSize) {
+                throw new Exception(
+                        "Sftp分段下载 异常：本地文件["
+                                + fileLocalPath
+                                + "]写入字节数["
+                                + written
+                                + "]与远程文件大小["
+                                + remoteSize
+                                + "]不一致！");
+            }
+        } catch (Exception e) {
+            deleteFile(fileLocalPath);
+            throw e;
+        }
+        if (null != expectedChecksum && expectedChecksum != checksum) {
+            deleteFile(fileLocalPath);
+            throw new Exception(
+                    "Sftp分段下载 异常：文件["
+                            + fileRemotePath
+                            + "]校验和["
+                            + SftpChecksums.toHex(checksum)
+                            + "]与期望值["
+                            + SftpChecksums.toHex(expectedChecksum)
+                            + "]不一致！");
+        }
+        SftpTransferResult result =
+                new SftpTransferResult(fileRemotePath, fileLocalPath, remoteSize);
+        result.setChecksum(checksum);
+        result.setCostMillis(System.currentTimeMillis() - start);
+        log.info("Sftp分段下载--->处理成功：{}", result);
+        return result;
+    }
+
+    /**
+     * 按字节范围切分文件，offset为段起始位置，bytes为段长度
+     *
+     * @param source 源文件
+     * @param target 目标文件
+     * @param fileSize 文件大小
+     * @param segments 期望分段数
+     * @return List<SftpTransferResult>
+     */
+    private List<SftpTransferResult> splitSegments(
+            String source, String target, long fileSize, int segments) {
+        long maxSegments = Math.max(1L, (fileSize + MIN_SEGMENT_SIZE - 1) / MIN_SEGMENT_SIZE);
+        int count =
+                (int)
+                        Math.min(
+                                maxSegments,
+                                SftpParallelRunner.boundedThreads(getSessionPool(), segments));
+        long segmentSize = (fileSize + count - 1) / Math.max(1, count);
+        List<SftpTransferResult> parts = new ArrayList<>(count);
+        for (long offset = 0; offset < fileSize || parts.isEmpty(); offset += segmentSize) {
+            SftpTransferResult part =
+                    new SftpTransferResult(
+                            source, target, Math.min(segmentSize, fileSize - offset));
+            part.setOffset(offset);
+            parts.add(part);
+        }
+        return parts;
+    }
+
+    /**
+     * 合并各段校验和，任一段失败时抛出该段的异常
+     *
+     * @param parts 各段处理结果(按位置顺序)
+     * @return long 整个文件的校验和
+     * @throws Exception
+     */
+    private long combineSegments(List<SftpTransferResult> parts) throws Exception {
+        long checksum = 0L;
+        for (SftpTransferResult part : parts) {
+            if (!part.isSuccess()) {
+                throw new Exception(
+                        "Sftp分段传输 异常：文件["
+                                + part.getSource()
+                                + "]位置["
+                                + part.getOffset()
+                                + "]开始的分段传输失败！",
+                        part.getCause());
+            }
+            checksum = SftpChecksums.combine(checksum, part.getChecksum(), part.getBytes());
+        }
+        return checksum;
+    }
+
+    /**
+     * Sftp文件下载到本地流
+     *
+     * @param remotePath 远程目录
+     * @param fileName 文件名称
+     * @return InputStream
      * @throws Exception
      */
     public InputStream downFile(String remotePath, String fileName) throws Exception {
@@ -387,7 +1525,7 @@ public class SftpUtil {
         if (!fileIsExist(fileRemotePath)) {
             throw new Exception("Sftp文件下载到本地流 异常：远程文件[" + fileRemotePath + "] 不存在！");
         }
-        InputStream ins = this.sftp.get(fileRemotePath);
+        InputStream ins = decrypting(throttle(this.sftp.get(fileRemotePath)));
         log.info("Sftp文件下载到本地流--->远程目录[{}], 文件名称[{}]--->处理成功！", remotePath, fileName);
         return ins;
     }
@@ -399,7 +1537,7 @@ public class SftpUtil {
      * @param localPath 本地保存目录
      * @param fileFormat 下载文件格式(以特定字符开头,为空不做检验)
      * @param fileEndFormat 下载文件格式(以特定字符结尾,为空不做检验)
-     * @param isDel 下载后是否删除sftp文件
+     * @param isDel 下载后是否删除sftp文件(有文件删除失败时抛出异常，异常信息列出未删除的文件)
      * @return List
      * @throws Exception
      */
@@ -425,46 +1563,43 @@ public class SftpUtil {
         List<String> fileNameList = new ArrayList<>();
         try {
             sftp.cd(remotePath);
-            Vector v = listFiles(remotePath);
-            log.info("SFTP 批量下载文件个数:{}", v.size());
-            if (v.isEmpty()) {
-                return fileNameList;
-            }
-            Iterator it = v.iterator();
-            while (it.hasNext()) {
-                ChannelSftp.LsEntry entry = (ChannelSftp.LsEntry) it.next();
-                String fileName = entry.getFilename();
-                SftpATTRS attrs = entry.getAttrs();
-                if (!attrs.isDir()) {
-                    String localFileName = localPath + fileName;
-                    boolean flag = false;
-                    if (fileFormat.length() > 0 && fileEndFormat.length() > 0) {
-                        if (fileName.startsWith(fileFormat) && fileName.endsWith(fileEndFormat)) {
-                            flag = downloadFile(remotePath, fileName, localPath, fileName);
-                        }
-                    } else if (fileFormat.length() > 0 && "".equals(fileEndFormat)) {
-                        if (fileName.startsWith(fileFormat)) {
-                            flag = downloadFile(remotePath, fileName, localPath, fileName);
-                        }
-                    } else if (fileEndFormat.length() > 0 && "".equals(fileFormat)) {
-                        if (fileName.endsWith(fileEndFormat)) {
-                            flag = downloadFile(remotePath, fileName, localPath, fileName);
-                        }
-                    } else {
-                        if (!isSpecialSFileName(fileName)) {
-                            flag = downloadFile(remotePath, fileName, localPath, fileName);
+            // 边列目录边按前后缀过滤，只保留需要下载的文件名
+            String prefix = fileFormat;
+            String suffix = fileEndFormat;
+            List<String> downNames = new ArrayList<>();
+            listEntries(
+                    remotePath,
+                    null,
+                    entry -> {
+                        String fileName = entry.getFileName();
+                        if (entry.isDir()) {
+                            log.info("SFTP 批量下载文件 远程下载目录：{} 下存在子目录：{} ", remotePath, fileName);
+                        } else if (fileName.startsWith(prefix) && fileName.endsWith(suffix)) {
+                            downNames.add(fileName);
                         }
-                    }
-                    if (flag) {
+                        return true;
+                    });
+            log.info("SFTP 批量下载文件个数:{}", downNames.size());
+            String remoteDir = remoteAbsolutePath(remotePath);
+            List<String> downloaded = new ArrayList<>(downNames.size());
+            List<String> undeleted = Collections.emptyList();
+            try {
+                for (String fileName : downNames) {
+                    String localFileName = localPath + fileName;
+                    if (downloadFile(remotePath, fileName, localPath, fileName)) {
                         log.info("SFTP 批量下载文件 下载单个文件[{}] 成功！", localFileName);
                         fileNameList.add(localFileName);
-                        if (isDel) {
-                            deleteSFTPFile(remotePath, fileName);
-                        }
+                        downloaded.add(remoteDir + fileName);
                     }
-                } else {
-                    log.info("SFTP 批量下载文件 远程下载目录：{} 下存在子目录：{} ", remotePath, fileName);
                 }
+            } finally {
+                // 下载结束后再批量删除，不再每个文件cd+rm；中途失败时已下载的文件同样删除，避免下次重复下载
+                if (isDel && !downloaded.isEmpty()) {
+                    undeleted = deleteDownloaded(downloaded);
+                }
+            }
+            if (!undeleted.isEmpty()) {
+                throw new Exception("Sftp批量下载文件 异常：已下载的远程文件" + undeleted + "删除失败！");
             }
             log.info(
                     "SFTP 批量下载文件 远程下载目录：{}, 本地保存目录：{}, 下载文件格式：{}, 下载文件格式：{}, 下载后是否删除sftp文件：{}  下载成功！",
@@ -509,15 +1644,11 @@ public class SftpUtil {
             String fileName = sftpLsEntry.getFileName();
             String fileRemotePath = getAbsolutePath(sftpLsEntry.getPath()) + fileName;
             String fileLocalPath = getAbsolutePath(localPath) + fileName;
-            if (!isMonitor) {
-                this.sftp.get(fileRemotePath, fileLocalPath);
-            } else {
-                this.sftp.get(
-                        fileRemotePath,
-                        fileLocalPath,
-                        new SftpProgressMonitorImpl(sftpLsEntry.getFileSize()),
-                        ChannelSftp.OVERWRITE);
-            }
+            getThrottled(
+                    this.sftp,
+                    fileRemotePath,
+                    fileLocalPath,
+                    isMonitor ? new SftpTransferMonitor(sftpLsEntry.getFileSize()) : null);
         }
         log.info(
                 "Sftp批量下载文件--->远程目录[{}], 本地目录[{}], 文件数量[{}]--->处理成功！",
@@ -526,6 +1657,212 @@ public class SftpUtil {
                 list.size());
     }
 
+    /**
+     * 多通道并行批量下载文件(含子目录下的文件，在本地目录下保持子目录结构)
+     *
+     * <p>大文件优先分配，单个文件失败不会中断其他文件，失败原因记录在返回的报告中。
+     *
+     * @param remotePath 远程目录
+     * @param localPath 本地目录
+     * @param threads 并发通道数(受连接池每主机会话上限约束)
+     * @param isMonitor 是否记录文件传输进度
+     * @return SftpBatchReport
+     * @throws Exception
+     */
+    public SftpBatchReport downBatchFilesParallel(
+            String remotePath, String localPath, int threads, boolean isMonitor)
+            throws Exception {
+        log.info(
+                "Sftp并行批量下载文件--->远程目录[{}], 本地目录[{}], 并发数[{}]--->开始处理！",
+                remotePath,
+                localPath,
+                threads);
+        long start = System.currentTimeMillis();
+        if (!dirIsExist(remotePath)) {
+            throw new Exception("Sftp并行批量下载文件 异常：远程目录[" + remotePath + "] 不存在！");
+        }
+        LinkedList<SftpLsEntry> list = getAllSftpLsEntry4Dir(remotePath);
+        mkLocalDirs(localPath);
+        // 大文件优先，减少最后只剩一个大文件在传输的等待时间
+        List<SftpLsEntry> entries = new ArrayList<>(list);
+        entries.sort((a, b) -> Long.compare(b.getFileSize(), a.getFileSize()));
+        String remoteRoot = getAbsolutePath(remotePath);
+        List<SftpTransferResult> items = new ArrayList<>(entries.size());
+        for (SftpLsEntry entry : entries) {
+            String remoteFile = getAbsolutePath(entry.getPath()) + entry.getFileName();
+            // 不同子目录下的同名文件各自保存，不能写到同一个本地文件
+            String relativePath = remoteFile.substring(remoteRoot.length());
+            items.add(
+                    new SftpTransferResult(
+                            remoteFile,
+                            new File(localPath, relativePath).getPath(),
+                            entry.getFileSize()));
+        }
+        runParallel(
+                threads,
+                items,
+                "download",
+                (channelSftp, item) -> {
+                    mkLocalDirs(new File(item.getTarget()).getParent());
+                    getThrottled(
+                            channelSftp,
+                            item.getSource(),
+                            item.getTarget(),
+                            isMonitor ? new SftpTransferMonitor(item.getBytes()) : null);
+                    return new File(item.getTarget()).length();
+                });
+        SftpBatchReport report = new SftpBatchReport(items, System.currentTimeMillis() - start);
+        log.info(
+                "Sftp并行批量下载文件--->远程目录[{}], 本地目录[{}]--->处理完成：{}",
+                remotePath,
+                localPath,
+                report);
+        return report;
+    }
+
+    /**
+     * 增量同步远程目录到本地(保持子目录结构)
+     *
+     * <p>本地目录下的清单文件记录上次同步的文件大小、修改时间和校验和，只下载新增或变更的文件； 文件先下载为临时文件再改名，失败的文件保留原清单记录，下次同步时重试。
+     *
+     * @param remotePath 远程目录
+     * @param localPath 本地目录
+     * @param deleteVanished 是否删除远程已不存在的本地文件
+     * @param threads 并发通道数(受连接池每主机会话上限约束)
+     * @return SftpSyncReport
+     * @throws Exception
+     */
+    public SftpSyncReport syncDirectory(
+            String remotePath, String localPath, boolean deleteVanished, int threads)
+            throws Exception {
+        requirePlaintext("增量同步");
+        log.info(
+                "Sftp增量同步--->远程目录[{}], 本地目录[{}], 删除远程已不存在的文件[{}]--->开始处理！",
+                remotePath,
+                localPath,
+                deleteVanished);
+        long start = System.currentTimeMillis();
+        mkLocalDirs(localPath);
+        File manifestFile = new File(localPath, SftpSyncManifest.DEFAULT_FILE_NAME);
+        SftpSyncManifest manifest = SftpSyncManifest.load(manifestFile);
+        LinkedList<SftpLsEntry> remoteFiles =
+                getAllSftpLsEntry4DirParallel(remotePath, threads, Integer.MAX_VALUE, null, null);
+        String remoteRoot = getAbsolutePath(remotePath);
+        Set<String> remotePaths = new HashSet<>();
+        List<SftpTransferResult> items = new ArrayList<>();
+        Map<String, SftpLsEntry> changed = new HashMap<>();
+        int unchanged = 0;
+        for (SftpLsEntry entry : remoteFiles) {
+            String remoteFile = getAbsolutePath(entry.getPath()) + entry.getFileName();
+            String relativePath = remoteFile.substring(remoteRoot.length());
+            remotePaths.add(relativePath);
+            File localFile = new File(localPath, relativePath);
+            if (manifest.isUnchanged(relativePath, entry.getFileSize(), entry.getModifyTime())
+                    && localFile.length() == entry.getFileSize()) {
+                unchanged++;
+                continue;
+            }
+            changed.put(relativePath, entry);
+            items.add(new SftpTransferResult(remoteFile, localFile.getPath(), entry.getFileSize()));
+        }
+        items.sort((a, b) -> Long.compare(b.getBytes(), a.getBytes()));
+        runParallel(
+                threads,
+                items,
+                "sync",
+                (channelSftp, item) -> {
+                    File target = new File(item.getTarget());
+                    mkLocalDirs(target.getParent());
+                    File tmp = new File(item.getTarget() + ".syncing");
+                    Checksum checksum = SftpChecksums.newChecksum();
+                    try {
+                        try (OutputStream out =
+                                new CheckedOutputStream(
+                                        throttle(new FileOutputStream(tmp)), checksum)) {
+                            channelSftp.get(item.getSource(), out);
+                        }
+                        Files.move(
+                                tmp.toPath(),
+                                target.toPath(),
+                                StandardCopyOption.REPLACE_EXISTING);
+                    } catch (Exception e) {
+                        // 失败的文件下次同步重新下载，不留下临时文件
+                        Files.deleteIfExists(tmp.toPath());
+                        throw e;
+                    }
+                    String relativePath = item.getSource().substring(remoteRoot.length());
+                    SftpLsEntry entry = changed.get(relativePath);
+                    manifest.put(
+                            relativePath,
+                            entry.getFileSize(),
+                            entry.getModifyTime(),
+                            checksum.getValue());
+                    item.setChecksum(checksum.getValue());
+                    return target.length();
+                });
+        List<String> deleted = new ArrayList<>();
+        if (deleteVanished) {
+            for (String relativePath : new ArrayList<>(manifest.paths())) {
+                if (!remotePaths.contains(relativePath)) {
+                    File localFile = new File(localPath, relativePath);
+                    if (!localFile.exists() || deleteFile(localFile.getPath())) {
+                        manifest.remove(relativePath);
+                        deleted.add(localFile.getPath());
+                    }
+                }
+            }
+        }
+        manifest.save(manifestFile);
+        SftpSyncReport report =
+                new SftpSyncReport(
+                        new SftpBatchReport(items, System.currentTimeMillis() - start),
+                        unchanged,
+                        deleted);
+        log.info(
+                "Sftp增量同步--->远程目录[{}], 本地目录[{}]--->处理完成：{}",
+                remotePath,
+                localPath,
+                report);
+        return report;
+    }
+
+    /**
+     * 以远程文件创建流式处理管道：边下载边解压、解码、拆分记录，不落地临时文件
+     *
+     * <p>管道执行期间占用本对象的通道，执行完毕后自动关闭下载流。
+     *
+     * @param remotePath 远程目录
+     * @param fileName 文件名称
+     * @return SftpStreamPipeline
+     * @throws Exception
+     */
+    public SftpStreamPipeline pipeline(String remotePath, String fileName) throws Exception {
+        String fileRemotePath = getAbsolutePath(remotePath) + fileName;
+        if (!fileIsExist(fileRemotePath)) {
+            throw new Exception("Sftp流式处理 异常：远程文件[" + fileRemotePath + "] 不存在！");
+        }
+        // 按线路上的密文限速，与getThrottled一致
+        return SftpStreamPipeline.from(decrypting(throttle(this.sftp.get(fileRemotePath))));
+    }
+
+    /**
+     * 把远程目录下的文件直接中转到另一台sftp服务器(不含子目录)，不经过本地磁盘
+     *
+     * @param remotePath 远程目录
+     * @param targetKey 目标服务器连接信息
+     * @param targetPath 目标目录(绝对路径)
+     * @param threads 并发文件数
+     * @return SftpBatchReport
+     * @throws Exception
+     */
+    public SftpBatchReport relayBatchFiles(
+            String remotePath, SftpPoolKey targetKey, String targetPath, int threads)
+            throws Exception {
+        return new SftpRelay(getSessionPool(), getPoolKey(), targetKey)
+                .priority(priority)
+                .relayBatch(remoteAbsolutePath(remotePath), targetPath, null, threads);
+    }
+
     /**
      * 删除文件
      *
@@ -541,6 +1878,153 @@ public class SftpUtil {
         return true;
     }
 
+    /**
+     * 删除已下载的远程文件
+     *
+     * <p>文件较少或当前未使用连接池时直接在当前通道上逐个删除，避免为少量文件新建连接池和会话；
+     * 文件较多时多通道批量删除，批量删除本身失败时退回当前通道逐个删除。
+     *
+     * @param downloaded 已下载的远程文件(绝对路径)
+     * @return List<String> 删除失败的远程文件，全部成功时为空
+     */
+    private List<String> deleteDownloaded(List<String> downloaded) {
+        boolean pooled;
+        synchronized (this) {
+            pooled = null != this.sessionPool;
+        }
+        if (!pooled || downloaded.size() <= CLEANUP_SERIAL_LIMIT) {
+            return deleteOnCurrentChannel(downloaded);
+        }
+        try {
+            SftpBatchReport report = deleteBatchFiles(downloaded, CLEANUP_THREADS);
+            List<String> failed = new ArrayList<>();
+            for (SftpTransferResult failure : report.getFailures()) {
+                log.error(
+                        "SFTP 批量下载文件 删除远程文件[{}] 失败：{}",
+                        failure.getSource(),
+                        failure.getCause().getMessage());
+                failed.add(failure.getSource());
+            }
+            return failed;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("SFTP 批量下载文件 多通道删除已下载的远程文件 异常，改用当前通道逐个删除：", e);
+            return deleteOnCurrentChannel(downloaded);
+        }
+    }
+
+    /**
+     * 在当前通道上按绝对路径逐个删除远程文件，文件已不存在视为删除成功
+     *
+     * @param remoteFiles 远程文件(绝对路径)
+     * @return List<String> 删除失败的远程文件
+     */
+    private List<String> deleteOnCurrentChannel(List<String> remoteFiles) {
+        List<String> failed = new ArrayList<>();
+        for (String remoteFile : remoteFiles) {
+            try {
+                SftpMetrics.getInstance()
+                        .timeRequest(
+                                host,
+                                "rm",
+                                () -> {
+                                    this.sftp.rm(remoteFile);
+                                    return null;
+                                });
+            } catch (SftpException e) {
+                if (ChannelSftp.SSH_FX_NO_SUCH_FILE != e.id) {
+                    log.error("SFTP 批量下载文件 删除远程文件[{}] 失败：{}", remoteFile, e.getMessage());
+                    failed.add(remoteFile);
+                }
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * 多通道批量删除远程文件，每个文件按绝对路径直接rm，不切换目录
+     *
+     * <p>文件已不存在视为删除成功；单个文件失败只记录在结果中，不影响其他文件。
+     *
+     * @param remoteFiles 远程文件(绝对路径)
+     * @param threads 并发通道数
+     * @return SftpBatchReport
+     * @throws Exception
+     */
+    public SftpBatchReport deleteBatchFiles(List<String> remoteFiles, int threads)
+            throws Exception {
+        long start = System.currentTimeMillis();
+        List<SftpTransferResult> items = new ArrayList<>(remoteFiles.size());
+        for (String remoteFile : remoteFiles) {
+            items.add(new SftpTransferResult(remoteFile, null, 0L));
+        }
+        SftpParallelRunner.runRequests(
+                getSessionPool(),
+                getPoolKey(),
+                threads,
+                items,
+                "batch-rm",
+                (channelSftp, item) -> {
+                    try {
+                        SftpMetrics.getInstance()
+                                .timeRequest(
+                                        host,
+                                        "rm",
+                                        () -> {
+                                            channelSftp.rm(item.getSource());
+                                            return null;
+                                        });
+                    } catch (SftpException e) {
+                        if (ChannelSftp.SSH_FX_NO_SUCH_FILE != e.id) {
+                            throw e;
+                        }
+                    }
+                    return 0L;
+                });
+        SftpBatchReport report = new SftpBatchReport(items, System.currentTimeMillis() - start);
+        log.info("Sftp批量删除文件--->处理完成：{}", report);
+        return report;
+    }
+
+    /**
+     * 多通道批量重命名(移动)远程文件，每个文件按绝对路径直接rename，不切换目录
+     *
+     * @param renames 原路径 -> 新路径(均为绝对路径)
+     * @param threads 并发通道数
+     * @return SftpBatchReport
+     * @throws Exception
+     */
+    public SftpBatchReport renameBatchFiles(Map<String, String> renames, int threads)
+            throws Exception {
+        long start = System.currentTimeMillis();
+        List<SftpTransferResult> items = new ArrayList<>(renames.size());
+        for (Map.Entry<String, String> rename : renames.entrySet()) {
+            items.add(new SftpTransferResult(rename.getKey(), rename.getValue(), 0L));
+        }
+        SftpParallelRunner.runRequests(
+                getSessionPool(),
+                getPoolKey(),
+                threads,
+                items,
+                "batch-rename",
+                (channelSftp, item) -> {
+                    SftpMetrics.getInstance()
+                            .timeRequest(
+                                    host,
+                                    "rename",
+                                    () -> {
+                                        channelSftp.rename(item.getSource(), item.getTarget());
+                                        return null;
+                                    });
+                    return 0L;
+                });
+        SftpBatchReport report = new SftpBatchReport(items, System.currentTimeMillis() - start);
+        log.info("Sftp批量重命名文件--->处理完成：{}", report);
+        return report;
+    }
+
     /**
      * 更改文件名
      *
@@ -569,15 +2053,72 @@ public class SftpUtil {
     }
 
     /**
-     * 列出目录下的文件
+     * 流式列出目录(含文件夹)：边接收边按文件名过滤并回调，内存占用与目录大小无关，回调返回false时立即停止
      *
      * @param directory 要列出的目录
-     * @return Vector
+     * @param nameRegex 文件名过滤规则(正则，为空不过滤)
+     * @param handler 目录项回调
+     * @return long 回调的目录项数量
      * @throws SftpException
      */
-    @SuppressWarnings("unchecked")
-    private Vector<ChannelSftp.LsEntry> listFiles(String directory) throws SftpException {
-        return this.sftp.ls(directory);
+    public long listEntries(String directory, String nameRegex, SftpLsEntryHandler handler)
+            throws SftpException {
+        return listEntries(this.sftp, directory, nameRegex, false, handler);
+    }
+
+    /**
+     * 在指定通道上流式列出目录(含文件夹)
+     *
+     * @param channelSftp sftp通道
+     * @param directory 要列出的目录
+     * @param nameRegex 文件名过滤规则(正则，为空不过滤)
+     * @param dirOrRegOnly 是否只列出目录和普通文件(跳过链接等特殊文件)
+     * @param handler 目录项回调
+     * @return long 回调的目录项数量
+     * @throws SftpException
+     */
+    static long listEntries(
+            ChannelSftp channelSftp,
+            String directory,
+            String nameRegex,
+            boolean dirOrRegOnly,
+            SftpLsEntryHandler handler)
+            throws SftpException {
+        Pattern pattern = StringUtil.isNullOrBlock(nameRegex) ? null : Pattern.compile(nameRegex);
+        long[] count = {0L};
+        ChannelSftp.LsEntrySelector selector =
+                lsEntry -> {
+                    String fileName = lsEntry.getFilename().trim();
+                    if (isSpecialSFileName(fileName)
+                            || (null != pattern && !pattern.matcher(fileName).matches())) {
+                        return ChannelSftp.LsEntrySelector.CONTINUE;
+                    }
+                    SftpATTRS attr = lsEntry.getAttrs();
+                    if (dirOrRegOnly && !attr.isDir() && !attr.isReg()) {
+                        return ChannelSftp.LsEntrySelector.CONTINUE;
+                    }
+                    count[0]++;
+                    boolean goOn =
+                            handler.handle(
+                                    new SftpLsEntry(
+                                            fileName,
+                                            directory,
+                                            attr.isDir(),
+                                            attr.getSize(),
+                                            attr.getMTime()));
+                    return goOn
+                            ? ChannelSftp.LsEntrySelector.CONTINUE
+                            : ChannelSftp.LsEntrySelector.BREAK;
+                };
+        SftpMetrics.getInstance()
+                .timeRequest(
+                        SftpChannelFactory.hostOf(channelSftp),
+                        "ls",
+                        () -> {
+                            channelSftp.ls(directory, selector);
+                            return null;
+                        });
+        return count[0];
     }
 
     /**
@@ -588,14 +2129,13 @@ public class SftpUtil {
      * @throws Exception
      */
     public List<String> getList4FileNamesByDir(String directory) throws Exception {
-        Vector<ChannelSftp.LsEntry> sftpFile = listFiles(directory);
         List<String> nameList = new ArrayList<>();
-        sftpFile.forEach(
-                lsEntry -> {
-                    String fileName = lsEntry.getFilename();
-                    if (!isSpecialSFileName(fileName)) {
-                        nameList.add(fileName);
-                    }
+        listEntries(
+                directory,
+                null,
+                entry -> {
+                    nameList.add(entry.getFileName());
+                    return true;
                 });
         return nameList;
     }
@@ -617,21 +2157,18 @@ public class SftpUtil {
             return;
         }
         String path = getAbsolutePath(sftpLsEntry.getPath()) + sftpLsEntry.getFileName();
-        Vector<ChannelSftp.LsEntry> sftpFiles = listFiles(path);
-        sftpFiles.forEach(
-                lsEntry -> {
-                    String fileName = lsEntry.getFilename().trim();
-                    if (!isSpecialSFileName(fileName)) {
-                        SftpATTRS attr = lsEntry.getAttrs();
-                        SftpLsEntry newLsEntry =
-                                new SftpLsEntry(fileName, path, true, attr.getSize());
-                        if (attr.isDir()) {
-                            dirList.add(newLsEntry);
-                        } else if (attr.isReg()) {
-                            newLsEntry.setDir(false);
-                            pathList.add(newLsEntry);
-                        }
+        listEntries(
+                this.sftp,
+                path,
+                null,
+                true,
+                entry -> {
+                    if (entry.isDir()) {
+                        dirList.add(entry);
+                    } else {
+                        pathList.add(entry);
                     }
+                    return true;
                 });
     }
 
@@ -665,13 +2202,35 @@ public class SftpUtil {
         return pathList;
     }
 
+    /**
+     * 并行遍历目录下所有文件(含子目录)，同级子目录的ls分散到多个通道执行，结果按路径排序
+     *
+     * @param remotePath 远程目录
+     * @param threads 并发通道数(受连接池每主机会话上限约束)
+     * @param maxDepth 最大遍历深度(0表示只列出该目录下的文件)
+     * @param includeRegex 文件名包含规则(正则，为空不过滤)
+     * @param excludeRegex 文件名排除规则(正则，为空不过滤，匹配的目录不再向下遍历)
+     * @return LinkedList<SftpLsEntry>
+     * @throws Exception
+     */
+    public LinkedList<SftpLsEntry> getAllSftpLsEntry4DirParallel(
+            String remotePath, int threads, int maxDepth, String includeRegex, String excludeRegex)
+            throws Exception {
+        return new SftpDirectoryWalker(getSessionPool(), getPoolKey())
+                .threads(threads)
+                .maxDepth(maxDepth)
+                .include(includeRegex)
+                .exclude(excludeRegex)
+                .walk(remotePath);
+    }
+
     /**
      * 判断是否为特殊文件名
      *
      * @param fileName 文件名
      * @return boolean
      */
-    private boolean isSpecialSFileName(String fileName) {
+    private static boolean isSpecialSFileName(String fileName) {
         fileName = fileName == null ? "" : fileName;
         String name1 = ".";
         String name2 = "..";
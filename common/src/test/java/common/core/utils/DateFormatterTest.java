@@ -0,0 +1,93 @@
+package common.core.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * DateFormatter单元测试：通过DateUtil格式化、解析的结果与SimpleDateFormat一致
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+class DateFormatterTest {
+
+    /** 日期字符串、格式 */
+    private static final String[][] PARSE_CASES = {
+        {"2021-06-15 08:09:10", "yyyy-MM-dd HH:mm:ss"},
+        {"2021-06-15 08:09:10.123", "yyyy-MM-dd HH:mm:ss.SSS"},
+        {"20210615080910123", "yyyyMMddHHmmssSSS"},
+        {"20210615 080910", "yyyyMMdd HHmmss"},
+        {"2021年06月15日", "yyyy年MM月dd日"},
+        {"2021/06/15", "yyyy/MM/dd"},
+        {"08:09:10", "HH:mm:ss"},
+        {"080910123", "HHmmssSSS"},
+        {"21-06-15", "yy-MM-dd"},
+        {"99-06-15", "yy-MM-dd"},
+        {"2021-06", "yyyy-MM"},
+        {"06-15", "MM-dd"},
+        // 宽松模式：超出范围的字段顺延
+        {"13-40", "MM-dd"},
+        {"2021-02-30", "yyyy-MM-dd"},
+        {"2021-13-01", "yyyy-MM-dd"},
+        {"2021-06-15 25:61:61", "yyyy-MM-dd HH:mm:ss"},
+        {"25:61:00", "HH:mm:ss"},
+        // 只解析开头符合格式的部分
+        {"2021-06-15T08:09:10Z", "yyyy-MM-dd"},
+    };
+
+    /** 格式化使用的格式 */
+    private static final String[] FORMAT_CASES = {
+        "yyyy-MM-dd HH:mm:ss",
+        "yyyy-MM-dd HH:mm:ss.SSS",
+        "yyyyMMddHHmmssSSS",
+        "yyyy年MM月dd日 HH时mm分ss秒",
+        "yy/M/d H:m:s",
+        "HH:mm",
+        "'T'HHmmss",
+    };
+
+    @Test
+    void parseMatchesSimpleDateFormat() throws ParseException {
+        for (String[] item : PARSE_CASES) {
+            Date expected = new SimpleDateFormat(item[1]).parse(item[0]);
+            assertEquals(expected, DateUtil.str2Date(item[0], item[1]), item[0] + " / " + item[1]);
+        }
+    }
+
+    @Test
+    void formatMatchesSimpleDateFormat() {
+        Date[] dates = {
+            new Date(0L),
+            new Date(1_623_715_750_123L),
+            new Date(946_684_799_999L),
+            new Date(4_102_444_800_007L),
+        };
+        for (String pattern : FORMAT_CASES) {
+            for (Date date : dates) {
+                assertEquals(
+                        new SimpleDateFormat(pattern).format(date),
+                        DateUtil.date2Str(date, pattern),
+                        pattern + " / " + date.getTime());
+            }
+        }
+    }
+
+    @Test
+    void formatterIsCachedPerPattern() {
+        assertSame(DateFormatter.of("yyyy-MM-dd"), DateFormatter.of("yyyy-MM-dd"));
+    }
+
+    @Test
+    void unparsableTextReturnsNull() {
+        assertNull(DateUtil.str2Date("not a date", "yyyy-MM-dd"));
+        assertNull(DateUtil.str2Date(null, "yyyy-MM-dd"));
+    }
+}
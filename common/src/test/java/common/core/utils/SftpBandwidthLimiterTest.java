@@ -0,0 +1,104 @@
+package common.core.utils;
+
+import common.core.utils.SftpBandwidthLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SftpBandwidthLimiter单元测试：令牌按速率补充、允许透支、按主机限速
+ *
+ * <p>每个用例使用独立的限速器，不影响全局共用的实例。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+class SftpBandwidthLimiterTest {
+
+    private static final String HOST = "127.0.0.1";
+
+    @Test
+    void unlimitedAcquireDoesNotWait() throws InterruptedException {
+        SftpBandwidthLimiter limiter = new SftpBandwidthLimiter();
+        long millis = timeMillis(() -> limiter.acquire(HOST, Priority.NORMAL, 1L << 40));
+        assertTrue(millis < 50, "未限速时不应等待，实际" + millis + "毫秒");
+    }
+
+    @Test
+    void globalRateSpreadsTransfersOverTime() throws InterruptedException {
+        SftpBandwidthLimiter limiter = new SftpBandwidthLimiter();
+        limiter.setGlobalRate(1_000_000);
+        // 令牌从0开始：第一块透支，之后每块都要等上一块的透支按1MB/s偿还，4块共约0.75秒
+        long millis =
+                timeMillis(
+                        () -> {
+                            for (int i = 0; i < 4; i++) {
+                                limiter.acquire(HOST, Priority.NORMAL, 250_000);
+                            }
+                        });
+        assertTrue(millis >= 600 && millis < 1500, "1MB/s传输1MB应约0.75秒，实际" + millis + "毫秒");
+    }
+
+    @Test
+    void oversizedRequestOverdraftsInsteadOfBlocking() throws InterruptedException {
+        SftpBandwidthLimiter limiter = new SftpBandwidthLimiter();
+        limiter.setGlobalRate(1_000);
+        // 单次申请远大于桶容量：先透支返回，不会永远等不到令牌
+        long millis = timeMillis(() -> limiter.acquire(HOST, Priority.NORMAL, 1_000_000));
+        assertTrue(millis < 100, "透支申请不应等待，实际" + millis + "毫秒");
+    }
+
+    @Test
+    void hostRateOnlyAppliesToThatHost() throws InterruptedException {
+        SftpBandwidthLimiter limiter = new SftpBandwidthLimiter();
+        limiter.setHostRate(HOST, 500_000);
+        assertEquals(500_000L, limiter.getHostRate(HOST));
+        assertEquals(0L, limiter.getHostRate("other"));
+        limiter.acquire(HOST, Priority.NORMAL, 500_000);
+        long other = timeMillis(() -> limiter.acquire("other", Priority.NORMAL, 500_000));
+        assertTrue(other < 50, "其他主机不受限速，实际" + other + "毫秒");
+        long limited = timeMillis(() -> limiter.acquire(HOST, Priority.NORMAL, 1));
+        assertTrue(limited >= 700, "应等待透支的500KB按500KB/s偿还，实际" + limited + "毫秒");
+        limiter.setHostRate(HOST, 0);
+        assertEquals(0L, limiter.getHostRate(HOST));
+        long removed = timeMillis(() -> limiter.acquire(HOST, Priority.NORMAL, 1_000_000));
+        assertTrue(removed < 50, "取消限速后不应等待，实际" + removed + "毫秒");
+    }
+
+    @Test
+    void removingRateWakesWaiters() throws InterruptedException {
+        SftpBandwidthLimiter limiter = new SftpBandwidthLimiter();
+        limiter.setGlobalRate(100);
+        limiter.acquire(HOST, Priority.NORMAL, 10_000);
+        Thread raise =
+                new Thread(
+                        () -> {
+                            try {
+                                TimeUnit.MILLISECONDS.sleep(200);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            limiter.setGlobalRate(0);
+                        });
+        raise.start();
+        // 按100B/s需要等待约100秒，取消限速后应立即返回
+        long millis = timeMillis(() -> limiter.acquire(HOST, Priority.NORMAL, 1));
+        raise.join();
+        assertTrue(millis < 2000, "取消限速后应被唤醒，实际" + millis + "毫秒");
+    }
+
+    private static long timeMillis(Acquire acquire) throws InterruptedException {
+        long start = System.nanoTime();
+        acquire.run();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @FunctionalInterface
+    private interface Acquire {
+        void run() throws InterruptedException;
+    }
+}
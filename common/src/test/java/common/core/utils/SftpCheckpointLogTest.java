@@ -0,0 +1,98 @@
+package common.core.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SftpCheckpointLog单元测试：记录重新打开后一致，写入中途退出留下的不完整末行被丢弃
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+class SftpCheckpointLogTest {
+
+    private static final String JOB = "down\t/data -> /backup";
+
+    @TempDir Path dir;
+
+    @Test
+    void reopenRestoresRecords() throws IOException {
+        File file = dir.resolve("job.checkpoint").toFile();
+        try (SftpCheckpointLog log = SftpCheckpointLog.open(file, JOB)) {
+            log.begin("/data/a.txt", 10L, 100L);
+            log.done("/data/a.txt", 10L, 100L, 0xcafebabeL);
+            log.begin("/data/b\tc.txt", 20L, 200L);
+            log.done("/data/换行\n.txt", 30L, 300L, 1L);
+        }
+
+        try (SftpCheckpointLog log = SftpCheckpointLog.open(file, JOB)) {
+            assertEquals(3, log.size());
+            assertTrue(log.isDone("/data/a.txt", 10L, 100L));
+            assertEquals(Long.valueOf(0xcafebabeL), log.getChecksum("/data/a.txt"));
+            assertFalse(log.isDone("/data/a.txt", 10L, 101L));
+            assertTrue(log.isStarted("/data/b\tc.txt", 20L, 200L));
+            assertFalse(log.isDone("/data/b\tc.txt", 20L, 200L));
+            assertNull(log.getChecksum("/data/b\tc.txt"));
+            assertTrue(log.isDone("/data/换行\n.txt", 30L, 300L));
+        }
+    }
+
+    @Test
+    void unterminatedLastLineIsDropped() throws IOException {
+        File file = dir.resolve("job.checkpoint").toFile();
+        try (SftpCheckpointLog log = SftpCheckpointLog.open(file, JOB)) {
+            log.done("/data/a.txt", 10L, 100L, 1L);
+            log.done("/data/ab.txt", 20L, 200L, 2L);
+        }
+        // 模拟写入"/data/ab.txt"时进程退出：截断后的路径恰好是另一个文件"/data/a"
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - "b.txt\n".length());
+        }
+
+        try (SftpCheckpointLog log = SftpCheckpointLog.open(file, JOB)) {
+            assertEquals(1, log.size());
+            assertTrue(log.isDone("/data/a.txt", 10L, 100L));
+            assertFalse(log.isDone("/data/a", 20L, 200L));
+            assertFalse(log.isDone("/data/ab.txt", 20L, 200L));
+            log.done("/data/c.txt", 30L, 300L, 3L);
+        }
+
+        try (SftpCheckpointLog log = SftpCheckpointLog.open(file, JOB)) {
+            assertEquals(2, log.size());
+            assertTrue(log.isDone("/data/c.txt", 30L, 300L));
+        }
+        String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(content.endsWith("\n"));
+        assertFalse(content.contains("\t/data/a\n"));
+    }
+
+    @Test
+    void otherJobIsRejected() throws IOException {
+        File file = dir.resolve("job.checkpoint").toFile();
+        try (SftpCheckpointLog log = SftpCheckpointLog.open(file, JOB)) {
+            log.done("/data/a.txt", 10L, 100L, 1L);
+        }
+        assertThrows(IOException.class, () -> SftpCheckpointLog.open(file, "other"));
+    }
+
+    @Test
+    void closedLogRejectsAppends() throws IOException {
+        SftpCheckpointLog log = SftpCheckpointLog.open(dir.resolve("c").toFile(), JOB);
+        log.close();
+        assertThrows(IOException.class, () -> log.done("/data/a.txt", 1L, 1L, 1L));
+    }
+}
@@ -0,0 +1,63 @@
+package common.core.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SftpChecksums单元测试：合并分段校验和应与整段数据的CRC32一致
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+class SftpChecksumsTest {
+
+    @Test
+    void combineMatchesWholeCrc() {
+        byte[] data = new byte[100_003];
+        new Random(20261018L).nextBytes(data);
+        long whole = crc(data, 0, data.length);
+        for (int split : new int[] {0, 1, 7, 4096, 65_536, data.length - 1, data.length}) {
+            long first = crc(data, 0, split);
+            long second = crc(data, split, data.length - split);
+            assertEquals(
+                    whole,
+                    SftpChecksums.combine(first, second, data.length - split),
+                    "分段位置" + split);
+        }
+    }
+
+    @Test
+    void combineManySegmentsInOrder() {
+        byte[] data = new byte[1_000_000];
+        new Random(1L).nextBytes(data);
+        long combined = 0L;
+        int segment = 131_072;
+        for (int offset = 0; offset < data.length; offset += segment) {
+            int length = Math.min(segment, data.length - offset);
+            combined = SftpChecksums.combine(combined, crc(data, offset, length), length);
+        }
+        assertEquals(crc(data, 0, data.length), combined);
+    }
+
+    @Test
+    void combineWithEmptySecondSegmentKeepsFirst() {
+        assertEquals(0x1234abcdL, SftpChecksums.combine(0x1234abcdL, 0L, 0L));
+    }
+
+    @Test
+    void toHexPadsToEightDigits() {
+        assertEquals("0000beef", SftpChecksums.toHex(0xbeefL));
+        assertEquals("ffffffff", SftpChecksums.toHex(0xffffffffL));
+    }
+
+    private static long crc(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return crc.getValue();
+    }
+}
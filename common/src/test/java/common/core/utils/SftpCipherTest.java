@@ -0,0 +1,105 @@
+package common.core.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SftpCipher单元测试：加解密还原明文，篡改、截断、密钥错误时解密失败
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+class SftpCipherTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private final SftpCipher cipher =
+            new SftpCipher(SftpCipher.generateKey()).chunkSize(CHUNK_SIZE);
+
+    @Test
+    void roundTripKeepsContent() throws IOException {
+        for (int size : new int[] {0, 1, CHUNK_SIZE - 1, CHUNK_SIZE, 3 * CHUNK_SIZE, 10_000}) {
+            byte[] plain = random(size);
+            byte[] encrypted = encrypt(plain);
+            assertEquals(cipher.encryptedSize(size), encrypted.length, "明文大小" + size);
+            assertArrayEquals(plain, decrypt(cipher, encrypted));
+        }
+    }
+
+    @Test
+    void tamperedByteFailsDecryption() throws IOException {
+        byte[] encrypted = encrypt(random(5 * CHUNK_SIZE + 7));
+        // 分别篡改文件头、第一块、中间块和最后一块的认证标签
+        for (int index : new int[] {10, 30, 2 * CHUNK_SIZE + 100, encrypted.length - 1}) {
+            byte[] tampered = encrypted.clone();
+            tampered[index] ^= 0x01;
+            assertThrows(IOException.class, () -> decrypt(cipher, tampered), "篡改位置" + index);
+        }
+    }
+
+    @Test
+    void truncatedCiphertextFailsDecryption() throws IOException {
+        byte[] partial = encrypt(random(3 * CHUNK_SIZE + 10));
+        byte[] exact = encrypt(random(3 * CHUNK_SIZE));
+        int lastChunk = CHUNK_SIZE + 16;
+        // 块中间截断、整块丢弃最后一块(包括明文恰好是块大小整数倍的情况)
+        assertThrows(IOException.class, () -> decrypt(cipher, cut(partial, 5)));
+        assertThrows(IOException.class, () -> decrypt(cipher, cut(partial, 10 + 16)));
+        assertThrows(IOException.class, () -> decrypt(cipher, cut(exact, 100)));
+        assertThrows(IOException.class, () -> decrypt(cipher, cut(exact, lastChunk)));
+        assertThrows(IOException.class, () -> decrypt(cipher, cut(exact, exact.length - 10)));
+    }
+
+    @Test
+    void wrongKeyFailsDecryption() throws IOException {
+        byte[] encrypted = encrypt(random(100));
+        SftpCipher other = new SftpCipher(SftpCipher.generateKey());
+        assertThrows(IOException.class, () -> decrypt(other, encrypted));
+    }
+
+    @Test
+    void invalidKeyLengthIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SftpCipher(new byte[15]));
+    }
+
+    private byte[] encrypt(byte[] plain) throws IOException {
+        return readAll(cipher.encrypt(new ByteArrayInputStream(plain)));
+    }
+
+    private static byte[] decrypt(SftpCipher cipher, byte[] encrypted) throws IOException {
+        return readAll(cipher.decrypt(new ByteArrayInputStream(encrypted)));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[777];
+            int read;
+            while (-1 != (read = stream.read(buffer))) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] cut(byte[] data, int drop) {
+        return Arrays.copyOf(data, data.length - drop);
+    }
+
+    private static byte[] random(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,92 @@
+package common.core.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SftpSyncManifest单元测试：保存后重新读取一致，特殊字符路径转义，不完整的行被跳过
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+class SftpSyncManifestTest {
+
+    @TempDir Path dir;
+
+    @Test
+    void saveAndLoadRoundTrip() throws IOException {
+        String[] paths = {"a.txt", "sub/中文 名.dat", "tab\there", "line\nbreak", "back\\slash"};
+        SftpSyncManifest manifest = new SftpSyncManifest();
+        for (int i = 0; i < paths.length; i++) {
+            manifest.put(paths[i], 100L + i, 1_600_000_000_000L + i, 0xfffffff0L + i);
+        }
+        File file = dir.resolve(SftpSyncManifest.DEFAULT_FILE_NAME).toFile();
+        manifest.save(file);
+
+        SftpSyncManifest loaded = SftpSyncManifest.load(file);
+        assertEquals(manifest.paths(), loaded.paths());
+        for (int i = 0; i < paths.length; i++) {
+            SftpSyncManifest.Entry entry = loaded.get(paths[i]);
+            assertNotNull(entry, paths[i]);
+            assertEquals(100L + i, entry.getSize());
+            assertEquals(1_600_000_000_000L + i, entry.getModifyTime());
+            assertEquals(0xfffffff0L + i, entry.getChecksum());
+        }
+    }
+
+    @Test
+    void escapeKeepsOneRecordPerLine() {
+        String path = "a\tb\nc\rd\\e";
+        String escaped = SftpSyncManifest.escape(path);
+        assertFalse(escaped.contains("\t") || escaped.contains("\n") || escaped.contains("\r"));
+        assertEquals(path, SftpSyncManifest.unescape(escaped));
+        assertEquals("plain/path.txt", SftpSyncManifest.escape("plain/path.txt"));
+    }
+
+    @Test
+    void loadSkipsIncompleteLines() throws IOException {
+        File file = dir.resolve("manifest").toFile();
+        String content =
+                "# comment\n"
+                        + "\n"
+                        + "10\t20\t1f\tok.txt\n"
+                        + "10\t20\n"
+                        + "30\t40\tff\tlast.txt\n";
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        SftpSyncManifest loaded = SftpSyncManifest.load(file);
+        assertEquals(2, loaded.paths().size());
+        assertEquals(0x1fL, loaded.get("ok.txt").getChecksum());
+        assertEquals(30L, loaded.get("last.txt").getSize());
+    }
+
+    @Test
+    void missingFileLoadsEmpty() throws IOException {
+        assertTrue(SftpSyncManifest.load(dir.resolve("none").toFile()).paths().isEmpty());
+    }
+
+    @Test
+    void unchangedComparesSizeAndModifyTime() {
+        SftpSyncManifest manifest = new SftpSyncManifest();
+        manifest.put("f", 10L, 1000L, 1L);
+        assertTrue(manifest.isUnchanged("f", 10L, 1000L));
+        assertFalse(manifest.isUnchanged("f", 11L, 1000L));
+        assertFalse(manifest.isUnchanged("f", 10L, 2000L));
+        assertFalse(manifest.isUnchanged("g", 10L, 1000L));
+        manifest.remove("f");
+        assertNull(manifest.get("f"));
+    }
+}
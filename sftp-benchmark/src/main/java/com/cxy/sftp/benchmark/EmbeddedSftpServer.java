@@ -0,0 +1,81 @@
+package com.cxy.sftp.benchmark;
+
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+/**
+ * 内嵌sftp服务器(Apache MINA SSHD)，监听本机随机端口，根目录映射到本地目录
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class EmbeddedSftpServer implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedSftpServer.class);
+
+    /** 登录用户名 */
+    public static final String USER_NAME = "bench";
+
+    /** 登录密码 */
+    public static final String PASS_WORD = "bench";
+
+    /** 监听地址 */
+    public static final String HOST = "127.0.0.1";
+
+    /** sftp根目录对应的本地目录 */
+    private final Path root;
+
+    private final SshServer server;
+
+    /**
+     * 启动服务器
+     *
+     * @param root sftp根目录对应的本地目录
+     * @throws IOException
+     */
+    public EmbeddedSftpServer(Path root) throws IOException {
+        this.root = root;
+        Files.createDirectories(root);
+        server = SshServer.setUpDefaultServer();
+        server.setHost(HOST);
+        server.setPort(0);
+        SimpleGeneratorHostKeyProvider hostKeyProvider =
+                new SimpleGeneratorHostKeyProvider(root.resolveSibling("hostkey.ser"));
+        // JSch 0.1.55 支持ecdsa-sha2-nistp256主机密钥
+        hostKeyProvider.setAlgorithm("EC");
+        server.setKeyPairProvider(hostKeyProvider);
+        server.setPasswordAuthenticator(
+                (userName, passWord, session) ->
+                        USER_NAME.equals(userName) && PASS_WORD.equals(passWord));
+        server.setSubsystemFactories(
+                Collections.singletonList(new SftpSubsystemFactory.Builder().build()));
+        server.setFileSystemFactory(new VirtualFileSystemFactory(root));
+        server.start();
+        log.info("内嵌sftp服务器启动成功：{}:{}，根目录[{}]", HOST, getPort(), root);
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop(true);
+        log.info("内嵌sftp服务器已关闭");
+    }
+}
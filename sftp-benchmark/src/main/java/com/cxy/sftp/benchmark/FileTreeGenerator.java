@@ -0,0 +1,127 @@
+package com.cxy.sftp.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * 测试文件树生成器：按固定随机种子生成目录和文件，同样的参数每次生成的内容相同
+ *
+ * <p>文本文件模拟CSV对账文件(可压缩)，二进制文件为随机字节(不可压缩)，更接近实际传输的数据。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class FileTreeGenerator {
+
+    /** 写入缓冲区大小 */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 随机数 */
+    private final Random random;
+
+    public FileTreeGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 生成目录树：每层breadth个子目录，每个目录filesPerDir个文件
+     *
+     * @param dir 根目录
+     * @param depth 目录层数(0表示只在根目录下生成文件)
+     * @param breadth 每层子目录数
+     * @param filesPerDir 每个目录的文件数
+     * @param fileSize 文件大小(字节)
+     * @return int 生成的文件数
+     * @throws IOException
+     */
+    public int generateTree(Path dir, int depth, int breadth, int filesPerDir, long fileSize)
+            throws IOException {
+        int count = generateFlat(dir, filesPerDir, fileSize);
+        if (0 < depth) {
+            for (int i = 0; i < breadth; i++) {
+                count +=
+                        generateTree(
+                                dir.resolve("dir-" + i), depth - 1, breadth, filesPerDir, fileSize);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 在目录下生成文件，文本文件与二进制文件交替
+     *
+     * @param dir 目录
+     * @param files 文件数
+     * @param fileSize 文件大小(字节)
+     * @return int 生成的文件数
+     * @throws IOException
+     */
+    public int generateFlat(Path dir, int files, long fileSize) throws IOException {
+        Files.createDirectories(dir);
+        for (int i = 0; i < files; i++) {
+            if (0 == i % 2) {
+                generateText(dir.resolve(String.format("file-%05d.csv", i)), fileSize);
+            } else {
+                generateBinary(dir.resolve(String.format("file-%05d.dat", i)), fileSize);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 生成CSV格式文本文件(父目录不存在时创建)
+     *
+     * @param file 文件
+     * @param fileSize 文件大小(字节)
+     * @throws IOException
+     */
+    public void generateText(Path file, long fileSize) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (OutputStream out =
+                new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+            long written = 0L;
+            long row = 0L;
+            while (written < fileSize) {
+                byte[] line =
+                        String.format(
+                                        "%d,6222%012d,%d.%02d,20261018,%s\n",
+                                        row++,
+                                        random.nextInt(Integer.MAX_VALUE),
+                                        random.nextInt(100000),
+                                        random.nextInt(100),
+                                        0 == random.nextInt(10) ? "FAIL" : "SUCCESS")
+                                .getBytes(StandardCharsets.UTF_8);
+                int len = (int) Math.min(line.length, fileSize - written);
+                out.write(line, 0, len);
+                written += len;
+            }
+        }
+    }
+
+    /**
+     * 生成随机字节的二进制文件(父目录不存在时创建)
+     *
+     * @param file 文件
+     * @param fileSize 文件大小(字节)
+     * @throws IOException
+     */
+    public void generateBinary(Path file, long fileSize) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            long written = 0L;
+            while (written < fileSize) {
+                random.nextBytes(buffer);
+                int len = (int) Math.min(buffer.length, fileSize - written);
+                out.write(buffer, 0, len);
+                written += len;
+            }
+        }
+    }
+}
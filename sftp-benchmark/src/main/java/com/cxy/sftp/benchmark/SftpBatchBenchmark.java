@@ -0,0 +1,77 @@
+package com.cxy.sftp.benchmark;
+
+import common.core.utils.SftpUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量上传、下载耗时：threads=1为原有的串行实现，其余为多通道并行实现
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class SftpBatchBenchmark {
+
+    /** 远程批量上传目录 */
+    private static final String REMOTE_UPLOAD_DIR = "/upload-batch";
+
+    /** 并发通道数 */
+    @Param({"1", "4"})
+    private int threads;
+
+    private String uploadDir;
+
+    private String downloadDir;
+
+    @Setup(Level.Trial)
+    public void prepare(SftpServerState server) throws Exception {
+        uploadDir = server.localDir("upload-batch");
+        downloadDir = server.localDir("download-batch");
+        new FileTreeGenerator(SftpServerState.SEED)
+                .generateFlat(Paths.get(uploadDir), 100, 256 * 1024L);
+    }
+
+    @Setup(Level.Iteration)
+    public void cleanDownloads() throws Exception {
+        SftpServerState.clean(Paths.get(downloadDir));
+    }
+
+    @Benchmark
+    public Object downloadBatch(SftpClientState client) throws Exception {
+        SftpUtil sftp = client.getSftp();
+        if (1 == threads) {
+            sftp.downBatchFiles(SftpServerState.BATCH_DIR, downloadDir, false);
+            return null;
+        }
+        return sftp.downBatchFilesParallel(SftpServerState.BATCH_DIR, downloadDir, threads, false);
+    }
+
+    @Benchmark
+    public Object uploadBatch(SftpClientState client) throws Exception {
+        SftpUtil sftp = client.getSftp();
+        if (1 == threads) {
+            return sftp.uploadBatchFiles(REMOTE_UPLOAD_DIR, uploadDir, false);
+        }
+        return sftp.uploadBatchFilesParallel(REMOTE_UPLOAD_DIR, uploadDir, threads, false);
+    }
+}
@@ -0,0 +1,48 @@
+package com.cxy.sftp.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * 运行SftpUtil基准测试，结果以JSON格式写入文件
+ *
+ * <p>用法：java -jar target/benchmarks.jar [基准测试正则] [结果文件]，默认运行全部基准测试，
+ * 结果写入target/jmh-result/sftp-yyyyMMddHHmmss.json。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+public class SftpBenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        String include =
+                0 < args.length
+                        ? args[0]
+                        : SftpBenchmarkMain.class.getPackage().getName() + ".*Benchmark";
+        String result =
+                1 < args.length
+                        ? args[1]
+                        : "target/jmh-result/sftp-"
+                                + new SimpleDateFormat("yyyyMMddHHmmss").format(new Date())
+                                + ".json";
+        File parent = new File(result).getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            throw new IllegalStateException("创建结果目录[" + parent + "]失败！");
+        }
+        Options options =
+                new OptionsBuilder()
+                        .include(include)
+                        .resultFormat(ResultFormatType.JSON)
+                        .result(result)
+                        .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,35 @@
+package com.cxy.sftp.benchmark;
+
+import common.core.utils.SftpUtil;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 每个基准测试线程独占的SftpUtil(从共用连接池借出通道)
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+@State(Scope.Thread)
+public class SftpClientState {
+
+    private SftpUtil sftp;
+
+    @Setup(Level.Trial)
+    public void open(SftpServerState server) throws Exception {
+        sftp = new SftpUtil(server.getPool(), server.getKey());
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        sftp.disConnect();
+    }
+
+    public SftpUtil getSftp() {
+        return sftp;
+    }
+}
@@ -0,0 +1,47 @@
+package com.cxy.sftp.benchmark;
+
+import common.core.utils.SftpChannelLease;
+import common.core.utils.SftpUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 建立连接耗时：每次新建会话 vs 从连接池借出
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SftpConnectBenchmark {
+
+    @Benchmark
+    public void connect(SftpServerState server) throws Exception {
+        SftpUtil sftp =
+                new SftpUtil(
+                        EmbeddedSftpServer.USER_NAME,
+                        EmbeddedSftpServer.PASS_WORD,
+                        null,
+                        EmbeddedSftpServer.HOST,
+                        server.getPort());
+        sftp.disConnect();
+    }
+
+    @Benchmark
+    public boolean borrowPooled(SftpServerState server) throws Exception {
+        try (SftpChannelLease lease = server.getPool().borrow(server.getKey())) {
+            return lease.getChannel().isConnected();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.cxy.sftp.benchmark;
+
+import common.core.utils.SftpUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单文件下载耗时，比较三种本地写入方式：
+ *
+ * <ul>
+ *   <li>stream：downloadFile(经FileOutputStream写入)
+ *   <li>channel：downloadFileDirect，预分配后写入FileChannel
+ *   <li>mapped：downloadFileDirect，预分配后写入内存映射区
+ * </ul>
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class SftpDownloadBenchmark {
+
+    /** 远程下载目录 */
+    private static final String REMOTE_DIR = "/download";
+
+    /** 文件大小：1MB、64MB */
+    @Param({"1048576", "67108864"})
+    private long fileSize;
+
+    /** 本地写入方式 */
+    @Param({"stream", "channel", "mapped"})
+    private String mode;
+
+    private String localDir;
+
+    private String fileName;
+
+    @Setup(Level.Trial)
+    public void prepare(SftpServerState server) throws Exception {
+        localDir = server.localDir("download");
+        fileName = "download-" + fileSize + ".dat";
+        new FileTreeGenerator(SftpServerState.SEED)
+                .generateBinary(server.remoteDir(REMOTE_DIR).resolve(fileName), fileSize);
+    }
+
+    @Benchmark
+    public Object download(SftpClientState client) throws Exception {
+        SftpUtil sftp = client.getSftp();
+        if ("stream".equals(mode)) {
+            return sftp.downloadFile(REMOTE_DIR, fileName, localDir, fileName);
+        }
+        return sftp.downloadFileDirect(
+                REMOTE_DIR,
+                fileName,
+                localDir,
+                fileName,
+                SftpUtil.DEFAULT_DIRECT_BUFFER_SIZE,
+                "mapped".equals(mode));
+    }
+}
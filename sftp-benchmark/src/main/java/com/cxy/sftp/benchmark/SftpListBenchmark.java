@@ -0,0 +1,45 @@
+package com.cxy.sftp.benchmark;
+
+import common.core.utils.SftpLsEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列目录与递归遍历耗时：单目录列表、串行遍历、并行遍历
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SftpListBenchmark {
+
+    @Benchmark
+    public List<String> listDir(SftpClientState client) throws Exception {
+        return client.getSftp().getList4FileNamesByDir(SftpServerState.BATCH_DIR);
+    }
+
+    @Benchmark
+    public List<SftpLsEntry> walkSerial(SftpClientState client) throws Exception {
+        return client.getSftp().getAllSftpLsEntry4Dir(SftpServerState.TREE_DIR);
+    }
+
+    @Benchmark
+    public List<SftpLsEntry> walkParallel(SftpClientState client) throws Exception {
+        return client.getSftp()
+                .getAllSftpLsEntry4DirParallel(
+                        SftpServerState.TREE_DIR, 4, Integer.MAX_VALUE, null, null);
+    }
+}
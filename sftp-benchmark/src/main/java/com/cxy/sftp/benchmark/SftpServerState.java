@@ -0,0 +1,127 @@
+package com.cxy.sftp.benchmark;
+
+import common.core.utils.SftpPoolKey;
+import common.core.utils.SftpSessionPool;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * 基准测试共用状态：启动内嵌sftp服务器，生成远程文件树，创建连接池
+ *
+ * <p>远程目录：/tree 为4层目录树(共85个目录，每个目录8个4KB文件)，/batch 为200个256KB的文件。
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+public class SftpServerState {
+
+    /** 目录遍历测试目录 */
+    public static final String TREE_DIR = "/tree";
+
+    /** 批量下载测试目录 */
+    public static final String BATCH_DIR = "/batch";
+
+    /** 生成文件的随机种子 */
+    public static final long SEED = 20261018L;
+
+    /** 临时工作目录 */
+    private Path workDir;
+
+    private EmbeddedSftpServer server;
+
+    private SftpSessionPool pool;
+
+    private SftpPoolKey key;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        workDir = Files.createTempDirectory("sftp-benchmark");
+        server = new EmbeddedSftpServer(workDir.resolve("remote"));
+        FileTreeGenerator generator = new FileTreeGenerator(SEED);
+        generator.generateTree(remoteDir(TREE_DIR), 3, 4, 8, 4 * 1024L);
+        generator.generateFlat(remoteDir(BATCH_DIR), 200, 256 * 1024L);
+        pool = new SftpSessionPool();
+        key =
+                new SftpPoolKey(
+                        EmbeddedSftpServer.USER_NAME,
+                        EmbeddedSftpServer.PASS_WORD,
+                        null,
+                        EmbeddedSftpServer.HOST,
+                        server.getPort());
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        pool.close();
+        server.close();
+        deleteRecursively(workDir);
+    }
+
+    public SftpSessionPool getPool() {
+        return pool;
+    }
+
+    public SftpPoolKey getKey() {
+        return key;
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+
+    /**
+     * 远程目录对应的本地路径(供准备测试数据)
+     *
+     * @param remotePath 远程目录(以/开头)
+     * @return Path
+     */
+    public Path remoteDir(String remotePath) {
+        return server.getRoot().resolve(remotePath.substring(1));
+    }
+
+    /**
+     * 本地工作目录下的子目录(不存在时创建)，返回以/结尾的路径
+     *
+     * @param name 子目录名称
+     * @return String
+     * @throws IOException
+     */
+    public String localDir(String name) throws IOException {
+        Path dir = Files.createDirectories(workDir.resolve("local").resolve(name));
+        return dir.toString() + File.separator;
+    }
+
+    /**
+     * 清空目录内容(保留目录本身)
+     *
+     * @param dir 目录
+     * @throws IOException
+     */
+    public static void clean(Path dir) throws IOException {
+        if (Files.isDirectory(dir)) {
+            deleteRecursively(dir);
+            Files.createDirectories(dir);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (null == dir || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.cxy.sftp.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单文件上传耗时
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class SftpUploadBenchmark {
+
+    /** 远程上传目录 */
+    private static final String REMOTE_DIR = "/upload";
+
+    /** 文件大小：1MB、64MB */
+    @Param({"1048576", "67108864"})
+    private long fileSize;
+
+    private String localDir;
+
+    private String fileName;
+
+    @Setup(Level.Trial)
+    public void prepare(SftpServerState server) throws Exception {
+        localDir = server.localDir("upload");
+        fileName = "upload-" + fileSize + ".dat";
+        new FileTreeGenerator(SftpServerState.SEED)
+                .generateBinary(Paths.get(localDir, fileName), fileSize);
+    }
+
+    @Benchmark
+    public boolean upload(SftpClientState client) throws Exception {
+        return client.getSftp().uploadFile(localDir, fileName, REMOTE_DIR, fileName);
+    }
+}
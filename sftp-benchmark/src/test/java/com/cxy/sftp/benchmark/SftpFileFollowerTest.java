@@ -0,0 +1,162 @@
+package com.cxy.sftp.benchmark;
+
+import common.core.utils.SftpFileFollower;
+import common.core.utils.SftpPoolKey;
+import common.core.utils.SftpSessionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SftpFileFollower测试(内嵌sftp服务器)：只回调完整记录、保存位置、识别截断和轮转、处理超长记录
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+class SftpFileFollowerTest {
+
+    private static final String REMOTE_FILE = "/app.log";
+
+    @TempDir Path dir;
+
+    private EmbeddedSftpServer server;
+
+    private SftpSessionPool pool;
+
+    private SftpPoolKey key;
+
+    private Path log;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new EmbeddedSftpServer(dir.resolve("server").resolve("root"));
+        pool = new SftpSessionPool();
+        key =
+                new SftpPoolKey(
+                        EmbeddedSftpServer.USER_NAME,
+                        EmbeddedSftpServer.PASS_WORD,
+                        null,
+                        EmbeddedSftpServer.HOST,
+                        server.getPort());
+        log = server.getRoot().resolve("app.log");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    void onlyCompleteLinesAreDelivered() throws Exception {
+        write("a\nb\r\nhalf");
+        SftpFileFollower follower = new SftpFileFollower(pool, key);
+
+        assertEquals(Arrays.asList("a", "b"), poll(follower));
+        assertEquals(5L, follower.getOffset(REMOTE_FILE));
+
+        append(" line\nc\n");
+        assertEquals(Arrays.asList("half line", "c"), poll(follower));
+        assertEquals(Arrays.asList(), poll(follower));
+    }
+
+    @Test
+    void stoppedPollLeavesRemainingRecords() throws Exception {
+        write("1\n2\n3\n");
+        SftpFileFollower follower = new SftpFileFollower(pool, key);
+        List<String> seen = new ArrayList<>();
+
+        // 回调返回false：该记录已处理，之后未回调的记录留到下次读取
+        follower.poll(REMOTE_FILE, (file, offset, record) -> seen.add(record) && seen.size() < 2);
+
+        assertEquals(Arrays.asList("1", "2"), seen);
+        assertEquals(4L, follower.getOffset(REMOTE_FILE));
+        assertEquals(Arrays.asList("3"), poll(follower));
+    }
+
+    @Test
+    void offsetFileSurvivesRestart() throws Exception {
+        File offsets = dir.resolve("follower.offsets").toFile();
+        write("x\ny\n");
+        assertEquals(
+                Arrays.asList("x", "y"), poll(new SftpFileFollower(pool, key).offsetFile(offsets)));
+
+        append("z\n");
+        SftpFileFollower restarted = new SftpFileFollower(pool, key).offsetFile(offsets);
+        assertEquals(4L, restarted.getOffset(REMOTE_FILE));
+        assertEquals(Arrays.asList("z"), poll(restarted));
+    }
+
+    @Test
+    void truncatedOrRotatedFileIsReadFromStart() throws Exception {
+        write("old-1\nold-2\n");
+        SftpFileFollower follower = new SftpFileFollower(pool, key);
+        poll(follower);
+
+        // 截断：文件变小
+        write("new\n");
+        assertEquals(Arrays.asList("new"), poll(follower));
+
+        // 轮转：新文件已不小于原位置，但开头内容不同
+        write("rotated-1\nrotated-2\n");
+        assertEquals(Arrays.asList("rotated-1", "rotated-2"), poll(follower));
+    }
+
+    @Test
+    void customDelimiterAndOversizePolicy() throws Exception {
+        write("short|" + repeat('x', 100) + "|tail|");
+
+        SftpFileFollower skip = new SftpFileFollower(pool, key).records("|").maxRecordLength(10);
+        assertEquals(Arrays.asList("short", "tail"), poll(skip));
+
+        SftpFileFollower truncate =
+                new SftpFileFollower(pool, key)
+                        .records("|")
+                        .maxRecordLength(10)
+                        .oversizePolicy(SftpFileFollower.OversizePolicy.TRUNCATE);
+        assertEquals(Arrays.asList("short", repeat('x', 10), "tail"), poll(truncate));
+
+        SftpFileFollower fail =
+                new SftpFileFollower(pool, key)
+                        .records("|")
+                        .maxRecordLength(10)
+                        .oversizePolicy(SftpFileFollower.OversizePolicy.FAIL);
+        assertThrows(Exception.class, () -> poll(fail));
+        assertEquals(6L, fail.getOffset(REMOTE_FILE));
+    }
+
+    private static List<String> poll(SftpFileFollower follower) throws Exception {
+        List<String> records = new ArrayList<>();
+        follower.poll(REMOTE_FILE, (file, offset, record) -> records.add(record));
+        return records;
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(log, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void append(String content) throws IOException {
+        Files.write(log, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
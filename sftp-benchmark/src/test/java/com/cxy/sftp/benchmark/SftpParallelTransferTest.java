@@ -0,0 +1,195 @@
+package com.cxy.sftp.benchmark;
+
+import common.core.utils.SftpBatchReport;
+import common.core.utils.SftpPoolKey;
+import common.core.utils.SftpSessionPool;
+import common.core.utils.SftpTransferResult;
+import common.core.utils.SftpUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SftpUtil并行、分段、断点续传测试(内嵌sftp服务器)
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+class SftpParallelTransferTest {
+
+    /** 分段传输的文件大小：每段不小于8MB，20MB可分为2段 */
+    private static final int SEGMENTED_SIZE = 20 * 1024 * 1024;
+
+    @TempDir Path dir;
+
+    private EmbeddedSftpServer server;
+
+    private SftpSessionPool pool;
+
+    private SftpUtil sftp;
+
+    private Path local;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new EmbeddedSftpServer(dir.resolve("server").resolve("root"));
+        pool = new SftpSessionPool();
+        SftpPoolKey key =
+                new SftpPoolKey(
+                        EmbeddedSftpServer.USER_NAME,
+                        EmbeddedSftpServer.PASS_WORD,
+                        null,
+                        EmbeddedSftpServer.HOST,
+                        server.getPort());
+        sftp = new SftpUtil(pool, key);
+        local = Files.createDirectories(dir.resolve("local"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        sftp.disConnect();
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    void parallelDownloadKeepsSubdirectories() throws Exception {
+        Path remote = server.getRoot().resolve("tree");
+        int files = new FileTreeGenerator(1L).generateTree(remote, 2, 3, 4, 4096);
+        Path target = local.resolve("tree");
+
+        SftpBatchReport report = sftp.downBatchFilesParallel("/tree", target + "/", 4, false);
+
+        assertTrue(report.isAllSuccess(), report.toString());
+        assertEquals(files, report.getSuccessCount());
+        List<Path> expected = relativeFiles(remote);
+        // 不同子目录下的同名文件各自保存，不会互相覆盖
+        assertEquals(expected, relativeFiles(target));
+        for (Path file : expected) {
+            assertArrayEquals(
+                    Files.readAllBytes(remote.resolve(file)),
+                    Files.readAllBytes(target.resolve(file)),
+                    file.toString());
+        }
+    }
+
+    @Test
+    void segmentedDownloadMatchesChecksum() throws Exception {
+        Path remote = server.getRoot().resolve("big.csv");
+        new FileTreeGenerator(2L).generateText(remote, SEGMENTED_SIZE);
+        long crc = crc(remote);
+
+        SftpTransferResult result =
+                sftp.downloadFileSegmented("/", "big.csv", local + "/", "big.csv", 4, crc);
+
+        assertEquals(Long.valueOf(crc), result.getChecksum());
+        assertEquals(Files.size(remote), result.getBytes());
+        assertArrayEquals(Files.readAllBytes(remote), Files.readAllBytes(local.resolve("big.csv")));
+    }
+
+    @Test
+    void segmentedDownloadRejectsWrongChecksum() throws Exception {
+        new FileTreeGenerator(2L).generateText(server.getRoot().resolve("big.csv"), SEGMENTED_SIZE);
+
+        assertThrows(
+                Exception.class,
+                () -> sftp.downloadFileSegmented("/", "big.csv", local + "/", "big.csv", 4, 1L));
+        assertFalse(Files.exists(local.resolve("big.csv")));
+    }
+
+    @Test
+    void segmentedUploadReplacesTarget() throws Exception {
+        Path source = local.resolve("big.bin");
+        new FileTreeGenerator(3L).generateBinary(source, SEGMENTED_SIZE);
+        Path up = Files.createDirectories(server.getRoot().resolve("up"));
+        Files.write(up.resolve("big.bin"), "old".getBytes());
+
+        SftpTransferResult result =
+                sftp.uploadFileSegmented(local + "/", "big.bin", "/up", "big.bin", 4);
+
+        assertEquals(Long.valueOf(crc(source)), result.getChecksum());
+        assertArrayEquals(Files.readAllBytes(source), Files.readAllBytes(up.resolve("big.bin")));
+        // 临时文件已替换为目标文件
+        assertEquals(Arrays.asList("big.bin"), Arrays.asList(up.toFile().list()));
+    }
+
+    @Test
+    void resumableDownloadContinuesFromLocalPart() throws Exception {
+        Path remote = server.getRoot().resolve("data.bin");
+        new FileTreeGenerator(4L).generateBinary(remote, 1_000_000);
+        byte[] content = Files.readAllBytes(remote);
+        Files.write(local.resolve("data.bin"), Arrays.copyOf(content, 300_000));
+
+        SftpTransferResult result =
+                sftp.downloadFileResumable("/", "data.bin", local + "/", "data.bin", crc(remote));
+
+        assertEquals(300_000L, result.getOffset());
+        assertEquals(Long.valueOf(crc(remote)), result.getChecksum());
+        assertArrayEquals(content, Files.readAllBytes(local.resolve("data.bin")));
+    }
+
+    @Test
+    void resumableUploadContinuesFromRemotePart() throws Exception {
+        Path source = local.resolve("data.bin");
+        new FileTreeGenerator(5L).generateBinary(source, 1_000_000);
+        byte[] content = Files.readAllBytes(source);
+        Path up = Files.createDirectories(server.getRoot().resolve("up"));
+        Files.write(up.resolve("data.bin"), Arrays.copyOf(content, 400_000));
+
+        SftpTransferResult result =
+                sftp.uploadFileResumable(local + "/", "data.bin", "/up", "data.bin");
+
+        assertEquals(400_000L, result.getOffset());
+        assertArrayEquals(content, Files.readAllBytes(up.resolve("data.bin")));
+    }
+
+    @Test
+    void resumableDownloadRestartsWhenLocalIsLarger() throws Exception {
+        Path remote = server.getRoot().resolve("data.bin");
+        new FileTreeGenerator(6L).generateBinary(remote, 100_000);
+        try (RandomAccessFile file =
+                new RandomAccessFile(local.resolve("data.bin").toFile(), "rw")) {
+            file.setLength(200_000);
+        }
+
+        SftpTransferResult result =
+                sftp.downloadFileResumable("/", "data.bin", local + "/", "data.bin", null);
+
+        assertEquals(0L, result.getOffset());
+        assertArrayEquals(
+                Files.readAllBytes(remote), Files.readAllBytes(local.resolve("data.bin")));
+    }
+
+    private static List<Path> relativeFiles(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile)
+                    .map(root::relativize)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long crc(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(file));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,148 @@
+package com.cxy.sftp.benchmark;
+
+import common.core.utils.SftpBatchReport;
+import common.core.utils.SftpFanOutUpload;
+import common.core.utils.SftpPoolKey;
+import common.core.utils.SftpRelay;
+import common.core.utils.SftpSessionPool;
+import common.core.utils.SftpTransferResult;
+import common.core.utils.SftpUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 服务器间中转和多目标上传测试(两个内嵌sftp服务器)
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+class SftpRelayTest {
+
+    @TempDir Path dir;
+
+    private EmbeddedSftpServer source;
+
+    private EmbeddedSftpServer target;
+
+    private SftpSessionPool pool;
+
+    private SftpPoolKey sourceKey;
+
+    private SftpPoolKey targetKey;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // 主机密钥保存在根目录的上级目录，两个服务器使用不同的上级目录
+        source = new EmbeddedSftpServer(dir.resolve("source").resolve("root"));
+        target = new EmbeddedSftpServer(dir.resolve("target").resolve("root"));
+        pool = new SftpSessionPool();
+        sourceKey = key(source);
+        targetKey = key(target);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.close();
+        source.close();
+        target.close();
+    }
+
+    @Test
+    void relayFileCopiesBetweenServers() throws Exception {
+        Path file = source.getRoot().resolve("data.bin");
+        new FileTreeGenerator(1L).generateBinary(file, 3_000_000);
+
+        SftpTransferResult result =
+                new SftpRelay(pool, sourceKey, targetKey).relayFile("/data.bin", "/copy.bin");
+
+        assertTrue(result.isSuccess());
+        assertEquals(Long.valueOf(crc(file)), result.getChecksum());
+        assertArrayEquals(
+                Files.readAllBytes(file), Files.readAllBytes(target.getRoot().resolve("copy.bin")));
+    }
+
+    @Test
+    void relayBatchCopiesDirectory() throws Exception {
+        Path in = source.getRoot().resolve("in");
+        int files = new FileTreeGenerator(2L).generateFlat(in, 12, 50_000);
+        Files.createDirectories(target.getRoot().resolve("out"));
+        SftpUtil sftp = new SftpUtil(pool, sourceKey);
+
+        SftpBatchReport report = sftp.relayBatchFiles("/in", targetKey, "/out", 4);
+
+        assertTrue(report.isAllSuccess(), report.toString());
+        assertEquals(files, report.getSuccessCount());
+        for (String name : in.toFile().list()) {
+            assertArrayEquals(
+                    Files.readAllBytes(in.resolve(name)),
+                    Files.readAllBytes(target.getRoot().resolve("out").resolve(name)),
+                    name);
+        }
+    }
+
+    @Test
+    void fanOutUploadsToEveryTarget() throws Exception {
+        Path local = Files.createDirectories(dir.resolve("local"));
+        Path file = local.resolve("daily.dat");
+        new FileTreeGenerator(3L).generateBinary(file, 5_000_000);
+        SftpPoolKey wrongPassword =
+                new SftpPoolKey(
+                        EmbeddedSftpServer.USER_NAME,
+                        "wrong",
+                        null,
+                        EmbeddedSftpServer.HOST,
+                        target.getPort());
+        List<SftpFanOutUpload.Destination> destinations =
+                Arrays.asList(
+                        new SftpFanOutUpload.Destination(sourceKey, "/a/b", "daily.dat"),
+                        new SftpFanOutUpload.Destination(targetKey, "/c", "daily.dat"),
+                        new SftpFanOutUpload.Destination(wrongPassword, "/d", "daily.dat"));
+
+        List<SftpTransferResult> results =
+                new SftpFanOutUpload(pool).maxStallMillis(1000).upload(file.toFile(), destinations);
+
+        byte[] content = Files.readAllBytes(file);
+        Long crc = crc(file);
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(crc, results.get(0).getChecksum());
+        assertArrayEquals(content, Files.readAllBytes(source.getRoot().resolve("a/b/daily.dat")));
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(crc, results.get(1).getChecksum());
+        assertArrayEquals(content, Files.readAllBytes(target.getRoot().resolve("c/daily.dat")));
+        // 一个目标失败不影响其他目标
+        assertFalse(results.get(2).isSuccess());
+        assertNull(results.get(2).getChecksum());
+    }
+
+    private static SftpPoolKey key(EmbeddedSftpServer server) {
+        return new SftpPoolKey(
+                EmbeddedSftpServer.USER_NAME,
+                EmbeddedSftpServer.PASS_WORD,
+                null,
+                EmbeddedSftpServer.HOST,
+                server.getPort());
+    }
+
+    private static long crc(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(file));
+        return crc.getValue();
+    }
+}
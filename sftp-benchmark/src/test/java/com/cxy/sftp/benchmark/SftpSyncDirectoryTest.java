@@ -0,0 +1,118 @@
+package com.cxy.sftp.benchmark;
+
+import common.core.utils.SftpPoolKey;
+import common.core.utils.SftpSessionPool;
+import common.core.utils.SftpSyncManifest;
+import common.core.utils.SftpSyncReport;
+import common.core.utils.SftpUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SftpUtil增量同步测试(内嵌sftp服务器)：只下载新增或变更的文件，可删除远程已不存在的本地文件
+ *
+ * @author chaoxy
+ * @date 2026-10-18
+ * @version 1.0
+ */
+class SftpSyncDirectoryTest {
+
+    @TempDir Path dir;
+
+    private EmbeddedSftpServer server;
+
+    private SftpSessionPool pool;
+
+    private SftpUtil sftp;
+
+    private Path remote;
+
+    private Path local;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new EmbeddedSftpServer(dir.resolve("server").resolve("root"));
+        pool = new SftpSessionPool();
+        sftp =
+                new SftpUtil(
+                        pool,
+                        new SftpPoolKey(
+                                EmbeddedSftpServer.USER_NAME,
+                                EmbeddedSftpServer.PASS_WORD,
+                                null,
+                                EmbeddedSftpServer.HOST,
+                                server.getPort()));
+        remote = server.getRoot().resolve("tree");
+        local = dir.resolve("local");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        sftp.disConnect();
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    void secondSyncSkipsUnchangedFiles() throws Exception {
+        int files = new FileTreeGenerator(1L).generateTree(remote, 2, 2, 3, 2048);
+
+        SftpSyncReport first = sftp.syncDirectory("/tree", local + "/", false, 4);
+        assertEquals(files, first.getDownloads().getSuccessCount());
+        assertEquals(0, first.getUnchangedCount());
+        assertTrue(Files.isRegularFile(local.resolve(SftpSyncManifest.DEFAULT_FILE_NAME)));
+
+        SftpSyncReport second = sftp.syncDirectory("/tree", local + "/", false, 4);
+        assertEquals(0, second.getDownloads().getResults().size());
+        assertEquals(files, second.getUnchangedCount());
+    }
+
+    @Test
+    void changedAndNewFilesAreDownloaded() throws Exception {
+        Files.createDirectories(remote.resolve("sub"));
+        Files.write(remote.resolve("a.txt"), "first".getBytes());
+        Files.write(remote.resolve("sub/b.txt"), "b".getBytes());
+        sftp.syncDirectory("/tree", local + "/", false, 2);
+
+        Files.write(remote.resolve("a.txt"), "second version".getBytes());
+        Files.setLastModifiedTime(
+                remote.resolve("a.txt"), FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        Files.write(remote.resolve("sub/c.txt"), "c".getBytes());
+
+        SftpSyncReport report = sftp.syncDirectory("/tree", local + "/", false, 2);
+        assertEquals(2, report.getDownloads().getSuccessCount());
+        assertEquals(1, report.getUnchangedCount());
+        assertArrayEquals("second version".getBytes(), Files.readAllBytes(local.resolve("a.txt")));
+        assertArrayEquals("c".getBytes(), Files.readAllBytes(local.resolve("sub/c.txt")));
+    }
+
+    @Test
+    void vanishedFilesAreDeletedOnlyWhenRequested() throws Exception {
+        Files.createDirectories(remote);
+        Files.write(remote.resolve("keep.txt"), "keep".getBytes());
+        Files.write(remote.resolve("gone.txt"), "gone".getBytes());
+        sftp.syncDirectory("/tree", local + "/", false, 2);
+        Files.delete(remote.resolve("gone.txt"));
+
+        SftpSyncReport kept = sftp.syncDirectory("/tree", local + "/", false, 2);
+        assertTrue(kept.getDeleted().isEmpty());
+        assertTrue(Files.exists(local.resolve("gone.txt")));
+
+        SftpSyncReport deleted = sftp.syncDirectory("/tree", local + "/", true, 2);
+        assertEquals(1, deleted.getDeleted().size());
+        assertFalse(Files.exists(local.resolve("gone.txt")));
+        assertTrue(Files.exists(local.resolve("keep.txt")));
+    }
+}